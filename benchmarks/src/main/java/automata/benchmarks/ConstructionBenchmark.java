@@ -0,0 +1,71 @@
+package automata.benchmarks;
+
+import automata.core.Graph;
+import automata.core.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how building a graph with {@link Graph#addNode(Node)} and
+ * {@link Graph#connectNodes(String, String, String)} scales with its size, and how long {@link Graph#isNFA()} takes
+ * on a graph of that size
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+    @Param({"1000", "100000"})
+    int states;
+
+    @Param({"4"})
+    int alphabetSize;
+
+    @Param({"1", "3"})
+    int fanOut;
+
+    private String[] alphabet;
+    private String[] labels;
+    private Graph graph;
+
+    @Setup
+    public void setUp() {
+        alphabet = SyntheticAutomata.alphabet(alphabetSize);
+        labels = new String[states];
+        for (int s = 0; s < states; s++) labels[s] = SyntheticAutomata.label(s);
+
+        graph = SyntheticAutomata.randomGraph(states, alphabetSize, fanOut);
+    }
+
+    @Benchmark
+    public Graph addNodes() {
+        Graph g = new Graph(alphabet);
+        for (String label : labels) g.addNode(new Node(label));
+
+        return g;
+    }
+
+    @Benchmark
+    public Graph addNodesAndConnect() {
+        return SyntheticAutomata.randomGraph(states, alphabetSize, fanOut);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean isNFA() {
+        return graph.isNFA();
+    }
+}
@@ -0,0 +1,94 @@
+package automata.benchmarks;
+
+import automata.core.FrozenGraph;
+import automata.core.Graph;
+import automata.core.LazyDFA;
+import automata.core.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many symbols per second each way of testing a word gets through, on DFAs (a fan-out of 1) and NFAs
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(MatchingBenchmark.WORD_LENGTH)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchingBenchmark {
+    static final int WORD_LENGTH = 1000;
+
+    @Param({"100", "10000"})
+    int states;
+
+    @Param({"4"})
+    int alphabetSize;
+
+    @Param({"1", "3"})
+    int fanOut;
+
+    private Graph graph;
+    private String word;
+    private String[] symbols;
+    private int[] symbolIds;
+
+    private Matcher matcher;
+    private LazyDFA lazyDFA;
+
+    @Setup
+    public void setUp() {
+        graph = SyntheticAutomata.randomGraph(states, alphabetSize, fanOut);
+        word = SyntheticAutomata.randomWord(WORD_LENGTH, alphabetSize);
+
+        symbols = new String[WORD_LENGTH];
+        symbolIds = new int[WORD_LENGTH];
+        for (int i = 0; i < WORD_LENGTH; i++) {
+            symbols[i] = String.valueOf(word.charAt(i));
+            symbolIds[i] = graph.getSymbolId(symbols[i]);
+        }
+
+        FrozenGraph frozen = graph.freeze();
+        matcher = frozen.matcher();
+        lazyDFA = frozen.lazyDFA();
+    }
+
+    @Benchmark
+    public boolean stepTestingWord() {
+        graph.startTestingWord();
+        for (String symbol : symbols) graph.stepTestingWord(symbol);
+
+        return graph.endTestingWord();
+    }
+
+    @Benchmark
+    public boolean stepTestingWordById() {
+        graph.startTestingWord();
+        for (int symbolId : symbolIds) graph.stepTestingWord(symbolId);
+
+        return graph.endTestingWord();
+    }
+
+    @Benchmark
+    public boolean matcher() {
+        return matcher.matches(word);
+    }
+
+    @Benchmark
+    public boolean lazyDFA() {
+        return lazyDFA.accepts(word);
+    }
+}
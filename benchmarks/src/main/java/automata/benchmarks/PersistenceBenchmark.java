@@ -0,0 +1,75 @@
+package automata.benchmarks;
+
+import automata.core.FrozenGraph;
+import automata.core.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures saving and loading graphs of different sizes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceBenchmark {
+    @Param({"1000", "100000"})
+    int states;
+
+    @Param({"4"})
+    int alphabetSize;
+
+    @Param({"1", "3"})
+    int fanOut;
+
+    private Graph graph;
+    private Path saved;
+    private Path scratch;
+
+    @Setup
+    public void setUp() throws IOException {
+        graph = SyntheticAutomata.randomGraph(states, alphabetSize, fanOut);
+
+        saved = Files.createTempFile("automaton", ".fsa");
+        scratch = Files.createTempFile("automaton", ".fsa");
+        graph.save(saved);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(saved);
+        Files.deleteIfExists(scratch);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        graph.save(scratch);
+    }
+
+    @Benchmark
+    public Graph load() throws IOException, ClassNotFoundException {
+        return Graph.load(saved);
+    }
+
+    @Benchmark
+    public FrozenGraph loadFrozen() throws IOException {
+        return FrozenGraph.load(saved);
+    }
+}
@@ -0,0 +1,82 @@
+package automata.benchmarks;
+
+import automata.core.Graph;
+import automata.core.Node;
+
+import java.util.Random;
+
+/**
+ * Generates random automata and words for the benchmarks. The same parameters and seed always give the same automaton
+ */
+final class SyntheticAutomata {
+    static final long SEED = 42;
+
+    private SyntheticAutomata() {
+    }
+
+    /**
+     * Builds an alphabet of single character symbols starting from a
+     *
+     * @param size Number of symbols
+     * @return The alphabet
+     */
+    static String[] alphabet(int size) {
+        String[] alphabet = new String[size];
+        for (int i = 0; i < size; i++) alphabet[i] = String.valueOf((char) ('a' + i));
+
+        return alphabet;
+    }
+
+    /**
+     * @param state Id of a state
+     * @return The label of the node for that state
+     */
+    static String label(int state) {
+        return "q" + state;
+    }
+
+    /**
+     * Builds a random automaton where every node has the same number of transitions over every symbol. With a fan-out
+     * of 1 this is a complete DFA, with more it is an NFA
+     *
+     * @param states       Number of nodes
+     * @param alphabetSize Number of symbols in the alphabet
+     * @param fanOut       Number of distinct destinations of every node over every symbol
+     * @return The automaton, starting from node q0, with about half its nodes accepting
+     */
+    static Graph randomGraph(int states, int alphabetSize, int fanOut) {
+        Random random = new Random(SEED);
+        String[] alphabet = alphabet(alphabetSize);
+        Graph g = new Graph(alphabet);
+
+        for (int s = 0; s < states; s++) g.addNode(new Node(label(s), random.nextBoolean()));
+        g.setStartNode(label(0));
+
+        for (int s = 0; s < states; s++) {
+            for (String symbol : alphabet) {
+                // Destinations are spread evenly around the graph, so they are distinct
+                int first = random.nextInt(states);
+                for (int i = 0; i < Math.min(fanOut, states); i++) {
+                    g.connectNodes(label(s), label((first + i * (states / fanOut + 1)) % states), symbol);
+                }
+            }
+        }
+
+        return g;
+    }
+
+    /**
+     * Builds a random word over an alphabet from {@link #alphabet(int)}
+     *
+     * @param length       Number of symbols in the word
+     * @param alphabetSize Number of symbols in the alphabet
+     * @return The word
+     */
+    static String randomWord(int length, int alphabetSize) {
+        Random random = new Random(SEED);
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) word[i] = (char) ('a' + random.nextInt(alphabetSize));
+
+        return new String(word);
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link ProcessingGraph} layout on its own thread, with the forces of each step computed in parallel on a
+ * fork-join pool, so drawing never waits for the layout.
+ * <p>
+ * Finished positions are published through three {@link Snapshot} buffers: the worker fills its back buffer, then
+ * swaps it with the shared middle buffer in one atomic step. The drawing thread swaps its front buffer with the middle
+ * one whenever a newer snapshot is waiting. Neither thread ever writes to a buffer the other is reading, and neither
+ * ever blocks.
+ * <p>
+ * The drawing thread only talks to the worker through {@link #snapshot()} and the commands {@link #moveNode},
+ * {@link #releaseNode}, {@link #reheat()} and {@link #reindex()}, which are queued and applied before the next step.
+ * Commands are applied and published even before the layout is started with {@link #start()}. Once the layout has
+ * cooled down and no commands are waiting, the worker sleeps until the next command.
+ */
+class LayoutWorker implements AutoCloseable {
+
+    /**
+     * The positions of the nodes after a step. The node with layout index i is at <code>(x[i], y[i])</code>, and the
+     * transitions are given as pairs of layout indexes
+     */
+    static final class Snapshot {
+        float[] x = new float[0];
+        float[] y = new float[0];
+        ProcessingNode[] nodes = new ProcessingNode[0];
+        int[] edgeSources = new int[0];
+        int[] edgeTargets = new int[0];
+
+        /**
+         * Number of snapshots published before this one, which only changes when the positions do
+         */
+        long version;
+
+        /**
+         * Whether the drawing thread hasn't taken this snapshot yet. It is only changed before the snapshot is swapped
+         * into the middle buffer, which makes the change visible to the other thread
+         */
+        boolean fresh;
+
+        int getNodeCount() {
+            return nodes.length;
+        }
+    }
+
+    private final ProcessingGraph layout;
+    private final ForkJoinPool pool;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+
+    private final AtomicReference<Snapshot> middle = new AtomicReference<>(new Snapshot());
+    private Snapshot back = new Snapshot();
+    private Snapshot front = new Snapshot();
+
+    private volatile boolean running = true;
+    private volatile boolean stepping;
+    private long versions;
+
+    /**
+     * @param layout Layout to run. It must not be used by any other thread while the worker is running
+     * @param pool   Pool the forces are computed in
+     */
+    LayoutWorker(ProcessingGraph layout, ForkJoinPool pool) {
+        this.layout = layout;
+        this.pool = pool;
+        this.thread = new Thread(this::run, "layout-worker");
+        this.thread.setDaemon(true);
+
+        layout.index();
+        publish();
+        front = middle.getAndSet(front);
+
+        thread.start();
+    }
+
+    /**
+     * Starts moving the nodes
+     */
+    void start() {
+        stepping = true;
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Gets the newest positions. This must only be called from one thread, the one drawing the graph, and the
+     * returned snapshot stays valid until the next call
+     *
+     * @return The newest snapshot
+     */
+    Snapshot snapshot() {
+        if (middle.get().fresh) {
+            front.fresh = false;
+            front = middle.getAndSet(front);
+        }
+
+        return front;
+    }
+
+    /**
+     * Moves a node and keeps it there until {@link #releaseNode} is called, e.g. while it is being dragged. The index of
+     * the node is only read once the command runs, as an earlier update may still re-index the nodes
+     */
+    void moveNode(ProcessingNode node, float x, float y) {
+        send(() -> {
+            layout.pin(node.layoutIndex, x, y);
+            layout.reheat();
+        });
+    }
+
+    void releaseNode(ProcessingNode node) {
+        send(() -> layout.release(node.layoutIndex));
+    }
+
+    void reheat() {
+        send(layout::reheat);
+    }
+
+    /**
+     * Picks up nodes and transitions added to the graph. The graph must not be changed while this command is waiting
+     */
+    void reindex() {
+        send(() -> {
+            layout.index();
+            layout.reheat();
+        });
+    }
+
+    private void send(Runnable command) {
+        commands.add(command);
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (running) {
+            boolean changed = false;
+            for (Runnable command = commands.poll(); command != null; command = commands.poll()) {
+                command.run();
+                changed = true;
+            }
+
+            if (stepping && !layout.isCooled()) {
+                layout.step(pool);
+                changed = true;
+            }
+
+            if (changed) publish();
+            else LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Copies the positions into the back buffer and swaps it into the middle
+     */
+    private void publish() {
+        int count = layout.getNodeCount();
+        if (back.x.length < count) {
+            back.x = new float[count];
+            back.y = new float[count];
+        }
+        back.nodes = layout.getIndexedNodes();
+        back.edgeSources = layout.getEdgeSources();
+        back.edgeTargets = layout.getEdgeTargets();
+
+        layout.copyPositions(back.x, back.y);
+        back.version = versions++;
+        back.fresh = true;
+        back = middle.getAndSet(back);
+    }
+}
@@ -1,23 +1,330 @@
+import automata.core.Graph;
+import automata.core.Node;
+import automata.core.Transition;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lays out the nodes of a graph with a force-directed (Fruchterman-Reingold) layout. Every pair of nodes repels and the
+ * two ends of every transition attract, and each step moves the nodes along the total force by at most the current
+ * temperature, which cools down step by step so the layout settles.
+ * <p>
+ * The repulsion between all pairs is approximated with a Barnes-Hut {@link QuadTree}, so a step takes O(n log n + e)
+ * time for n nodes and e transitions. The positions and the transitions are copied into flat arrays by
+ * {@link #index()}, and a step only works on those arrays, so it can run on another thread than the one drawing the
+ * graph (see {@link LayoutWorker}) and the force on each node can be computed in parallel.
+ */
 public class ProcessingGraph {
+    /**
+     * Distance the layout tries to keep between connected nodes
+     */
+    static final float IDEAL_EDGE_LENGTH = 60;
+
+    /**
+     * Accuracy of the Barnes-Hut approximation, see {@link QuadTree#addRepulsion}
+     */
+    static final float THETA = 0.8f;
+
+    static final float INITIAL_TEMPERATURE = 40;
+    static final float MIN_TEMPERATURE = 0.5f;
+    static final float COOLING = 0.97f;
+
+    /**
+     * Smallest number of nodes the forces are computed for in one parallel task
+     */
+    private static final int MIN_RANGE = 512;
+
     Graph g;
 
+    /**
+     * Largest distance a node can move in a step
+     */
+    float temperature = INITIAL_TEMPERATURE;
+
+    private final QuadTree quadTree = new QuadTree();
+
+    // Filled in by index()
+    private ProcessingNode[] nodes = new ProcessingNode[0];
+    private ProcessingNode[] indexedNodes = new ProcessingNode[0];
+    private int nodeCount;
+    private float[] x = new float[0];
+    private float[] y = new float[0];
+    private boolean[] pinned = new boolean[0];
+
+    /**
+     * The nodes connected to node i by a transition in either direction are
+     * <code>neighbours[neighbourOffsets[i]]</code> up to (but not including)
+     * <code>neighbours[neighbourOffsets[i + 1]]</code>, so the attraction on each node can be added up without
+     * writing to any other node
+     */
+    private int[] neighbourOffsets = new int[1];
+    private int[] neighbours = new int[0];
+
+    /**
+     * Transition i goes from node <code>edgeSources[i]</code> to node <code>edgeTargets[i]</code>. Transitions between
+     * the same two nodes over different symbols are only listed once
+     */
+    private int[] edgeSources = new int[0];
+    private int[] edgeTargets = new int[0];
+
+    private float[] forceX = new float[0];
+    private float[] forceY = new float[0];
+
     ProcessingGraph(Graph g) {
         this.g = g;
     }
 
     /**
-     * Takes a point and repels this processing node away from it by a small step
+     * Places every node at a random position in a circle. Nodes that start in the same place only get pushed apart
+     * slowly, so this should be called before the first step
+     *
+     * @param centreX X coordinate of the centre of the circle
+     * @param centreY Y coordinate of the centre of the circle
+     * @param radius  Radius of the circle
+     */
+    public void scatter(float centreX, float centreY, float radius) {
+        Random random = new Random(0);
+
+        for (Node n : g.getNodes()) {
+            ProcessingNode node = (ProcessingNode) n;
+            double angle = random.nextDouble() * Math.PI * 2, distance = Math.sqrt(random.nextDouble()) * radius;
+            node.x = centreX + (float) (Math.cos(angle) * distance);
+            node.y = centreY + (float) (Math.sin(angle) * distance);
+        }
+
+        reheat();
+    }
+
+    /**
+     * Lets the nodes move quickly again, e.g. after the graph has changed or a node has been dragged
+     */
+    public void reheat() {
+        temperature = INITIAL_TEMPERATURE;
+    }
+
+    /**
+     * @return Whether the layout has cooled down completely, after which steps only make tiny adjustments
+     */
+    public boolean isCooled() {
+        return temperature <= MIN_TEMPERATURE;
+    }
+
+    /**
+     * Moves every node one step along the forces acting on it
      */
     public void performForceDirectedStep() {
-        for (Node n1 : g.nodes) {
-            ProcessingNode processingNode1 = (ProcessingNode) n1;
+        index();
+        step(null);
+
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i].x = x[i];
+            nodes[i].y = y[i];
+        }
+    }
+
+    /**
+     * Copies the nodes, their positions and the transitions between them out of the graph. This has to be called again
+     * after nodes or transitions are added
+     */
+    void index() {
+        List<Node> graphNodes = g.getNodes();
+        nodeCount = graphNodes.size();
+
+        if (nodes.length < nodeCount) {
+            nodes = new ProcessingNode[nodeCount];
+            x = new float[nodeCount];
+            y = new float[nodeCount];
+            pinned = new boolean[nodeCount];
+            forceX = new float[nodeCount];
+            forceY = new float[nodeCount];
+        }
+        Arrays.fill(pinned, false);
+
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = (ProcessingNode) graphNodes.get(i);
+            nodes[i].layoutIndex = i;
+            x[i] = nodes[i].x;
+            y[i] = nodes[i].y;
+        }
+        indexedNodes = Arrays.copyOf(nodes, nodeCount);
+
+        indexEdges();
 
-            for (Node n2 : g.nodes) {
-                ProcessingNode processingNode2 = (ProcessingNode) n2;
-                processingNode1.performForceDirectedStep(processingNode2.x, processingNode2.y);
+        // Count the neighbours of each node, then fill them in
+        int[] offsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeSources.length; e++) {
+            if (edgeSources[e] == edgeTargets[e]) continue;
+            offsets[edgeSources[e] + 1]++;
+            offsets[edgeTargets[e] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) offsets[i + 1] += offsets[i];
+
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        int[] adjacent = new int[offsets[nodeCount]];
+        for (int e = 0; e < edgeSources.length; e++) {
+            if (edgeSources[e] == edgeTargets[e]) continue;
+            adjacent[next[edgeSources[e]]++] = edgeTargets[e];
+            adjacent[next[edgeTargets[e]]++] = edgeSources[e];
+        }
 
+        neighbourOffsets = offsets;
+        neighbours = adjacent;
+    }
+
+    /**
+     * Lists the pairs of nodes connected by transitions, sorted by source then target so duplicates are next to each
+     * other
+     */
+    private void indexEdges() {
+        int count = 0;
+        for (int i = 0; i < nodeCount; i++) count += nodes[i].getTransitions().size();
+
+        long[] edges = new long[count];
+        count = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            for (Transition t : nodes[i].getTransitions()) {
+                edges[count++] = (long) i << 32 | ((ProcessingNode) t.getDestination()).layoutIndex;
+            }
+        }
+        Arrays.sort(edges);
+
+        int unique = 0;
+        for (int e = 0; e < count; e++) {
+            if (unique == 0 || edges[e] != edges[unique - 1]) edges[unique++] = edges[e];
+        }
+
+        edgeSources = new int[unique];
+        edgeTargets = new int[unique];
+        for (int e = 0; e < unique; e++) {
+            edgeSources[e] = (int) (edges[e] >>> 32);
+            edgeTargets[e] = (int) edges[e];
+        }
+    }
+
+    /**
+     * @return The nodes in the order of their layout indexes, as of the last {@link #index()}. The array must not be
+     * changed, it is shared until the next index
+     */
+    ProcessingNode[] getIndexedNodes() {
+        return indexedNodes;
+    }
+
+    /**
+     * @return The sources of the transitions as of the last {@link #index()}, shared until the next index
+     */
+    int[] getEdgeSources() {
+        return edgeSources;
+    }
+
+    /**
+     * @return The targets of the transitions as of the last {@link #index()}, shared until the next index
+     */
+    int[] getEdgeTargets() {
+        return edgeTargets;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Moves a node and keeps it there until it is released
+     */
+    void pin(int index, float nodeX, float nodeY) {
+        x[index] = nodeX;
+        y[index] = nodeY;
+        pinned[index] = true;
+    }
+
+    void release(int index) {
+        pinned[index] = false;
+    }
+
+    /**
+     * Copies the positions of the last step into some arrays
+     */
+    void copyPositions(float[] toX, float[] toY) {
+        System.arraycopy(x, 0, toX, 0, nodeCount);
+        System.arraycopy(y, 0, toY, 0, nodeCount);
+    }
+
+    /**
+     * Moves every indexed node one step along the forces acting on it, without touching the graph or its nodes
+     *
+     * @param pool Pool to compute the forces in, or null to compute them on this thread
+     */
+    void step(ForkJoinPool pool) {
+        quadTree.build(x, y, nodeCount);
+
+        if (pool == null) computeForces(0, nodeCount);
+        else pool.invoke(new ForceRange(0, nodeCount, Math.max(MIN_RANGE, nodeCount / (pool.getParallelism() * 4))));
+
+        for (int i = 0; i < nodeCount; i++) {
+            if (pinned[i]) continue;
+
+            // The node moves in the direction of the force, but never further than the temperature
+            float length = (float) Math.sqrt(forceX[i] * forceX[i] + forceY[i] * forceY[i]);
+            if (length > 0 && !Float.isNaN(length)) {
+                float scale = Math.min(length, temperature) / length;
+                x[i] += forceX[i] * scale;
+                y[i] += forceY[i] * scale;
+            }
+        }
+
+        temperature = Math.max(MIN_TEMPERATURE, temperature * COOLING);
+    }
+
+    /**
+     * Computes the force on some nodes: the repulsion from every node, k^2 / distance, plus the attraction to every
+     * neighbour, distance^2 / k. Only the forces of these nodes are written, so ranges can be computed in parallel
+     */
+    private void computeForces(int from, int to) {
+        float[] force = new float[2];
+
+        for (int i = from; i < to; i++) {
+            force[0] = 0;
+            force[1] = 0;
+            quadTree.addRepulsion(i, x[i], y[i], IDEAL_EDGE_LENGTH * IDEAL_EDGE_LENGTH, THETA, force);
+
+            for (int n = neighbourOffsets[i]; n < neighbourOffsets[i + 1]; n++) {
+                int j = neighbours[n];
+                float dx = x[i] - x[j], dy = y[i] - y[j];
+                float scale = (float) Math.sqrt(dx * dx + dy * dy) / IDEAL_EDGE_LENGTH;
+
+                force[0] -= dx * scale;
+                force[1] -= dy * scale;
             }
+
+            forceX[i] = force[0];
+            forceY[i] = force[1];
         }
+    }
+
+    private final class ForceRange extends RecursiveAction {
+        private static final long serialVersionUID = 2287154781042960317L;
 
+        private final int from;
+        private final int to;
+        private final int rangeSize;
+
+        ForceRange(int from, int to, int rangeSize) {
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > rangeSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ForceRange(from, middle, rangeSize), new ForceRange(middle, to, rangeSize));
+            } else {
+                computeForces(from, to);
+            }
+        }
     }
 }
@@ -1,18 +1,35 @@
+import automata.core.Node;
+
 public class ProcessingNode extends Node {
-    int x;
-    int y;
+    static final int NOT_IN_GRID = -1;
+
+    float x;
+    float y;
 
     boolean selected;
 
+    /**
+     * Position of this node in the arrays of the last layout step, see {@link ProcessingGraph}
+     */
+    int layoutIndex;
+
+    /**
+     * Whether the node is being dragged, in which case it keeps the position of the mouse instead of the one from the
+     * layout
+     */
+    boolean dragged;
+
+    /**
+     * The cell of a {@link SpatialGrid} this node is in and its position in the cell's list, or NOT_IN_GRID
+     */
+    long gridCell;
+    int gridSlot = NOT_IN_GRID;
+
     public ProcessingNode(String label) {
         super(label);
     }
 
-
-    public void performForceDirectedStep(int repulsiveX, int repulsiveY) {
-        x += x - repulsiveX;
-        y += y - repulsiveY;
+    public ProcessingNode(String label, boolean isAccepting) {
+        super(label, isAccepting);
     }
-
-
 }
@@ -0,0 +1,200 @@
+import java.util.Arrays;
+
+/**
+ * A Barnes-Hut quadtree over a set of points, used to approximate the repulsion between every pair of nodes in
+ * O(n log n) time.
+ * <p>
+ * Each cell stores how many points it contains and the sum of their coordinates, so its centre of mass is known. When
+ * a cell is far enough away from a point compared to its size, all the points in it are treated as one point at their
+ * centre of mass instead of being visited one by one.
+ * <p>
+ * The cells are kept in flat arrays that are reused between builds, so rebuilding the tree every frame doesn't
+ * allocate once the arrays are big enough. After {@link #build} the tree is only read, so any number of threads can
+ * call {@link #addRepulsion} at once.
+ */
+class QuadTree {
+    /**
+     * Points closer together than this are split up to this depth and then kept in the same cell
+     */
+    private static final int MAX_DEPTH = 24;
+    private static final int NO_CELL = -1;
+
+    private int cellCount;
+
+    // Per cell
+    private float[] centreX = new float[64];
+    private float[] centreY = new float[64];
+    private float[] halfSize = new float[64];
+    private float[] sumX = new float[64];
+    private float[] sumY = new float[64];
+    private int[] mass = new int[64];
+    private int[] depth = new int[64];
+
+    /**
+     * Index of the first of the 4 children of a cell, or NO_CELL if the cell is a leaf
+     */
+    private int[] firstChild = new int[64];
+
+    /**
+     * The first point put in a leaf, any other points in it are at the same position
+     */
+    private int[] leafPoint = new int[64];
+
+    /**
+     * Rebuilds the tree from scratch around some points
+     *
+     * @param x     X coordinates of the points
+     * @param y     Y coordinates of the points
+     * @param count Number of points, the first <code>count</code> entries of the arrays are used
+     */
+    void build(float[] x, float[] y, int count) {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+
+        cellCount = 0;
+        if (count == 0) return;
+
+        newCell((minX + maxX) / 2, (minY + maxY) / 2, Math.max(Math.max(maxX - minX, maxY - minY) / 2, 1), 0);
+        for (int i = 0; i < count; i++) insert(i, x[i], y[i]);
+    }
+
+    private void insert(int point, float x, float y) {
+        int cell = 0;
+
+        while (true) {
+            if (mass[cell] == 0) {
+                leafPoint[cell] = point;
+                add(cell, x, y);
+                return;
+            }
+
+            if (firstChild[cell] == NO_CELL) {
+                if (depth[cell] == MAX_DEPTH) {
+                    add(cell, x, y);
+                    return;
+                }
+
+                split(cell);
+            }
+
+            add(cell, x, y);
+            cell = firstChild[cell] + quadrant(cell, x, y);
+        }
+    }
+
+    /**
+     * Turns a leaf into a cell with 4 children, moving its points into the child they fall in
+     */
+    private void split(int cell) {
+        float half = halfSize[cell] / 2;
+        int first = cellCount;
+
+        newCell(centreX[cell] - half, centreY[cell] - half, half, depth[cell] + 1);
+        newCell(centreX[cell] + half, centreY[cell] - half, half, depth[cell] + 1);
+        newCell(centreX[cell] - half, centreY[cell] + half, half, depth[cell] + 1);
+        newCell(centreX[cell] + half, centreY[cell] + half, half, depth[cell] + 1);
+        firstChild[cell] = first;
+
+        // All the points in a leaf are at the same position, so they all move into the same child
+        float x = sumX[cell] / mass[cell], y = sumY[cell] / mass[cell];
+        int child = first + quadrant(cell, x, y);
+        leafPoint[child] = leafPoint[cell];
+        mass[child] = mass[cell];
+        sumX[child] = sumX[cell];
+        sumY[child] = sumY[cell];
+    }
+
+    private int quadrant(int cell, float x, float y) {
+        return (x < centreX[cell] ? 0 : 1) + (y < centreY[cell] ? 0 : 2);
+    }
+
+    private void add(int cell, float x, float y) {
+        mass[cell]++;
+        sumX[cell] += x;
+        sumY[cell] += y;
+    }
+
+    private void newCell(float x, float y, float half, int cellDepth) {
+        if (cellCount == mass.length) grow();
+
+        centreX[cellCount] = x;
+        centreY[cellCount] = y;
+        halfSize[cellCount] = half;
+        depth[cellCount] = cellDepth;
+        sumX[cellCount] = 0;
+        sumY[cellCount] = 0;
+        mass[cellCount] = 0;
+        firstChild[cellCount] = NO_CELL;
+        cellCount++;
+    }
+
+    private void grow() {
+        int capacity = mass.length * 2;
+        centreX = Arrays.copyOf(centreX, capacity);
+        centreY = Arrays.copyOf(centreY, capacity);
+        halfSize = Arrays.copyOf(halfSize, capacity);
+        sumX = Arrays.copyOf(sumX, capacity);
+        sumY = Arrays.copyOf(sumY, capacity);
+        mass = Arrays.copyOf(mass, capacity);
+        depth = Arrays.copyOf(depth, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        leafPoint = Arrays.copyOf(leafPoint, capacity);
+    }
+
+    /**
+     * Adds the repulsion of every other point on a point, which falls off with 1 / distance
+     *
+     * @param point    Index of the point the force acts on
+     * @param x        X coordinate of the point
+     * @param y        Y coordinate of the point
+     * @param strength Force between two points at distance 1
+     * @param theta    Cells whose size divided by their distance is below this are treated as a single point. 0 is
+     *                 exact, larger is faster and less accurate
+     * @param force    The x and y components of the force are added to the first 2 entries
+     */
+    void addRepulsion(int point, float x, float y, float strength, float theta, float[] force) {
+        if (cellCount == 0) return;
+
+        // Every cell visited replaces itself with at most 4 children, one level further down
+        int[] pending = new int[4 * (MAX_DEPTH + 1)];
+        int top = 0;
+        pending[top++] = 0;
+
+        while (top > 0) {
+            int cell = pending[--top];
+            int cellMass = mass[cell];
+            if (cellMass == 0) continue;
+
+            float dx = x - sumX[cell] / cellMass, dy = y - sumY[cell] / cellMass;
+            float distanceSquared = dx * dx + dy * dy;
+            float size = halfSize[cell] * 2;
+
+            // A cell the point is in is always opened, otherwise the point would repel itself
+            boolean contains = Math.abs(x - centreX[cell]) <= halfSize[cell]
+                    && Math.abs(y - centreY[cell]) <= halfSize[cell];
+            if (firstChild[cell] != NO_CELL && (contains || size * size >= theta * theta * distanceSquared)) {
+                for (int child = firstChild[cell]; child < firstChild[cell] + 4; child++) pending[top++] = child;
+                continue;
+            }
+
+            if (firstChild[cell] == NO_CELL && leafPoint[cell] == point && cellMass == 1) continue;
+
+            if (distanceSquared < 1e-4f) {
+                // Points on top of each other get pushed apart in a direction that depends on the point, so they
+                // don't all move the same way
+                double angle = point * 2.399963;
+                force[0] += (float) Math.cos(angle) * strength * cellMass;
+                force[1] += (float) Math.sin(angle) * strength * cellMass;
+            } else {
+                float scale = strength * cellMass / distanceSquared;
+                force[0] += dx * scale;
+                force[1] += dy * scale;
+            }
+        }
+    }
+}
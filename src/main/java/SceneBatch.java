@@ -0,0 +1,182 @@
+import processing.core.PApplet;
+import processing.core.PConstants;
+import processing.core.PShape;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The nodes and transitions of one layout snapshot, built into retained {@link PShape}s so a graph that isn't moving
+ * can be drawn with a few draw calls per frame instead of one per node and transition.
+ * <p>
+ * The world is cut into square tiles. Each node goes into the tile it is in, and each transition into the tile of its
+ * source node, with the bounds of the tile grown to cover the whole transition. Every tile has its own shapes for its
+ * transitions, arrowheads and nodes, so tiles outside the viewport are skipped and arrowheads can be left out when
+ * zoomed out, without rebuilding anything. Once built, the shapes only depend on the camera through the transform
+ * they are drawn with.
+ */
+class SceneBatch {
+    private static final float TILE_SIZE = 512;
+
+    /**
+     * Number of straight segments a loop from a node to itself is drawn with
+     */
+    private static final int LOOP_SEGMENTS = 12;
+
+    /**
+     * The snapshot the shapes were built from, see {@link LayoutWorker.Snapshot#version}
+     */
+    final long version;
+
+    private final List<Tile> tiles = new ArrayList<>();
+
+    /**
+     * Somewhere to add vertices, either a {@link PShape} being built or the sketch itself between
+     * {@link PApplet#beginShape} and {@link PApplet#endShape}, so the same geometry can be drawn both ways
+     */
+    interface VertexSink {
+        void vertex(float x, float y);
+    }
+
+    static final VertexSink SKIP = (x, y) -> {
+    };
+
+    private static final class Tile {
+        final List<Integer> nodes = new ArrayList<>();
+        final List<Integer> edges = new ArrayList<>();
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+
+        PShape edgeShape;
+        PShape arrowShape;
+        PShape nodeShape;
+
+        void cover(float x, float y, float margin) {
+            minX = Math.min(minX, x - margin);
+            minY = Math.min(minY, y - margin);
+            maxX = Math.max(maxX, x + margin);
+            maxY = Math.max(maxY, y + margin);
+        }
+    }
+
+    /**
+     * Builds the shapes for a snapshot
+     *
+     * @param applet   Sketch to create the shapes with
+     * @param snapshot Positions and transitions to build
+     * @param diameter Diameter of a node
+     */
+    SceneBatch(PApplet applet, LayoutWorker.Snapshot snapshot, float diameter) {
+        this.version = snapshot.version;
+        float radius = diameter / 2;
+        float[] x = snapshot.x, y = snapshot.y;
+
+        Map<Long, Tile> tilesByKey = new HashMap<>();
+        for (int i = 0; i < snapshot.getNodeCount(); i++) {
+            Tile tile = tilesByKey.computeIfAbsent(tileKey(x[i], y[i]), k -> new Tile());
+            tile.nodes.add(i);
+            tile.cover(x[i], y[i], radius);
+        }
+        for (int e = 0; e < snapshot.edgeSources.length; e++) {
+            int source = snapshot.edgeSources[e], target = snapshot.edgeTargets[e];
+            Tile tile = tilesByKey.get(tileKey(x[source], y[source]));
+            tile.edges.add(e);
+            tile.cover(x[target], y[target], radius);
+            if (source == target) tile.cover(x[source], y[source] - diameter, diameter);
+        }
+
+        for (Tile tile : tilesByKey.values()) {
+            tile.edgeShape = applet.createShape();
+            tile.edgeShape.beginShape(PConstants.LINES);
+            tile.edgeShape.stroke(200);
+            tile.edgeShape.noFill();
+
+            tile.arrowShape = applet.createShape();
+            tile.arrowShape.beginShape(PConstants.TRIANGLES);
+            tile.arrowShape.noStroke();
+            tile.arrowShape.fill(200);
+
+            VertexSink lines = tile.edgeShape::vertex, arrows = tile.arrowShape::vertex;
+            for (int e : tile.edges) {
+                int source = snapshot.edgeSources[e], target = snapshot.edgeTargets[e];
+                if (source == target) addLoop(lines, x[source], y[source], radius);
+                else addEdge(lines, arrows, x[source], y[source], x[target], y[target], radius);
+            }
+
+            tile.edgeShape.endShape();
+            tile.arrowShape.endShape();
+
+            // Nodes are round points as wide as a node, which is one vertex each instead of a polygon
+            tile.nodeShape = applet.createShape();
+            tile.nodeShape.beginShape(PConstants.POINTS);
+            tile.nodeShape.stroke(0);
+            tile.nodeShape.strokeWeight(diameter);
+            tile.nodeShape.strokeCap(PConstants.ROUND);
+            for (int i : tile.nodes) tile.nodeShape.vertex(x[i], y[i]);
+            tile.nodeShape.endShape();
+
+            tiles.add(tile);
+        }
+    }
+
+    /**
+     * Draws the tiles that overlap the viewport, in world coordinates
+     *
+     * @param arrowheads Whether to draw the arrowheads of the transitions
+     */
+    void draw(PApplet applet, float minX, float minY, float maxX, float maxY, boolean arrowheads) {
+        // All the transitions go first so nodes in one tile aren't covered by transitions from another
+        for (Tile tile : tiles) {
+            if (!isVisible(tile, minX, minY, maxX, maxY)) continue;
+
+            applet.shape(tile.edgeShape);
+            if (arrowheads) applet.shape(tile.arrowShape);
+        }
+        for (Tile tile : tiles) {
+            if (isVisible(tile, minX, minY, maxX, maxY)) applet.shape(tile.nodeShape);
+        }
+    }
+
+    private static boolean isVisible(Tile tile, float minX, float minY, float maxX, float maxY) {
+        return tile.maxX >= minX && tile.minX <= maxX && tile.maxY >= minY && tile.minY <= maxY;
+    }
+
+    /**
+     * Adds a line from the edge of one node to the edge of another, with an arrowhead touching the target node
+     *
+     * @param lines  Where the 2 ends of the line are added
+     * @param arrows Where the 3 corners of the arrowhead are added
+     */
+    static void addEdge(VertexSink lines, VertexSink arrows, float x1, float y1, float x2, float y2, float radius) {
+        float dx = x2 - x1, dy = y2 - y1;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        if (length <= radius * 2) return;
+
+        float ux = dx / length, uy = dy / length;
+        float tipX = x2 - ux * radius, tipY = y2 - uy * radius;
+        lines.vertex(x1 + ux * radius, y1 + uy * radius);
+        lines.vertex(tipX, tipY);
+
+        float baseX = tipX - ux * radius, baseY = tipY - uy * radius, halfWidth = radius / 2;
+        arrows.vertex(tipX, tipY);
+        arrows.vertex(baseX - uy * halfWidth, baseY + ux * halfWidth);
+        arrows.vertex(baseX + uy * halfWidth, baseY - ux * halfWidth);
+    }
+
+    /**
+     * Adds a circle touching the top of a node, for a transition from the node to itself
+     */
+    static void addLoop(VertexSink lines, float x, float y, float radius) {
+        float centreY = y - radius * 2;
+        for (int i = 0; i < LOOP_SEGMENTS; i++) {
+            double from = Math.PI * 2 * i / LOOP_SEGMENTS, to = Math.PI * 2 * (i + 1) / LOOP_SEGMENTS;
+            lines.vertex(x + (float) Math.cos(from) * radius, centreY + (float) Math.sin(from) * radius);
+            lines.vertex(x + (float) Math.cos(to) * radius, centreY + (float) Math.sin(to) * radius);
+        }
+    }
+
+    private static long tileKey(float x, float y) {
+        return (long) Math.floor(x / TILE_SIZE) << 32 | ((int) Math.floor(y / TILE_SIZE) & 0xFFFFFFFFL);
+    }
+}
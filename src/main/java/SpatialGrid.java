@@ -0,0 +1,145 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid over the positions of nodes, so the nodes near a point or inside a rectangle can be found without
+ * looking at every node.
+ * <p>
+ * Only the cells that contain nodes are stored, in a hash map keyed by the cell coordinates, so the grid doesn't need
+ * to know how far the layout spreads out. Each node remembers its cell and its slot in that cell's list. Moving a node
+ * within its cell costs nothing, and moving it to another cell is an O(1) swap-remove and append, so the grid can be
+ * updated with every node every frame. With a cell size around the size of a node, a hover lookup only looks at a
+ * handful of nodes.
+ */
+class SpatialGrid {
+    private final float cellSize;
+    private final Map<Long, List<ProcessingNode>> cells = new HashMap<>();
+    private int size;
+
+    /**
+     * @param cellSize Width and height of a cell. Lookups are fastest when this is around the distance they search
+     */
+    SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds a node at its current position, or moves it there if it was already added
+     *
+     * @param node Node to add or move
+     */
+    void update(ProcessingNode node) {
+        long cell = key(cellOf(node.x), cellOf(node.y));
+        if (node.gridSlot != ProcessingNode.NOT_IN_GRID) {
+            if (node.gridCell == cell) return;
+            remove(node);
+        }
+
+        List<ProcessingNode> nodes = cells.computeIfAbsent(cell, c -> new ArrayList<>());
+        node.gridCell = cell;
+        node.gridSlot = nodes.size();
+        nodes.add(node);
+        size++;
+    }
+
+    /**
+     * Removes a node from the grid, if it was added
+     *
+     * @param node Node to remove
+     */
+    void remove(ProcessingNode node) {
+        if (node.gridSlot == ProcessingNode.NOT_IN_GRID) return;
+
+        // Move the last node of the cell into the removed node's slot
+        List<ProcessingNode> nodes = cells.get(node.gridCell);
+        ProcessingNode last = nodes.remove(nodes.size() - 1);
+        if (last != node) {
+            nodes.set(node.gridSlot, last);
+            last.gridSlot = node.gridSlot;
+        }
+        if (nodes.isEmpty()) cells.remove(node.gridCell);
+
+        node.gridSlot = ProcessingNode.NOT_IN_GRID;
+        size--;
+    }
+
+    /**
+     * @return Number of nodes in the grid
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds the node closest to a point, as long as it is within some distance
+     *
+     * @param x        X coordinate of the point
+     * @param y        Y coordinate of the point
+     * @param distance Largest distance to look for nodes at
+     * @return The closest node, or null if no node is within that distance
+     */
+    ProcessingNode nearest(float x, float y, float distance) {
+        ProcessingNode nearest = null;
+        float nearestDistanceSquared = distance * distance;
+
+        for (int cellX = cellOf(x - distance); cellX <= cellOf(x + distance); cellX++) {
+            for (int cellY = cellOf(y - distance); cellY <= cellOf(y + distance); cellY++) {
+                List<ProcessingNode> nodes = cells.get(key(cellX, cellY));
+                if (nodes == null) continue;
+
+                for (ProcessingNode node : nodes) {
+                    float dx = node.x - x, dy = node.y - y;
+                    float distanceSquared = dx * dx + dy * dy;
+                    if (distanceSquared < nearestDistanceSquared) {
+                        nearest = node;
+                        nearestDistanceSquared = distanceSquared;
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Finds every node inside a rectangle. The corners can be given in any order
+     *
+     * @return The nodes inside the rectangle
+     */
+    List<ProcessingNode> within(float x1, float y1, float x2, float y2) {
+        float minX = Math.min(x1, x2), maxX = Math.max(x1, x2), minY = Math.min(y1, y2), maxY = Math.max(y1, y2);
+        List<ProcessingNode> found = new ArrayList<>();
+
+        int fromX = cellOf(minX), toX = cellOf(maxX), fromY = cellOf(minY), toY = cellOf(maxY);
+        if ((long) (toX - fromX + 1) * (toY - fromY + 1) > cells.size()) {
+            // The rectangle covers more cells than there are occupied ones, so go through those instead
+            for (List<ProcessingNode> nodes : cells.values()) addWithin(nodes, minX, minY, maxX, maxY, found);
+        } else {
+            for (int cellX = fromX; cellX <= toX; cellX++) {
+                for (int cellY = fromY; cellY <= toY; cellY++) {
+                    List<ProcessingNode> nodes = cells.get(key(cellX, cellY));
+                    if (nodes != null) addWithin(nodes, minX, minY, maxX, maxY, found);
+                }
+            }
+        }
+
+        return found;
+    }
+
+    private static void addWithin(List<ProcessingNode> nodes, float minX, float minY, float maxX, float maxY,
+                                  List<ProcessingNode> found) {
+        for (ProcessingNode node : nodes) {
+            if (node.x >= minX && node.x <= maxX && node.y >= minY && node.y <= maxY) found.add(node);
+        }
+    }
+
+    private int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return (long) cellX << 32 | (cellY & 0xFFFFFFFFL);
+    }
+}
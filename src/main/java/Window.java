@@ -1,78 +1,314 @@
+import automata.core.Graph;
 import processing.core.PApplet;
+import processing.event.MouseEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class Window extends PApplet {
     static PApplet ref;
     final int ELLIPSE_DIAMETER = 15;
+
+    // Level of detail: below these zoom levels labels and arrowheads aren't drawn
+    static final float LABEL_ZOOM = 0.75f;
+    static final float ARROWHEAD_ZOOM = 0.3f;
+
+    static final float MIN_ZOOM = 0.01f;
+    static final float MAX_ZOOM = 10;
+
+    /**
+     * Number of frames the positions have to stay the same before they are built into a {@link SceneBatch}
+     */
+    static final int FRAMES_BEFORE_BATCHING = 10;
+
     Graph graph;
     ProcessingGraph pGraph;
-    boolean start = false;
+
+    /**
+     * Runs the layout in the background, see {@link LayoutWorker}. It starts when space is pressed
+     */
+    LayoutWorker layoutWorker;
+
+    /**
+     * Index of the node positions, kept up to date as the layout moves them, for finding the nodes under the mouse and
+     * on screen
+     */
+    SpatialGrid grid = new SpatialGrid(ELLIPSE_DIAMETER * 2);
+
+    /**
+     * The camera. A point (x, y) in the world is drawn at (x * zoom + panX, y * zoom + panY) on screen
+     */
+    float zoom = 1;
+    float panX;
+    float panY;
+
+    /**
+     * The positions built into retained shapes, or null if the positions have changed since. Only used once the
+     * positions stop changing, while the layout is moving everything is drawn directly
+     */
+    SceneBatch batch;
+    long lastVersion = -1;
+    int unchangedFrames;
+
+    ProcessingNode hoveredNode;
+
+    /**
+     * The nodes picked with the rubber band
+     */
+    List<ProcessingNode> selectedNodes = new ArrayList<>();
+
+    /**
+     * The nodes being dragged, either the hovered node or the whole selection if the hovered node is in it
+     */
+    List<ProcessingNode> draggedNodes = new ArrayList<>();
+
+    /**
+     * Whether a rubber band is being dragged out from (bandX, bandY) to the mouse, in world coordinates
+     */
+    boolean selectingBand;
+    float bandX;
+    float bandY;
 
     public static void main(String[] args) {
         PApplet.main("Window");
     }
 
     public void settings() {
-        size(400, 400);
+        // The OpenGL renderer keeps retained shapes on the GPU
+        size(400, 400, P2D);
 
         ref = this;
 
         graph = new Graph(new String[]{"a", "b", "c"});
         graph.addNode(new ProcessingNode("A"));
         graph.addNode(new ProcessingNode("B"));
-        graph.connectNodes("A", "B");
-        graph.setStartNode(0);
+        graph.connectNodes("A", "B", "a");
+        graph.setStartNode("A");
 
         System.out.println();
 
         pGraph = new ProcessingGraph(graph);
-
+        pGraph.scatter(width / 2f, height / 2f, width / 4f);
+        layoutWorker = new LayoutWorker(pGraph, ForkJoinPool.commonPool());
     }
 
     public void draw() {
         frameRate(60);
         background(51);
 
-        for (Node n : graph.nodes) {
-            ProcessingNode node = (ProcessingNode) n;
+        // Only the newest finished positions are read, the layout never holds up a frame
+        LayoutWorker.Snapshot snapshot = layoutWorker.snapshot();
+        if (snapshot.version != lastVersion) {
+            lastVersion = snapshot.version;
+            unchangedFrames = 0;
+            batch = null;
 
-            fill(0);
-            if (node.selected) fill(255, 255, 0);
+            for (int i = 0; i < snapshot.getNodeCount(); i++) {
+                ProcessingNode node = snapshot.nodes[i];
+                if (node.dragged) continue;
 
-            ellipse(node.x, node.y, ELLIPSE_DIAMETER, ELLIPSE_DIAMETER);
+                node.x = snapshot.x[i];
+                node.y = snapshot.y[i];
+                grid.update(node);
+            }
+        } else if (++unchangedFrames == FRAMES_BEFORE_BATCHING && draggedNodes.isEmpty()) {
+            batch = new SceneBatch(this, snapshot, ELLIPSE_DIAMETER);
         }
 
-        if (start) pGraph.performForceDirectedStep();
+        // The part of the world on screen, with room for a node that is only partly on screen
+        float margin = ELLIPSE_DIAMETER * 2;
+        float minX = screenToWorldX(0) - margin, maxX = screenToWorldX(width) + margin;
+        float minY = screenToWorldY(0) - margin, maxY = screenToWorldY(height) + margin;
+
+        pushMatrix();
+        translate(panX, panY);
+        scale(zoom);
+
+        List<ProcessingNode> visibleNodes = grid.within(minX, minY, maxX, maxY);
+        if (batch != null) {
+            batch.draw(this, minX, minY, maxX, maxY, zoom >= ARROWHEAD_ZOOM);
+        } else {
+            drawEdges(snapshot, minX, minY, maxX, maxY);
+            drawNodes(visibleNodes);
+        }
+
+        // Highlights change with the mouse, so they are always drawn directly on top
+        fill(255, 255, 0);
+        for (ProcessingNode node : selectedNodes) ellipse(node.x, node.y, ELLIPSE_DIAMETER, ELLIPSE_DIAMETER);
+        if (hoveredNode != null) ellipse(hoveredNode.x, hoveredNode.y, ELLIPSE_DIAMETER, ELLIPSE_DIAMETER);
+
+        if (zoom >= LABEL_ZOOM) {
+            fill(255);
+            textAlign(CENTER, BOTTOM);
+            for (ProcessingNode node : visibleNodes) {
+                text(node.getLabel(), node.x, node.y - ELLIPSE_DIAMETER / 2f);
+            }
+        }
+
+        if (selectingBand) {
+            pushStyle();
+            noFill();
+            stroke(255, 255, 0);
+            strokeWeight(1 / zoom);
+            float mouseWorldX = screenToWorldX(mouseX), mouseWorldY = screenToWorldY(mouseY);
+            rect(min(bandX, mouseWorldX), min(bandY, mouseWorldY), abs(mouseWorldX - bandX),
+                    abs(mouseWorldY - bandY));
+            popStyle();
+        }
+
+        popMatrix();
     }
 
-    @Override
-    public void mouseMoved() {
-        ProcessingNode selectedNode = null;
-        for (int i = 0; i < graph.nodes.size(); i++) {
-            ProcessingNode n = (ProcessingNode) graph.nodes.get(i);
-
-            if (dist(mouseX, mouseY, n.x, n.y) < ELLIPSE_DIAMETER / 2.0) {
-                selectedNode = n;
-            } else {
-                n.selected = false;
+    /**
+     * Draws the transitions that overlap the viewport, one batch of lines and one of arrowheads
+     */
+    void drawEdges(LayoutWorker.Snapshot snapshot, float minX, float minY, float maxX, float maxY) {
+        float[] x = snapshot.x, y = snapshot.y;
+        float radius = ELLIPSE_DIAMETER / 2f;
+        boolean arrowheads = zoom >= ARROWHEAD_ZOOM;
+
+        pushStyle();
+        stroke(200);
+        noFill();
+        beginShape(LINES);
+        for (int e = 0; e < snapshot.edgeSources.length; e++) {
+            int source = snapshot.edgeSources[e], target = snapshot.edgeTargets[e];
+            if (!isEdgeVisible(x[source], y[source], x[target], y[target], minX, minY, maxX, maxY)) continue;
+
+            if (source == target) SceneBatch.addLoop(this::vertex, x[source], y[source], radius);
+            else SceneBatch.addEdge(this::vertex, SceneBatch.SKIP, x[source], y[source], x[target], y[target], radius);
+        }
+        endShape();
+
+        if (arrowheads) {
+            noStroke();
+            fill(200);
+            beginShape(TRIANGLES);
+            for (int e = 0; e < snapshot.edgeSources.length; e++) {
+                int source = snapshot.edgeSources[e], target = snapshot.edgeTargets[e];
+                if (source == target) continue;
+                if (!isEdgeVisible(x[source], y[source], x[target], y[target], minX, minY, maxX, maxY)) continue;
+
+                SceneBatch.addEdge(SceneBatch.SKIP, this::vertex, x[source], y[source], x[target], y[target], radius);
             }
+            endShape();
         }
+        popStyle();
+    }
+
+    /**
+     * @return Whether the bounding box of a transition overlaps the viewport
+     */
+    static boolean isEdgeVisible(float x1, float y1, float x2, float y2, float minX, float minY, float maxX,
+                                 float maxY) {
+        return Math.max(x1, x2) >= minX && Math.min(x1, x2) <= maxX && Math.max(y1, y2) >= minY
+                && Math.min(y1, y2) <= maxY;
+    }
 
-        if (selectedNode != null) selectedNode.selected = true;
+    void drawNodes(List<ProcessingNode> visibleNodes) {
+        fill(0);
+        for (ProcessingNode node : visibleNodes) ellipse(node.x, node.y, ELLIPSE_DIAMETER, ELLIPSE_DIAMETER);
+    }
+
+    float screenToWorldX(float screenX) {
+        return (screenX - panX) / zoom;
+    }
+
+    float screenToWorldY(float screenY) {
+        return (screenY - panY) / zoom;
+    }
+
+    ProcessingNode nodeUnderMouse() {
+        return grid.nearest(screenToWorldX(mouseX), screenToWorldY(mouseY), ELLIPSE_DIAMETER / 2f);
+    }
+
+    @Override
+    public void mouseMoved() {
+        hoveredNode = nodeUnderMouse();
+    }
+
+    @Override
+    public void mousePressed() {
+        // The right button pans
+        if (mouseButton != LEFT) return;
+
+        hoveredNode = nodeUnderMouse();
+
+        if (hoveredNode == null) {
+            // Pressing on empty space starts a new rubber band selection
+            setSelection(new ArrayList<>());
+            selectingBand = true;
+            bandX = screenToWorldX(mouseX);
+            bandY = screenToWorldY(mouseY);
+        } else {
+            if (hoveredNode.selected) draggedNodes.addAll(selectedNodes);
+            else draggedNodes.add(hoveredNode);
+
+            for (ProcessingNode node : draggedNodes) node.dragged = true;
+        }
     }
 
     @Override
     public void mouseDragged() {
-        for (Node n : graph.nodes) {
-            ProcessingNode node = (ProcessingNode) n;
-            if (node.selected) {
-                node.x = mouseX;
-                node.y = mouseY;
-            }
+        if (mouseButton != LEFT) {
+            panX += mouseX - pmouseX;
+            panY += mouseY - pmouseY;
+            return;
         }
+
+        if (selectingBand) {
+            setSelection(grid.within(bandX, bandY, screenToWorldX(mouseX), screenToWorldY(mouseY)));
+            return;
+        }
+
+        // The dragged nodes keep their distances from each other
+        float dx = (mouseX - pmouseX) / zoom, dy = (mouseY - pmouseY) / zoom;
+        for (ProcessingNode node : draggedNodes) {
+            node.x += dx;
+            node.y += dy;
+            grid.update(node);
+            layoutWorker.moveNode(node, node.x, node.y);
+        }
+        batch = null;
+    }
+
+    @Override
+    public void mouseReleased() {
+        for (ProcessingNode node : draggedNodes) {
+            node.dragged = false;
+            layoutWorker.releaseNode(node);
+        }
+        draggedNodes.clear();
+        selectingBand = false;
+    }
+
+    /**
+     * Zooms in or out, keeping the point under the mouse in place
+     */
+    @Override
+    public void mouseWheel(MouseEvent event) {
+        float newZoom = constrain(zoom * pow(1.1f, -event.getCount()), MIN_ZOOM, MAX_ZOOM);
+
+        panX = mouseX - (mouseX - panX) * newZoom / zoom;
+        panY = mouseY - (mouseY - panY) * newZoom / zoom;
+        zoom = newZoom;
+    }
+
+    private void setSelection(List<ProcessingNode> nodes) {
+        for (ProcessingNode node : selectedNodes) node.selected = false;
+        selectedNodes = nodes;
+        for (ProcessingNode node : selectedNodes) node.selected = true;
     }
 
     @Override
     public void keyPressed() {
-        if (keyCode == 32) start = true;
+        if (keyCode == 32) layoutWorker.start();
+    }
+
+    @Override
+    public void dispose() {
+        layoutWorker.close();
+        super.dispose();
     }
 }
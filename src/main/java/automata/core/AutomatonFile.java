@@ -0,0 +1,196 @@
+package automata.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads and writes the binary automaton format used by {@link FrozenGraph#save(Path)} and {@link Graph#save(Path)}.
+ * <p>
+ * All numbers are big endian. The file is laid out as:
+ * <pre>
+ * int      magic ("FSA" followed by 0)
+ * int      version
+ * int      alphabet size k, then k strings
+ * int      state count n, then n labels
+ * int      start state, or -1 if there is none
+ * int      length of the accepting bitset in longs, then the longs
+ * int[]    offsets         (n * k + 1 entries, length prefixed)
+ * int[]    targets         (length prefixed)
+ * int[]    epsilonOffsets  (n + 1 entries, length prefixed)
+ * int[]    epsilonTargets  (length prefixed)
+ * </pre>
+ * Strings are stored as their length in UTF-8 bytes followed by the bytes. The arrays are exactly the arrays of a
+ * {@link FrozenGraph}, so loading is a bulk copy out of the mapped file with no per node objects.
+ */
+final class AutomatonFile {
+    static final int MAGIC = 0x46534100;
+    static final int VERSION = 1;
+
+    /**
+     * The first two bytes of a file written by {@link java.io.ObjectOutputStream}
+     */
+    private static final int SERIALIZATION_MAGIC = 0xACED;
+
+    private AutomatonFile() {
+    }
+
+    static void write(Path path, String[] alphabet, String[] labels, int startState, BitSet accepting, int[] offsets,
+                      int[] targets, int[] epsilonOffsets, int[] epsilonTargets) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(alphabet.length);
+            for (String symbol : alphabet) writeString(out, symbol);
+            out.writeInt(labels.length);
+            for (String label : labels) writeString(out, label);
+            out.writeInt(startState);
+
+            long[] acceptingWords = accepting.toLongArray();
+            out.writeInt(acceptingWords.length);
+            for (long word : acceptingWords) out.writeLong(word);
+
+            writeInts(out, offsets);
+            writeInts(out, targets);
+            writeInts(out, epsilonOffsets);
+            writeInts(out, epsilonTargets);
+        }
+    }
+
+    /**
+     * Loads a file by memory mapping it
+     *
+     * @throws InvalidAutomatonFileException If the file isn't a valid automaton file
+     */
+    static FrozenGraph read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new InvalidAutomatonFileException("The file is too large");
+
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @throws InvalidAutomatonFileException If the buffer doesn't hold a valid automaton
+     */
+    static FrozenGraph read(ByteBuffer buffer) throws InvalidAutomatonFileException {
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new InvalidAutomatonFileException("The file is not an automaton file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new InvalidAutomatonFileException("Unsupported automaton file version " + version);
+            }
+
+            String[] alphabet = new String[readLength(buffer, 4)];
+            for (int i = 0; i < alphabet.length; i++) alphabet[i] = readString(buffer);
+            String[] labels = new String[readLength(buffer, 4)];
+            Set<String> seenLabels = new HashSet<>();
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = readString(buffer);
+                if (!seenLabels.add(labels[i])) {
+                    throw new InvalidAutomatonFileException("The file has more than one node labelled " + labels[i]);
+                }
+            }
+            int startState = buffer.getInt();
+
+            long[] acceptingWords = new long[readLength(buffer, 8)];
+            buffer.asLongBuffer().get(acceptingWords);
+            buffer.position(buffer.position() + acceptingWords.length * 8);
+            BitSet accepting = BitSet.valueOf(acceptingWords);
+
+            int[] offsets = readInts(buffer);
+            int[] targets = readInts(buffer);
+            int[] epsilonOffsets = readInts(buffer);
+            int[] epsilonTargets = readInts(buffer);
+
+            validate(alphabet.length, labels.length, startState, accepting, offsets, targets);
+            validate(1, labels.length, startState, accepting, epsilonOffsets, epsilonTargets);
+
+            return new FrozenGraph(alphabet, labels, startState, accepting, offsets, targets, epsilonOffsets,
+                    epsilonTargets);
+        } catch (BufferUnderflowException e) {
+            throw new InvalidAutomatonFileException("The file is truncated");
+        }
+    }
+
+    /**
+     * @return Whether a file was written with Java serialization, the format used before the binary format
+     */
+    static boolean isSerialized(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return ((in.read() << 8) | in.read()) == SERIALIZATION_MAGIC;
+        }
+    }
+
+    /**
+     * Checks that a CSR array pair only refers to states that exist, so a corrupted file fails here instead of when
+     * matching
+     */
+    private static void validate(int bucketsPerState, int states, int startState, BitSet accepting, int[] offsets,
+                                 int[] targets) throws InvalidAutomatonFileException {
+        if (startState < FrozenGraph.NO_STATE || startState >= states || accepting.length() > states
+                || offsets.length != (long) states * bucketsPerState + 1 || offsets[0] != 0
+                || offsets[offsets.length - 1] != targets.length) {
+            throw new InvalidAutomatonFileException("The file is corrupted");
+        }
+
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) throw new InvalidAutomatonFileException("The file is corrupted");
+        }
+        for (int target : targets) {
+            if (target < 0 || target >= states) throw new InvalidAutomatonFileException("The file is corrupted");
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) throws InvalidAutomatonFileException {
+        byte[] bytes = new byte[readLength(buffer, 1)];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] ints) throws IOException {
+        out.writeInt(ints.length);
+        for (int i : ints) out.writeInt(i);
+    }
+
+    private static int[] readInts(ByteBuffer buffer) throws InvalidAutomatonFileException {
+        int[] ints = new int[readLength(buffer, 4)];
+        buffer.asIntBuffer().get(ints);
+        buffer.position(buffer.position() + ints.length * 4);
+
+        return ints;
+    }
+
+    /**
+     * Reads a length prefix, checking it against the bytes left so a corrupted length can't cause a huge allocation
+     */
+    private static int readLength(ByteBuffer buffer, int bytesPerElement) throws InvalidAutomatonFileException {
+        int length = buffer.getInt();
+        if (length < 0 || (long) length * bytesPerElement > buffer.remaining()) {
+            throw new InvalidAutomatonFileException("The file is corrupted");
+        }
+
+        return length;
+    }
+}
@@ -0,0 +1,101 @@
+package automata.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tests a large number of words against one graph in parallel with fork-join.
+ * <p>
+ * The words are split into ranges that are a multiple of 64 long, so each range writes to its own longs of the result
+ * bitset and no synchronization is needed. A DFA is compiled once and shared, since {@link CompiledDFA} has no mutable
+ * state. An NFA is matched with {@link LazyDFA}s, which are handed between ranges through a queue so each worker keeps
+ * reusing a warm cache instead of building a new one per range.
+ */
+final class BatchMatcher {
+    /**
+     * Smallest number of words a task is split into
+     */
+    private static final int MIN_RANGE = 1024;
+
+    private final List<? extends CharSequence> words;
+    private final CompiledDFA dfa;
+    private final FrozenGraph graph;
+    private final ConcurrentLinkedQueue<LazyDFA> idleLazyDFAs = new ConcurrentLinkedQueue<>();
+    private final long[] results;
+    private final int rangeSize;
+
+    private BatchMatcher(FrozenGraph graph, List<? extends CharSequence> words, int parallelism) {
+        this.graph = graph;
+        this.words = words;
+        this.dfa = graph.isDeterministic() ? graph.compile() : null;
+        this.results = new long[(words.size() + 63) >>> 6];
+
+        // Aim for a few tasks per worker so they can balance out, rounded up to whole longs of the result
+        int target = Math.max(MIN_RANGE, words.size() / (parallelism * 8));
+        this.rangeSize = (target + 63) & ~63;
+    }
+
+    /**
+     * Tests every word in a list
+     *
+     * @param graph Graph to test the words against
+     * @param words Words to test. Every character of a word is treated as a single character symbol
+     * @param pool  Pool to run the tests in
+     * @return A bitset where bit i is set if word i is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    static BitSet acceptsAll(FrozenGraph graph, List<? extends CharSequence> words, ForkJoinPool pool) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        // Splitting needs fast access by index
+        if (!(words instanceof RandomAccess)) words = new ArrayList<>(words);
+
+        BatchMatcher batch = new BatchMatcher(graph, words, pool.getParallelism());
+        pool.invoke(batch.new Range(0, words.size()));
+
+        return BitSet.valueOf(batch.results);
+    }
+
+    private final class Range extends RecursiveAction {
+        private static final long serialVersionUID = -6153950787405458613L;
+
+        private final int from;
+        private final int to;
+
+        /**
+         * @param from Index of the first word, a multiple of 64
+         * @param to   Index after the last word
+         */
+        Range(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > rangeSize) {
+                // Split on a multiple of 64 so the halves don't write to the same long
+                int middle = from + ((((to - from) >>> 1) + 63) & ~63);
+                invokeAll(new Range(from, middle), new Range(middle, to));
+            } else if (dfa != null) {
+                for (int i = from; i < to; i++) {
+                    if (dfa.accepts(words.get(i))) results[i >>> 6] |= 1L << i;
+                }
+            } else {
+                LazyDFA lazyDFA = idleLazyDFAs.poll();
+                if (lazyDFA == null) lazyDFA = graph.lazyDFA();
+
+                for (int i = from; i < to; i++) {
+                    if (lazyDFA.accepts(words.get(i))) results[i >>> 6] |= 1L << i;
+                }
+
+                idleLazyDFAs.offer(lazyDFA);
+            }
+        }
+    }
+}
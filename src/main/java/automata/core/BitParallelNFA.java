@@ -0,0 +1,159 @@
+package automata.core;
+
+import java.util.Arrays;
+
+/**
+ * Simulates an NFA with the set of active states kept as a bitset. For every state and symbol the set of destination
+ * states is precomputed as a mask, so a step ORs together the masks of the active states. Each state is only ever
+ * active once, so unlike following every path through the NFA the work per step doesn't grow with the length of the
+ * word.
+ * <p>
+ * The masks take <code>states * states * alphabetSize / 8</code> bytes, so this is intended for NFAs with up to a few
+ * thousand states. Instances are not thread safe.
+ */
+public final class BitParallelNFA {
+    private final FrozenGraph graph;
+    private final int alphabetSize;
+
+    /**
+     * Number of longs needed to hold one bit per state
+     */
+    private final int words;
+
+    /**
+     * The successors of state s over symbol a are in <code>masks[(s * alphabetSize + a) * words]</code> onwards
+     */
+    private final long[] masks;
+
+    /**
+     * Whether the mask of a (state, symbol) pair has any bits set, so empty masks can be skipped
+     */
+    private final boolean[] hasSuccessors;
+
+    private final long[] acceptingMask;
+    private final long[] startMask;
+
+    // Scratch space reused between steps
+    private long[] active;
+    private long[] next;
+
+    BitParallelNFA(FrozenGraph graph) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        int states = graph.getStateCount();
+
+        this.graph = graph;
+        this.alphabetSize = graph.getAlphabetSize();
+        this.words = Math.max(1, (states + 63) >>> 6);
+
+        long maskCount = (long) states * alphabetSize * words;
+        if (maskCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many nodes to simulate bit-parallel: " + states + " nodes need "
+                    + maskCount + " masks");
+        }
+
+        masks = new long[(int) maskCount];
+        hasSuccessors = new boolean[states * alphabetSize];
+        acceptingMask = new long[words];
+        for (int s = 0; s < states; s++) {
+            if (graph.isAccepting(s)) acceptingMask[s >>> 6] |= 1L << s;
+
+            for (int a = 0; a < alphabetSize; a++) {
+                int base = (s * alphabetSize + a) * words;
+                for (int i = graph.transitionsStart(s, a), end = graph.transitionsEnd(s, a); i < end; i++) {
+                    // Following a transition also reaches the epsilon-closure of its destination
+                    int target = graph.target(i);
+                    for (int j = graph.closureStart(target); j < graph.closureEnd(target); j++) {
+                        int reached = graph.closureState(j);
+                        masks[base + (reached >>> 6)] |= 1L << reached;
+                    }
+                    hasSuccessors[s * alphabetSize + a] = true;
+                }
+            }
+        }
+
+        startMask = new long[words];
+        for (int reached : graph.getEpsilonClosure(graph.getStartState())) startMask[reached >>> 6] |= 1L << reached;
+
+        active = new long[words];
+        next = new long[words];
+    }
+
+    /**
+     * Tests whether a word is accepted. Every character of the word is treated as a single character symbol
+     *
+     * @param word Word to test
+     * @return true if the word is accepted, false if it isn't or it contains a character outside the alphabet
+     */
+    public boolean accepts(CharSequence word) {
+        System.arraycopy(startMask, 0, active, 0, words);
+
+        for (int i = 0, length = word.length(); i < length; i++) {
+            int symbolId = graph.getSymbolId(word.charAt(i));
+            if (symbolId == -1 || !step(symbolId)) return false;
+        }
+
+        return intersectsAccepting();
+    }
+
+    /**
+     * Tests whether a word, given as a sequence of symbol ids, is accepted
+     *
+     * @param symbolIds Ids of the symbols of the word, see {@link FrozenGraph#getSymbolId(String)}
+     * @return true if the word is accepted, false if it isn't
+     */
+    public boolean accepts(int[] symbolIds) {
+        System.arraycopy(startMask, 0, active, 0, words);
+
+        for (int symbolId : symbolIds) {
+            if (symbolId < 0 || symbolId >= alphabetSize) throw new ArrayIndexOutOfBoundsException(symbolId);
+            if (!step(symbolId)) return false;
+        }
+
+        return intersectsAccepting();
+    }
+
+    /**
+     * Replaces the active set with the union of the successor masks of every active state
+     *
+     * @return false if no states are active afterwards
+     */
+    private boolean step(int symbolId) {
+        final long[] active = this.active;
+        final long[] next = this.next;
+        final long[] masks = this.masks;
+        final int words = this.words;
+
+        Arrays.fill(next, 0L);
+        for (int w = 0; w < words; w++) {
+            long bits = active[w];
+            while (bits != 0) {
+                int s = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                int pair = s * alphabetSize + symbolId;
+                if (!hasSuccessors[pair]) continue;
+
+                int base = pair * words;
+                for (int i = 0; i < words; i++) next[i] |= masks[base + i];
+            }
+        }
+
+        this.active = next;
+        this.next = active;
+
+        for (long bits : next) {
+            if (bits != 0) return true;
+        }
+
+        return false;
+    }
+
+    private boolean intersectsAccepting() {
+        for (int w = 0; w < words; w++) {
+            if ((active[w] & acceptingMask[w]) != 0) return true;
+        }
+
+        return false;
+    }
+}
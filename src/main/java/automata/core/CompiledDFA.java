@@ -0,0 +1,124 @@
+package automata.core;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A DFA compiled into a dense transition table. Testing a word doesn't allocate anything and only needs one table
+ * lookup per symbol, which makes this much faster than {@link Graph#stepTestingWord(String)} for large workloads.
+ * <p>
+ * The table has one row per state and one column per symbol, plus an extra column that characters outside the alphabet
+ * map to. Missing transitions go to a dead state, which rejects the word straight away.
+ */
+public final class CompiledDFA {
+    static final int DEAD = -1;
+
+    private final int startState;
+    private final int width;
+    private final int[] table;
+    private final BitSet accepting;
+
+    /**
+     * Maps a character to its column in the table. Characters that aren't in the alphabet map to the last column
+     */
+    private final int[] charToColumn;
+
+    CompiledDFA(FrozenGraph graph) {
+        if (!graph.isDeterministic()) throw new NotDeterministicException();
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        int alphabetSize = graph.getAlphabetSize();
+        int states = graph.getStateCount();
+
+        startState = graph.getStartState();
+        width = alphabetSize + 1;
+        table = new int[states * width];
+        accepting = new BitSet(states);
+
+        Arrays.fill(table, DEAD);
+        for (int s = 0; s < states; s++) {
+            if (graph.isAccepting(s)) accepting.set(s);
+
+            for (int a = 0; a < alphabetSize; a++) {
+                int start = graph.transitionsStart(s, a);
+                if (start != graph.transitionsEnd(s, a)) table[s * width + a] = graph.target(start);
+            }
+        }
+
+        int maxChar = -1;
+        for (int a = 0; a < alphabetSize; a++) {
+            String symbol = graph.getSymbol(a);
+            if (symbol.length() == 1) maxChar = Math.max(maxChar, symbol.charAt(0));
+        }
+        charToColumn = new int[maxChar + 1];
+        for (char c = 0; c < charToColumn.length; c++) {
+            int symbolId = graph.getSymbolId(c);
+            charToColumn[c] = symbolId == -1 ? alphabetSize : symbolId;
+        }
+    }
+
+    /**
+     * Tests whether a word is accepted. Every character of the word is treated as a single character symbol
+     *
+     * @param word Word to test
+     * @return true if the word is accepted, false if it isn't or it contains a character outside the alphabet
+     */
+    public boolean accepts(CharSequence word) {
+        final int[] table = this.table;
+        final int[] charToColumn = this.charToColumn;
+        final int width = this.width;
+        final int unknown = width - 1;
+
+        int state = startState;
+        for (int i = 0, length = word.length(); i < length; i++) {
+            char c = word.charAt(i);
+            state = table[state * width + (c < charToColumn.length ? charToColumn[c] : unknown)];
+            if (state == DEAD) return false;
+        }
+
+        return accepting.get(state);
+    }
+
+    /**
+     * Tests whether a word, given as a sequence of symbol ids, is accepted
+     *
+     * @param symbolIds Ids of the symbols of the word, see {@link FrozenGraph#getSymbolId(String)}
+     * @return true if the word is accepted, false if it isn't
+     * @throws ArrayIndexOutOfBoundsException If an id isn't a valid symbol id
+     */
+    public boolean accepts(int[] symbolIds) {
+        int state = startState;
+        for (int symbolId : symbolIds) {
+            if (symbolId < 0 || symbolId >= width - 1) throw new ArrayIndexOutOfBoundsException(symbolId);
+
+            state = table[state * width + symbolId];
+            if (state == DEAD) return false;
+        }
+
+        return accepting.get(state);
+    }
+
+    int getStartState() {
+        return startState;
+    }
+
+    /**
+     * Follows a transition without checking the symbol id
+     *
+     * @return The next state, or {@link #DEAD} if there is no transition
+     */
+    int next(int state, int symbolId) {
+        return table[state * width + symbolId];
+    }
+
+    boolean isAccepting(int state) {
+        return accepting.get(state);
+    }
+
+    /**
+     * @return The number of states in the table, excluding the dead state
+     */
+    public int getStateCount() {
+        return table.length / width;
+    }
+}
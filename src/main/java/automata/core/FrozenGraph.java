@@ -0,0 +1,661 @@
+package automata.core;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An immutable snapshot of a {@link Graph}. Nodes are numbered densely in the order they were added to the graph and
+ * symbols are numbered by their position in the alphabet, so transitions can be stored in flat arrays instead of as
+ * linked {@link Node} and {@link Transition} objects.
+ * <p>
+ * The destinations of state <code>s</code> over symbol <code>a</code> are stored in
+ * <code>targets[offsets[s * alphabetSize + a]]</code> up to (but not including)
+ * <code>targets[offsets[s * alphabetSize + a + 1]]</code>. Epsilon transitions are stored separately in the same way
+ * with one bucket per state, and the epsilon-closure of every state is computed once when the snapshot is created so
+ * matching never has to follow epsilon transitions itself.
+ */
+public final class FrozenGraph {
+    /**
+     * Value used for a missing state, e.g. when the graph has no start node
+     */
+    static final int NO_STATE = -1;
+
+    private final String[] alphabet;
+    private final String[] labels;
+    private final int startState;
+    private final BitSet accepting;
+
+    private final int[] offsets;
+    private final int[] targets;
+
+    private final int[] epsilonOffsets;
+    private final int[] epsilonTargets;
+
+    /**
+     * The epsilon-closure of state s, in ascending order, is <code>closureStates[closureOffsets[s]]</code> up to (but
+     * not including) <code>closureStates[closureOffsets[s + 1]]</code>. Every state is in its own closure
+     */
+    private final int[] closureOffsets;
+    private final int[] closureStates;
+
+    /**
+     * Maps a character to the id of the single character symbol it represents, or -1 if it isn't a symbol
+     */
+    private final int[] charToSymbol;
+
+    /**
+     * Maps every symbol to its id, for symbols looked up by string such as multi-character ones
+     */
+    private final Map<String, Integer> symbolIds;
+
+    FrozenGraph(String[] alphabet, String[] labels, int startState, BitSet accepting, int[] offsets, int[] targets,
+                int[] epsilonOffsets, int[] epsilonTargets) {
+        this.alphabet = alphabet;
+        this.labels = labels;
+        this.startState = startState;
+        this.accepting = accepting;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.epsilonOffsets = epsilonOffsets;
+        this.epsilonTargets = epsilonTargets;
+        this.charToSymbol = buildCharToSymbol(alphabet);
+        this.symbolIds = new HashMap<>();
+        for (int i = 0; i < alphabet.length; i++) symbolIds.putIfAbsent(alphabet[i], i);
+
+        closureOffsets = new int[labels.length + 1];
+        if (epsilonTargets.length == 0) {
+            // Without epsilon transitions every closure only contains the state itself
+            closureStates = new int[labels.length];
+            for (int s = 0; s < labels.length; s++) {
+                closureOffsets[s + 1] = s + 1;
+                closureStates[s] = s;
+            }
+        } else {
+            closureStates = buildClosures();
+        }
+    }
+
+    /**
+     * Takes a snapshot of a graph. Later changes to the graph are not reflected in the snapshot
+     *
+     * @param graph Graph to snapshot
+     * @return The frozen graph
+     */
+    static FrozenGraph of(Graph graph) {
+        String[] alphabet = graph.getAlphabet();
+        List<Node> nodes = graph.getNodes();
+        int alphabetSize = alphabet.length;
+
+        Map<String, Integer> symbolIds = new HashMap<>();
+        for (int i = 0; i < alphabetSize; i++) symbolIds.putIfAbsent(alphabet[i], i);
+
+        String[] labels = new String[nodes.size()];
+        Map<String, Integer> stateIds = new HashMap<>();
+        BitSet accepting = new BitSet(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            labels[i] = node.getLabel();
+            stateIds.put(node.getLabel(), i);
+            if (node.isAccepting()) accepting.set(i);
+        }
+
+        // Count the transitions in each (state, symbol) bucket, then turn the counts into offsets
+        int[] offsets = new int[nodes.size() * alphabetSize + 1];
+        int[] epsilonOffsets = new int[nodes.size() + 1];
+        for (int s = 0; s < nodes.size(); s++) {
+            for (Transition t : nodes.get(s).getTransitions()) {
+                if (t.getSymbol().isEpsilon()) epsilonOffsets[s + 1]++;
+                else offsets[s * alphabetSize + symbolId(t.getSymbol(), symbolIds) + 1]++;
+            }
+        }
+        for (int i = 1; i < offsets.length; i++) offsets[i] += offsets[i - 1];
+        for (int i = 1; i < epsilonOffsets.length; i++) epsilonOffsets[i] += epsilonOffsets[i - 1];
+
+        int[] targets = new int[offsets[offsets.length - 1]];
+        int[] epsilonTargets = new int[epsilonOffsets[epsilonOffsets.length - 1]];
+        int[] fill = Arrays.copyOf(offsets, offsets.length - 1);
+        int[] epsilonFill = Arrays.copyOf(epsilonOffsets, epsilonOffsets.length - 1);
+        for (int s = 0; s < nodes.size(); s++) {
+            for (Transition t : nodes.get(s).getTransitions()) {
+                int destination = stateIds.get(t.getDestination().getLabel());
+                if (t.getSymbol().isEpsilon()) {
+                    epsilonTargets[epsilonFill[s]++] = destination;
+                } else {
+                    targets[fill[s * alphabetSize + symbolId(t.getSymbol(), symbolIds)]++] = destination;
+                }
+            }
+        }
+
+        Node startNode = graph.getStartNode();
+        int startState = startNode == null ? NO_STATE : stateIds.get(startNode.getLabel());
+
+        return new FrozenGraph(alphabet.clone(), labels, startState, accepting, offsets, targets, epsilonOffsets,
+                epsilonTargets);
+    }
+
+    /**
+     * Loads a graph saved with {@link #save(Path)} or {@link Graph#save(Path)}. The file is memory mapped and its
+     * arrays are copied out in bulk, so no node or transition objects are created
+     *
+     * @param path File to load
+     * @return The loaded graph
+     * @throws InvalidAutomatonFileException If the file isn't a valid automaton file
+     * @throws IOException                   If the file can't be read
+     */
+    public static FrozenGraph load(Path path) throws IOException {
+        return AutomatonFile.read(path);
+    }
+
+    /**
+     * Saves the graph in the binary automaton format, see {@link #load(Path)}
+     *
+     * @param path File to write
+     * @throws IOException If the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        AutomatonFile.write(path, alphabet, labels, startState, accepting, offsets, targets, epsilonOffsets,
+                epsilonTargets);
+    }
+
+    /**
+     * Builds an editable graph with the same nodes, transitions and start node. The transitions of each node are
+     * added grouped by symbol, followed by its epsilon transitions
+     *
+     * @return The new graph
+     */
+    public Graph toGraph() {
+        Graph graph = new Graph(alphabet.clone());
+
+        for (int s = 0; s < labels.length; s++) graph.addNode(new Node(labels[s], accepting.get(s)));
+        for (int s = 0; s < labels.length; s++) {
+            for (int a = 0; a < alphabet.length; a++) {
+                for (int i = transitionsStart(s, a), end = transitionsEnd(s, a); i < end; i++) {
+                    graph.connectNodes(labels[s], labels[targets[i]], alphabet[a]);
+                }
+            }
+            for (int i = epsilonOffsets[s]; i < epsilonOffsets[s + 1]; i++) {
+                graph.connectNodesByEpsilon(labels[s], labels[epsilonTargets[i]]);
+            }
+        }
+        if (startState != NO_STATE) graph.setStartNode(labels[startState]);
+
+        return graph;
+    }
+
+    /**
+     * Gets the id of a symbol, using the id it was interned with if it has one
+     */
+    private static int symbolId(Symbol symbol, Map<String, Integer> symbolIds) {
+        return symbol.getId() == Symbol.NO_ID ? symbolIds.get(symbol.toString()) : symbol.getId();
+    }
+
+    /**
+     * Finds the states reachable from every state by epsilon transitions, filling in {@link #closureOffsets}
+     *
+     * @return The closure states to store in {@link #closureStates}
+     */
+    private int[] buildClosures() {
+        int[] closures = new int[labels.length];
+        int size = 0;
+
+        SparseSet reached = new SparseSet(labels.length);
+        for (int s = 0; s < labels.length; s++) {
+            reached.clear();
+            reached.add(s);
+
+            // The set doubles as the queue, states are appended as they are reached
+            for (int i = 0; i < reached.size(); i++) {
+                int state = reached.get(i);
+                for (int j = epsilonOffsets[state]; j < epsilonOffsets[state + 1]; j++) reached.add(epsilonTargets[j]);
+            }
+
+            if (size + reached.size() > closures.length) {
+                closures = Arrays.copyOf(closures, Math.max(closures.length * 2, size + reached.size()));
+            }
+            int[] closure = reached.toSortedArray();
+            System.arraycopy(closure, 0, closures, size, closure.length);
+            size += closure.length;
+            closureOffsets[s + 1] = size;
+        }
+
+        return Arrays.copyOf(closures, size);
+    }
+
+    /**
+     * Maps every character to the id of the single character symbol it represents in an alphabet, or -1
+     */
+    static int[] buildCharToSymbol(String[] alphabet) {
+        int max = -1;
+        for (String symbol : alphabet) {
+            if (symbol.length() == 1) max = Math.max(max, symbol.charAt(0));
+        }
+
+        int[] charToSymbol = new int[max + 1];
+        Arrays.fill(charToSymbol, -1);
+        for (int i = alphabet.length - 1; i >= 0; i--) {
+            if (alphabet[i].length() == 1) charToSymbol[alphabet[i].charAt(0)] = i;
+        }
+
+        return charToSymbol;
+    }
+
+    /**
+     * @return Number of states (nodes) in the graph
+     */
+    public int getStateCount() {
+        return labels.length;
+    }
+
+    /**
+     * @return Number of symbols in the alphabet
+     */
+    public int getAlphabetSize() {
+        return alphabet.length;
+    }
+
+    /**
+     * @return The id of the start state, or -1 if the graph has no start node
+     */
+    public int getStartState() {
+        return startState;
+    }
+
+    /**
+     * @param state Id of the state
+     * @return Whether the state is accepting
+     */
+    public boolean isAccepting(int state) {
+        return accepting.get(state);
+    }
+
+    /**
+     * @param state Id of the state
+     * @return The label of the node the state was created from
+     */
+    public String getLabel(int state) {
+        return labels[state];
+    }
+
+    /**
+     * @param symbolId Id of the symbol
+     * @return The symbol as it appears in the alphabet
+     */
+    public String getSymbol(int symbolId) {
+        return alphabet[symbolId];
+    }
+
+    /**
+     * @return A copy of the alphabet, indexed by symbol id
+     */
+    public String[] getAlphabet() {
+        return alphabet.clone();
+    }
+
+    /**
+     * Gets the id of the single character symbol <code>c</code>
+     *
+     * @param c Character to look up
+     * @return The id of the symbol, or -1 if <code>c</code> isn't in the alphabet
+     */
+    public int getSymbolId(char c) {
+        return c < charToSymbol.length ? charToSymbol[c] : -1;
+    }
+
+    /**
+     * Gets the id of a symbol
+     *
+     * @param symbol Symbol to look up
+     * @return The id of the symbol, or -1 if it isn't in the alphabet
+     */
+    public int getSymbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Index into the transition arrays of the first destination of <code>state</code> over <code>symbolId</code>
+     */
+    int transitionsStart(int state, int symbolId) {
+        return offsets[state * alphabet.length + symbolId];
+    }
+
+    /**
+     * Index into the transition arrays after the last destination of <code>state</code> over <code>symbolId</code>
+     */
+    int transitionsEnd(int state, int symbolId) {
+        return offsets[state * alphabet.length + symbolId + 1];
+    }
+
+    /**
+     * @param index Index between {@link #transitionsStart(int, int)} and {@link #transitionsEnd(int, int)}
+     * @return The destination state stored at that index
+     */
+    int target(int index) {
+        return targets[index];
+    }
+
+    /**
+     * @return Whether the graph has any epsilon transitions
+     */
+    public boolean hasEpsilonTransitions() {
+        return epsilonTargets.length > 0;
+    }
+
+    /**
+     * Index into the epsilon transition arrays of the first destination of <code>state</code> by epsilon
+     */
+    int epsilonStart(int state) {
+        return epsilonOffsets[state];
+    }
+
+    /**
+     * Index into the epsilon transition arrays after the last destination of <code>state</code> by epsilon
+     */
+    int epsilonEnd(int state) {
+        return epsilonOffsets[state + 1];
+    }
+
+    /**
+     * @param index Index between {@link #epsilonStart(int)} and {@link #epsilonEnd(int)}
+     * @return The destination state stored at that index
+     */
+    int epsilonTarget(int index) {
+        return epsilonTargets[index];
+    }
+
+    /**
+     * Index into the closure arrays of the first state in the epsilon-closure of <code>state</code>
+     */
+    int closureStart(int state) {
+        return closureOffsets[state];
+    }
+
+    /**
+     * Index into the closure arrays after the last state in the epsilon-closure of <code>state</code>
+     */
+    int closureEnd(int state) {
+        return closureOffsets[state + 1];
+    }
+
+    /**
+     * @param index Index between {@link #closureStart(int)} and {@link #closureEnd(int)}
+     * @return The state stored at that index
+     */
+    int closureState(int index) {
+        return closureStates[index];
+    }
+
+    /**
+     * Gets every state that can be reached from a state by following only epsilon transitions, including the state
+     * itself
+     *
+     * @param state Id of the state
+     * @return The ids of the states in the closure in ascending order
+     */
+    public int[] getEpsilonClosure(int state) {
+        return Arrays.copyOfRange(closureStates, closureOffsets[state], closureOffsets[state + 1]);
+    }
+
+    /**
+     * @return Whether the graph has no epsilon transitions and no state has more than one transition over the same
+     * symbol
+     */
+    public boolean isDeterministic() {
+        if (hasEpsilonTransitions()) return false;
+
+        for (int i = 0; i < offsets.length - 1; i++) {
+            if (offsets[i + 1] - offsets[i] > 1) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Creates a new matching session for this graph. Any number of sessions can be used at once from different threads
+     *
+     * @return The matcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public Matcher matcher() {
+        return new Matcher(this);
+    }
+
+    /**
+     * Tests a batch of words in parallel on the common fork-join pool
+     *
+     * @param words Words to test. Every character of a word is treated as a single character symbol
+     * @return A bitset where bit i is set if word i is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public BitSet acceptsAll(List<? extends CharSequence> words) {
+        return acceptsAll(words, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Tests a batch of words in parallel
+     *
+     * @param words Words to test. Every character of a word is treated as a single character symbol
+     * @param pool  Pool to run the tests in
+     * @return A bitset where bit i is set if word i is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public BitSet acceptsAll(List<? extends CharSequence> words, ForkJoinPool pool) {
+        return BatchMatcher.acceptsAll(this, words, pool);
+    }
+
+    /**
+     * Creates a matcher that tests whole streams, files and channels as single words, reading them in buffers of
+     * {@link StreamMatcher#DEFAULT_BUFFER_SIZE} bytes
+     *
+     * @return The stream matcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public StreamMatcher streamMatcher() {
+        return streamMatcher(StreamMatcher.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a matcher that tests whole streams, files and channels as single words
+     *
+     * @param bufferSize Number of bytes or chars to read at a time
+     * @return The stream matcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public StreamMatcher streamMatcher(int bufferSize) {
+        return new StreamMatcher(this, bufferSize);
+    }
+
+    /**
+     * Creates a searcher that finds the substrings of a text that this graph accepts
+     *
+     * @return The searcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public TextSearcher searcher() {
+        return new TextSearcher(this);
+    }
+
+    /**
+     * Combines this graph with another into one automaton that accepts the words both graphs accept
+     *
+     * @param other Other graph
+     * @return The lazily explored product
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    public ProductAutomaton intersection(FrozenGraph other) {
+        return new ProductAutomaton(this, other, ProductAutomaton.Operation.INTERSECTION);
+    }
+
+    /**
+     * Combines this graph with another into one automaton that accepts the words either graph accepts
+     *
+     * @param other Other graph
+     * @return The lazily explored product
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    public ProductAutomaton union(FrozenGraph other) {
+        return new ProductAutomaton(this, other, ProductAutomaton.Operation.UNION);
+    }
+
+    /**
+     * Combines this graph with another into one automaton that accepts the words this graph accepts but the other
+     * doesn't
+     *
+     * @param other Other graph
+     * @return The lazily explored product
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    public ProductAutomaton difference(FrozenGraph other) {
+        return new ProductAutomaton(this, other, ProductAutomaton.Operation.DIFFERENCE);
+    }
+
+    /**
+     * Builds an automaton that accepts the words over this graph's alphabet that this graph doesn't accept
+     *
+     * @return The lazily explored complement
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public ProductAutomaton complement() {
+        return new ProductAutomaton(this, null, ProductAutomaton.Operation.COMPLEMENT);
+    }
+
+    /**
+     * Checks whether this graph accepts exactly the same words as another
+     *
+     * @param other Other graph
+     * @return true if the graphs accept the same words
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    public boolean isEquivalent(FrozenGraph other) {
+        return findEquivalenceCounterexample(other) == null;
+    }
+
+    /**
+     * Finds a shortest word accepted by exactly one of this graph and another
+     *
+     * @param other Other graph
+     * @return The symbols of the word, or null if the graphs accept the same words
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    public List<String> findEquivalenceCounterexample(FrozenGraph other) {
+        return LanguageComparison.findEquivalenceCounterexample(this, other);
+    }
+
+    /**
+     * Checks whether every word this graph accepts is also accepted by another
+     *
+     * @param other Other graph
+     * @return true if the words accepted by this graph are a subset of the words accepted by the other
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    public boolean isSubsetOf(FrozenGraph other) {
+        return findSubsetCounterexample(other) == null;
+    }
+
+    /**
+     * Finds a shortest word accepted by this graph but not by another
+     *
+     * @param other Other graph
+     * @return The symbols of the word, or null if every word this graph accepts is accepted by the other
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    public List<String> findSubsetCounterexample(FrozenGraph other) {
+        return LanguageComparison.findInclusionCounterexample(this, other);
+    }
+
+    /**
+     * @return Whether the graph accepts no words at all
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public boolean isLanguageEmpty() {
+        return findShortestWord() == null;
+    }
+
+    /**
+     * Finds a shortest accepted word with a breadth first search from the start state
+     *
+     * @return The symbols of the word, or null if no word is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public List<String> findShortestWord() {
+        return LanguageQueries.findShortestWord(this);
+    }
+
+    /**
+     * Counts the distinct accepted words of a length. Words accepted along several paths of an NFA are only counted
+     * once
+     *
+     * @param length Number of symbols in the words to count
+     * @return The number of accepted words of that length
+     * @throws NoStartNodeException     If the graph has no start node
+     * @throws IllegalArgumentException If the length is negative
+     */
+    public BigInteger countWords(long length) {
+        return LanguageQueries.countWords(this, length);
+    }
+
+    /**
+     * Converts this graph into a regular expression that matches exactly the words it accepts, by eliminating its
+     * states one at a time. The expression uses the syntax of {@link Graph#fromRegex(String, String[],
+     * RegexConstruction)}, so it can be turned back into a graph
+     *
+     * @return The regular expression, or null if no word is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     * @see StateElimination
+     */
+    public String toRegex() {
+        return StateElimination.toRegex(this);
+    }
+
+    /**
+     * Compiles this graph into a table driven matcher
+     *
+     * @return The compiled matcher
+     * @throws NotDeterministicException If the graph is an NFA
+     * @throws NoStartNodeException      If the graph has no start node
+     */
+    public CompiledDFA compile() {
+        return new CompiledDFA(this);
+    }
+
+    /**
+     * Creates a matcher that determinizes this graph lazily as words are tested, caching at most
+     * {@link LazyDFA#DEFAULT_MAX_CACHED_STATES} DFA states
+     *
+     * @return The lazy matcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public LazyDFA lazyDFA() {
+        return lazyDFA(LazyDFA.DEFAULT_MAX_CACHED_STATES);
+    }
+
+    /**
+     * Creates a matcher that determinizes this graph lazily as words are tested
+     *
+     * @param maxCachedStates Maximum number of DFA states to cache before the cache is flushed
+     * @return The lazy matcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public LazyDFA lazyDFA(int maxCachedStates) {
+        return new LazyDFA(this, maxCachedStates);
+    }
+
+    /**
+     * Creates a matcher that simulates this graph with the active states kept as a bitset
+     *
+     * @return The bit parallel matcher
+     * @throws NoStartNodeException  If the graph has no start node
+     * @throws IllegalStateException If the graph has too many nodes for the bitsets of every state and symbol to fit
+     *                               in one array
+     */
+    public BitParallelNFA bitParallelNFA() {
+        return new BitParallelNFA(this);
+    }
+}
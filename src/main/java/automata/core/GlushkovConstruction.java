@@ -0,0 +1,158 @@
+package automata.core;
+
+import java.util.Arrays;
+
+/**
+ * Builds an NFA without epsilon transitions from a regular expression with Glushkov's construction.
+ * <p>
+ * Every symbol in the pattern is a position and gets its own node, plus a start node. For every part of the expression
+ * the positions its matches can start with (first) and end with (last) are found bottom up, along with whether it
+ * matches the empty word. Wherever one position can follow another in a match, i.e. the last positions of a part of a
+ * concatenation to the first positions of the next part, or the last positions of a repeated part back to its own
+ * first positions, a transition over the symbol of the following position is added straight away, so the follow sets
+ * are never stored.
+ */
+final class GlushkovConstruction {
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final Graph graph;
+    private final String[] alphabet;
+    private final String[] labels;
+
+    /**
+     * Position -> symbol id
+     */
+    private final int[] positionSymbols;
+    private int positionCount;
+
+    private GlushkovConstruction(String[] alphabet, int positions) {
+        this.graph = new Graph(alphabet.clone());
+        this.alphabet = alphabet;
+        this.labels = new String[positions + 1];
+        this.positionSymbols = new int[positions + 1];
+
+        for (int p = 0; p <= positions; p++) {
+            labels[p] = "q" + p;
+            graph.addNode(new Node(labels[p]));
+        }
+    }
+
+    /**
+     * The first and last positions of a part of the expression, and whether it matches the empty word
+     */
+    private static final class Part {
+        final boolean nullable;
+        final int[] first;
+        final int[] last;
+
+        Part(boolean nullable, int[] first, int[] last) {
+            this.nullable = nullable;
+            this.first = first;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Builds the NFA for a parsed regular expression. The nodes are labelled q0, q1, ... where q0 is the start node
+     * and qi is the node of the i-th symbol in the pattern
+     *
+     * @param regex    Parsed regular expression
+     * @param alphabet Alphabet the expression was parsed with
+     * @return The NFA
+     */
+    static Graph build(RegexParser.ParsedRegex regex, String[] alphabet) {
+        GlushkovConstruction construction = new GlushkovConstruction(alphabet, regex.symbolCount);
+        Graph graph = construction.graph;
+
+        Part root = construction.build(regex.root);
+        graph.setStartNode("q0");
+
+        // The start node is where the match begins, so it leads to the first positions
+        construction.connect(new int[]{0}, root.first);
+
+        if (root.nullable) graph.makeNodeAccepting("q0");
+        for (int p : root.last) graph.makeNodeAccepting(construction.labels[p]);
+
+        return graph;
+    }
+
+    private Part build(RegexNode node) {
+        if (node instanceof RegexNode.SymbolNode) {
+            int position = ++positionCount;
+            positionSymbols[position] = ((RegexNode.SymbolNode) node).symbolId;
+
+            int[] positions = {position};
+            return new Part(false, positions, positions);
+        } else if (node instanceof RegexNode.ConcatenationNode) {
+            Part result = null;
+
+            for (RegexNode partNode : ((RegexNode.ConcatenationNode) node).parts) {
+                Part part = build(partNode);
+                if (result == null) {
+                    result = part;
+                    continue;
+                }
+
+                connect(result.last, part.first);
+                result = new Part(result.nullable && part.nullable,
+                        result.nullable ? concat(result.first, part.first) : result.first,
+                        part.nullable ? concat(result.last, part.last) : part.last);
+            }
+
+            return result;
+        } else if (node instanceof RegexNode.UnionNode) {
+            RegexNode[] options = ((RegexNode.UnionNode) node).options.toArray(new RegexNode[0]);
+            Part[] parts = new Part[options.length];
+            int firstCount = 0, lastCount = 0;
+            boolean nullable = false;
+
+            for (int i = 0; i < options.length; i++) {
+                parts[i] = build(options[i]);
+                nullable |= parts[i].nullable;
+                firstCount += parts[i].first.length;
+                lastCount += parts[i].last.length;
+            }
+
+            // Merge all the options at once, merging them in pairs would be quadratic for long unions
+            int[] first = new int[firstCount], last = new int[lastCount];
+            firstCount = 0;
+            lastCount = 0;
+            for (Part part : parts) {
+                System.arraycopy(part.first, 0, first, firstCount, part.first.length);
+                System.arraycopy(part.last, 0, last, lastCount, part.last.length);
+                firstCount += part.first.length;
+                lastCount += part.last.length;
+            }
+
+            return new Part(nullable, first, last);
+        } else if (node instanceof RegexNode.RepeatNode) {
+            RegexNode.RepeatNode repeat = (RegexNode.RepeatNode) node;
+            Part inner = build(repeat.inner);
+
+            if (repeat.allowsMany) connect(inner.last, inner.first);
+            return new Part(inner.nullable || repeat.allowsZero, inner.first, inner.last);
+        }
+
+        // The empty word
+        return new Part(true, NO_POSITIONS, NO_POSITIONS);
+    }
+
+    /**
+     * Adds a transition from each of some positions to each of some other positions, over the symbol of the position
+     * it leads to
+     */
+    private void connect(int[] from, int[] to) {
+        for (int p : from) {
+            for (int q : to) graph.connectNodes(labels[p], labels[q], alphabet[positionSymbols[q]]);
+        }
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
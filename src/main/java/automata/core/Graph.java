@@ -1,20 +1,40 @@
 package automata.core;
 
 import java.io.*;
+import java.math.BigInteger;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * This structure represents a graph of an automaton, whether it be deterministic or non deterministic
+ * <p>
+ * The graph can only test one word at a time through {@link #startTestingWord()}. To test words from several threads
+ * at once, freeze the graph and give each thread its own {@link Matcher}, see {@link #matcher()} and
+ * {@link MatcherPool}
  */
 public class Graph implements Serializable {
     private static final long serialVersionUID = -1474631563182818239L;
 
     private List<Node> nodes;
 
+    /**
+     * Index of the nodes by their label. It isn't serialized, it is rebuilt from <code>nodes</code> when first needed
+     */
+    private transient Map<String, Node> nodesByLabel;
+
     private List<Node> currentPositions;
     private boolean currentlyTestingWord;
 
@@ -25,8 +45,30 @@ public class Graph implements Serializable {
      */
     private String[] alphabet;
 
+    /**
+     * The interned symbols of the alphabet, indexed by their id. Every transition in the graph uses these symbols. They
+     * are built from the alphabet in the constructor and again after deserialization
+     */
+    private transient Symbol[] symbols;
+    private transient Map<String, Symbol> symbolsByString;
+
     private Node startNode;
 
+    /**
+     * The symbols each node has more than one transition over. Along with the counters below, this is updated as
+     * transitions are added so {@link #isNFA()} doesn't have to look at every transition. None of it is serialized, it
+     * is recounted after deserialization
+     */
+    private transient Map<Node, Set<Symbol>> nondeterministicSymbols;
+    private transient int nondeterministicPairCount;
+    private transient int epsilonTransitionCount;
+    private transient int maxFanOut;
+
+    /**
+     * Counts the words tested with {@link #startTestingWord()}, or null if metrics are off
+     */
+    private transient MetricsRecorder metricsRecorder;
+
     /**
      * Instantiates a graph with an alphabet and no nodes
      *
@@ -36,36 +78,150 @@ public class Graph implements Serializable {
         this.alphabet = alphabet;
         nodes = new ArrayList<>();
         allTransitions = new ArrayList<>();
+        nondeterministicSymbols = new LinkedHashMap<>();
+        internSymbols();
     }
 
-    public static Graph load(String path) throws IOException, ClassNotFoundException {
-        FileInputStream fileInputStream = new FileInputStream(path);
-        ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream);
+    /**
+     * Builds the symbol table from the alphabet. The id of each symbol is its position in the alphabet
+     */
+    private void internSymbols() {
+        symbols = new Symbol[alphabet.length];
+        symbolsByString = new HashMap<>();
 
-        Graph g = (Graph) objectInputStream.readObject();
+        for (int i = 0; i < alphabet.length; i++) {
+            symbols[i] = Symbol.fromString(alphabet[i], i);
+            symbolsByString.putIfAbsent(alphabet[i], symbols[i]);
+        }
+    }
 
-        fileInputStream.close();
-        objectInputStream.close();
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        internSymbols();
 
-        return g;
+        // The deserialized transitions have their own copies of the symbols, swap in the interned ones
+        for (Node node : nodes) {
+            for (Transition t : node.getTransitions()) {
+                Symbol interned = symbolsByString.get(t.getSymbol().toString());
+                t.setInternedSymbol(interned == null ? Symbol.EPSILON : interned);
+            }
+        }
+
+        nondeterministicSymbols = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            Set<Symbol> counted = new HashSet<>();
+            for (Transition t : node.getTransitions()) {
+                if (t.getSymbol().isEpsilon()) epsilonTransitionCount++;
+                else if (counted.add(t.getSymbol())) countFanOut(node, t.getSymbol());
+            }
+        }
     }
 
-    public static Graph load(Path path) throws IOException, ClassNotFoundException {
-        return load(path.toAbsolutePath().toString());
+    /**
+     * Builds a graph that accepts the words matched by a regular expression, using Glushkov's construction so the
+     * graph has no epsilon transitions
+     *
+     * @param pattern  Regular expression, see {@link #fromRegex(String, String[], RegexConstruction)} for the syntax
+     * @param alphabet Alphabet of the graph, which every symbol in the pattern must be in
+     * @return The graph
+     * @throws RegexSyntaxException    If the pattern isn't a valid regular expression
+     * @throws SymbolNotFoundException If the pattern uses a symbol that isn't in the alphabet
+     */
+    public static Graph fromRegex(String pattern, String[] alphabet) {
+        return fromRegex(pattern, alphabet, RegexConstruction.GLUSHKOV);
     }
 
-    public void save(String path) throws IOException {
-        FileOutputStream fileOutputStream = new FileOutputStream(path);
-        ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream);
+    /**
+     * Builds a graph that accepts the words matched by a regular expression. The pattern can use <code>|</code> for
+     * union, <code>*</code>, <code>+</code> and <code>?</code> for repetition, brackets for grouping and
+     * <code>.</code> for any symbol. <code>()</code> or an empty option matches the empty word. Symbols longer than 1
+     * character are written in angle brackets like <code>&lt;if&gt;</code>, and <code>\</code> escapes the character
+     * after it
+     *
+     * @param pattern      Regular expression
+     * @param alphabet     Alphabet of the graph, which every symbol in the pattern must be in
+     * @param construction How to build the graph
+     * @return The graph
+     * @throws RegexSyntaxException    If the pattern isn't a valid regular expression
+     * @throws SymbolNotFoundException If the pattern uses a symbol that isn't in the alphabet
+     */
+    public static Graph fromRegex(String pattern, String[] alphabet, RegexConstruction construction) {
+        RegexParser.ParsedRegex regex = RegexParser.parse(pattern, alphabet);
 
-        objectOutputStream.writeObject(this);
+        return construction == RegexConstruction.THOMPSON
+                ? ThompsonConstruction.build(regex, alphabet)
+                : GlushkovConstruction.build(regex, alphabet);
+    }
 
-        objectOutputStream.close();
-        fileOutputStream.close();
+    /**
+     * Loads a graph saved with {@link #save(Path)}. Files written with Java serialization, by older versions or for
+     * graphs with subclasses of {@link Node}, can still be loaded and keep the classes of their nodes. Graphs loaded
+     * from the binary format only contain plain <code>Node</code>s
+     *
+     * @param path File to load
+     * @return The loaded graph
+     * @throws InvalidAutomatonFileException If the file isn't a valid automaton file
+     * @throws IOException                   If the file can't be read
+     * @throws ClassNotFoundException        If the file uses Java serialization and contains an unknown class
+     */
+    public static Graph load(String path) throws IOException, ClassNotFoundException {
+        return load(Paths.get(path));
     }
 
+    /**
+     * Loads a graph saved with {@link #save(Path)}. Files written with Java serialization, by older versions or for
+     * graphs with subclasses of {@link Node}, can still be loaded and keep the classes of their nodes. Graphs loaded
+     * from the binary format only contain plain <code>Node</code>s
+     *
+     * @param path File to load
+     * @return The loaded graph
+     * @throws InvalidAutomatonFileException If the file isn't a valid automaton file
+     * @throws IOException                   If the file can't be read
+     * @throws ClassNotFoundException        If the file uses Java serialization and contains an unknown class
+     */
+    public static Graph load(Path path) throws IOException, ClassNotFoundException {
+        if (!AutomatonFile.isSerialized(path)) return FrozenGraph.load(path).toGraph();
+
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new FileInputStream(path.toFile()))) {
+            return (Graph) objectInputStream.readObject();
+        }
+    }
+
+    /**
+     * Saves the graph in the binary automaton format, which stores the alphabet, the accepting nodes and the
+     * transitions as flat arrays instead of serializing every node and transition object. The word being tested isn't
+     * saved. The binary format only has room for plain {@link Node}s, so a graph containing a subclass of
+     * <code>Node</code> is saved with Java serialization instead, which {@link #load(Path)} reads back with the same
+     * classes
+     *
+     * @param path File to write
+     * @throws IOException If the file can't be written
+     */
+    public void save(String path) throws IOException {
+        save(Paths.get(path));
+    }
+
+    /**
+     * Saves the graph in the binary automaton format, which stores the alphabet, the accepting nodes and the
+     * transitions as flat arrays instead of serializing every node and transition object. The word being tested isn't
+     * saved. The binary format only has room for plain {@link Node}s, so a graph containing a subclass of
+     * <code>Node</code> is saved with Java serialization instead, which {@link #load(Path)} reads back with the same
+     * classes
+     *
+     * @param path File to write
+     * @throws IOException If the file can't be written
+     */
     public void save(Path path) throws IOException {
-        save(path.toAbsolutePath().toString());
+        for (Node node : nodes) {
+            if (node.getClass() != Node.class) {
+                try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(path.toFile()))) {
+                    out.writeObject(this);
+                }
+                return;
+            }
+        }
+
+        freeze().save(path);
     }
 
     /**
@@ -83,15 +239,50 @@ public class Graph implements Serializable {
      *
      * @param n The node to add to the graph
      * @throws LabelAlreadyExistsException If the label of <code>n</code> already exists
+     * @throws SymbolNotFoundException     If <code>n</code> has a transition over a symbol that isn't in the alphabet
      */
     public void addNode(Node n) {
         // Check if a node with that label already exists
-        for (Node node : getNodes()) {
-            if (n.equals(node)) throw new LabelAlreadyExistsException(n.getLabel());
+        if (getNodesByLabel().containsKey(n.getLabel())) throw new LabelAlreadyExistsException(n.getLabel());
+
+        // Transitions added to the node before it joined the graph don't use the graph's interned symbols yet
+        for (Transition t : n.getTransitions()) {
+            Symbol symbol = t.getSymbol();
+            if (!symbol.isEpsilon() && !doesAlphabetContain(symbol.toString())) {
+                throw new SymbolNotFoundException(symbol.toString());
+            }
+        }
+        if (!n.getTransitions().isEmpty()) {
+            for (Transition t : n.getTransitions()) {
+                Symbol interned = symbolsByString.get(t.getSymbol().toString());
+                t.setInternedSymbol(interned == null ? Symbol.EPSILON : interned);
+            }
+            n.clearIndexes();
+            allTransitions.addAll(n.getTransitions());
+
+            // Count them the same way connectNodes would have, so isNFA agrees with the transitions
+            Set<Symbol> counted = new HashSet<>();
+            for (Transition t : n.getTransitions()) {
+                if (t.getSymbol().isEpsilon()) epsilonTransitionCount++;
+                else if (counted.add(t.getSymbol())) countFanOut(n, t.getSymbol());
+            }
         }
 
         // Otherwise, add the node to the graph
         nodes.add(n);
+        nodesByLabel.put(n.getLabel(), n);
+    }
+
+    /**
+     * @return The index of the nodes by their label, building it if this is the first time it's been needed
+     */
+    private Map<String, Node> getNodesByLabel() {
+        if (nodesByLabel == null) {
+            nodesByLabel = new HashMap<>();
+            for (Node n : nodes) nodesByLabel.put(n.getLabel(), n);
+        }
+
+        return nodesByLabel;
     }
 
     /**
@@ -101,11 +292,45 @@ public class Graph implements Serializable {
      * @return Whether the symbol is in the alphabet
      */
     private boolean doesAlphabetContain(String testSymbol) {
-        for (String symbol : alphabet) {
-            if (symbol.equals(testSymbol)) return true;
-        }
+        return symbolsByString.containsKey(testSymbol);
+    }
 
-        return false;
+    /**
+     * Gets the interned symbol for a symbol in the alphabet
+     *
+     * @param symbol Symbol to look up
+     * @return The interned symbol
+     * @throws SymbolNotFoundException If the symbol isn't in the alphabet
+     */
+    public Symbol getSymbol(String symbol) {
+        Symbol interned = symbolsByString.get(symbol);
+        if (interned == null) throw new SymbolNotFoundException(symbol);
+
+        return interned;
+    }
+
+    /**
+     * Gets the interned symbol with an id
+     *
+     * @param symbolId Id of the symbol, which is its position in the alphabet
+     * @return The interned symbol
+     * @throws SymbolNotFoundException If there is no symbol with that id
+     */
+    public Symbol getSymbol(int symbolId) {
+        if (symbolId < 0 || symbolId >= symbols.length) throw new SymbolNotFoundException(String.valueOf(symbolId));
+
+        return symbols[symbolId];
+    }
+
+    /**
+     * Gets the id of a symbol in the alphabet, which can be passed to {@link #stepTestingWord(int)}
+     *
+     * @param symbol Symbol to look up
+     * @return The id of the symbol
+     * @throws SymbolNotFoundException If the symbol isn't in the alphabet
+     */
+    public int getSymbolId(String symbol) {
+        return getSymbol(symbol).getId();
     }
 
     /**
@@ -117,21 +342,38 @@ public class Graph implements Serializable {
      * @throws InvalidSymbolException If the symbol is invalid
      */
     private void connectNodes(Node n1, Node n2, String transitionSymbol) {
-        // Validate the transitionSymbol
+        // Validate the transitionSymbol. The empty symbol is always allowed, it makes an epsilon transition
         if (!isValidSymbol(transitionSymbol)) throw new InvalidSymbolException(transitionSymbol);
-        if (!doesAlphabetContain(transitionSymbol)) throw new SymbolNotFoundException(transitionSymbol);
+        boolean isEpsilon = transitionSymbol.equals(Symbol.EPSILON.toString());
+        if (!isEpsilon && !doesAlphabetContain(transitionSymbol)) throw new SymbolNotFoundException(transitionSymbol);
 
         // Check if the nodes exist in the graph
-        if (!nodes.contains(n1)) throw new NodeNotFoundException(n1);
-        if (!nodes.contains(n2)) throw new NodeNotFoundException(n2);
+        if (getNodesByLabel().get(n1.getLabel()) != n1) throw new NodeNotFoundException(n1);
+        if (getNodesByLabel().get(n2.getLabel()) != n2) throw new NodeNotFoundException(n2);
 
-        Transition transition = new Transition(n1, n2, transitionSymbol);
+        Symbol symbol = isEpsilon ? Symbol.EPSILON : symbolsByString.get(transitionSymbol);
+        Transition transition = new Transition(n1, n2, symbol);
         // Add the transition
-        if (!n1.getTransitions().contains(transition)) {
+        if (!n1.hasTransition(transition)) {
             // Add the transition to the node
             n1.addTransition(transition);
             // Add the transition to the Graph
             allTransitions.add(transition);
+
+            if (isEpsilon) epsilonTransitionCount++;
+            else countFanOut(n1, symbol);
+        }
+    }
+
+    /**
+     * Updates the fan-out counters with the current out-degree of a node over a symbol
+     */
+    private void countFanOut(Node node, Symbol symbol) {
+        int outDegree = node.getOutDegree(symbol);
+        maxFanOut = Math.max(maxFanOut, outDegree);
+
+        if (outDegree > 1 && nondeterministicSymbols.computeIfAbsent(node, n -> new LinkedHashSet<>()).add(symbol)) {
+            nondeterministicPairCount++;
         }
     }
 
@@ -156,6 +398,17 @@ public class Graph implements Serializable {
         connectNodes(label, label, transitionSymbol);
     }
 
+    /**
+     * Adds an epsilon transition from a source node to a destination node, which can be taken without consuming a
+     * symbol
+     *
+     * @param label1 The node in the graph with this label will be the source node
+     * @param label2 The node in the graph with this label will be the destination node
+     */
+    public void connectNodesByEpsilon(String label1, String label2) {
+        connectNodes(label1, label2, Symbol.EPSILON.toString());
+    }
+
     /**
      * Returns whether a node is in the graph
      *
@@ -163,35 +416,62 @@ public class Graph implements Serializable {
      * @return Weather a node with that label is in the graph
      */
     public boolean containsNode(String label) {
-        for (Node n : nodes) {
-            if (n.getLabel().equals(label)) return true;
-        }
-
-        return false;
+        return getNodesByLabel().containsKey(label);
     }
 
     /**
-     * Looks through all nodes in the graph and determines whether the graph is an NFA or not (a DFA).
+     * Determines whether the graph is an NFA or not (a DFA). It is an NFA if any node has more than one transition over
+     * the same symbol, or if there are any epsilon transitions. This takes O(1) time, the counts are kept up to date by
+     * {@link #connectNodes(String, String, String)}
      *
      * @return true if the graph is an NFA, false if not
      */
     public boolean isNFA() {
-        for (Node node : getNodes()) {
-            // Make a list of the symbols that this node transitions over
-            List<Symbol> transitionSymbols = new ArrayList<>();
-
-            for (Transition transition : node.getTransitions()) {
-                // If the symbol already exists then it is an NFA, otherwise add the symbol to the list and keep going
-                if (transitionSymbols.contains(transition.getSymbol())) {
-                    return true;
-                } else {
-                    transitionSymbols.add(transition.getSymbol());
-                }
-            }
-        }
+        return nondeterministicPairCount > 0 || epsilonTransitionCount > 0;
+    }
+
+    /**
+     * @return The nodes that have more than one transition over the same symbol, in the order they became
+     * nondeterministic. The set can't be modified
+     */
+    public Set<Node> getNondeterministicNodes() {
+        return Collections.unmodifiableSet(nondeterministicSymbols.keySet());
+    }
+
+    /**
+     * Gets the symbols that a node has more than one transition over
+     *
+     * @param label Label of the node
+     * @return The symbols, in the order they became nondeterministic. The set can't be modified
+     * @throws NodeNotFoundException If there is no node with that label
+     */
+    public Set<Symbol> getNondeterministicSymbols(String label) {
+        Set<Symbol> symbols = nondeterministicSymbols.get(getNode(label));
+        return symbols == null ? Collections.emptySet() : Collections.unmodifiableSet(symbols);
+    }
+
+    /**
+     * @return The number of (node, symbol) pairs with more than one transition
+     */
+    public int getNondeterministicPairCount() {
+        return nondeterministicPairCount;
+    }
 
-        // If there has been no duplicate symbols in any node then it isn't an NFA (it is a DFA)
-        return false;
+    /**
+     * @return The number of epsilon transitions in the graph
+     */
+    public int getEpsilonTransitionCount() {
+        return epsilonTransitionCount;
+    }
+
+    /**
+     * Gets the largest number of transitions any node has over a single symbol, not counting epsilon transitions. This
+     * bounds how many nodes one node can activate per symbol while testing a word
+     *
+     * @return The maximum fan-out, 0 if there are no transitions
+     */
+    public int getMaxFanOut() {
+        return maxFanOut;
     }
 
     /**
@@ -203,7 +483,43 @@ public class Graph implements Serializable {
 
         currentPositions = new ArrayList<>();
         currentPositions.add(getStartNode());
+        addEpsilonClosure(currentPositions, Collections.newSetFromMap(new IdentityHashMap<>()));
         currentlyTestingWord = true;
+
+        if (metricsRecorder != null) metricsRecorder.start(currentPositions.size());
+    }
+
+    /**
+     * Turns metrics on or off for the words tested with {@link #startTestingWord()}, {@link #stepTestingWord(String)}
+     * and {@link #endTestingWord()}. Metrics aren't copied into frozen snapshots of the graph or saved with it
+     *
+     * @param metrics Metrics to add the counts of every word to, or null to turn metrics off
+     */
+    public void setMetrics(MatchMetrics metrics) {
+        metricsRecorder = metrics == null ? null : new MetricsRecorder(metrics, "Graph");
+    }
+
+    /**
+     * @return The metrics words are counted in, or null if metrics are off
+     */
+    public MatchMetrics getMetrics() {
+        return metricsRecorder == null ? null : metricsRecorder.getMetrics();
+    }
+
+    /**
+     * Adds every node that can be reached from the given positions by epsilon transitions to the positions
+     *
+     * @param positions Positions to extend
+     * @param seen      Nodes that are already in <code>positions</code>
+     */
+    private static void addEpsilonClosure(List<Node> positions, Set<Node> seen) {
+        seen.addAll(positions);
+
+        for (int i = 0; i < positions.size(); i++) {
+            for (Node node : positions.get(i).getDestinationNodesAfterTransition(Symbol.EPSILON)) {
+                if (seen.add(node)) positions.add(node);
+            }
+        }
     }
 
     /**
@@ -213,24 +529,59 @@ public class Graph implements Serializable {
      * @param string String to apply to all current nodes
      */
     public void stepTestingWord(String string) {
+        Symbol symbol = symbolsByString.get(string);
+
+        // Strings outside the alphabet aren't interned, they're compared against every transition's symbol instead
+        if (symbol == null) stepTestingWord(Symbol.NO_ID, Symbol.fromString(string));
+        else stepTestingWord(symbol.getId(), symbol);
+    }
+
+    /**
+     * Passes a symbol through the automata, applying it to all current nodes. This is the same as
+     * {@link #stepTestingWord(String)}, but looking up the destinations by the id of the symbol is faster than by the
+     * string
+     *
+     * @param symbolId Id of the symbol to apply to all current nodes, see {@link #getSymbolId(String)}
+     * @throws SymbolNotFoundException If there is no symbol with that id
+     */
+    public void stepTestingWord(int symbolId) {
+        stepTestingWord(symbolId, getSymbol(symbolId));
+    }
+
+    private void stepTestingWord(int symbolId, Symbol symbol) {
         if (!currentlyTestingWord)
             throw new RuntimeException("startTestingWord must be called before inputting strings test");
 
         ArrayList<Node> newCurrentPositions = new ArrayList<>();
+        // Nodes that are already in newCurrentPositions. Without this, cycles in an NFA make the list grow exponentially
+        Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
         // Store the current positions so that we don't have to keep using the getter for it everytime we want to use it
         List<Node> currentPositionsLocal = getCurrentPositions();
 
+        int transitionsExamined = 0;
+
         // Go through all the current positions and apply the transition, if we land at any nodes, make them the current positions
         for (int i = currentPositionsLocal.size() - 1; i >= 0; i--) {
             Node currentNode = currentPositionsLocal.get(i);
             // Get the destination nodes after applying the transitions
-            List<Node> nodesAfterTransitions = currentNode.getDestinationNodesAfterTransition(Symbol.fromString(string));
-
-            if (!nodesAfterTransitions.isEmpty()) newCurrentPositions.addAll(nodesAfterTransitions);
+            List<Node> nodesAfterTransitions = symbolId == Symbol.NO_ID
+                    ? currentNode.getDestinationNodesAfterTransition(symbol)
+                    : currentNode.getDestinationNodesById(symbolId);
+            if (nodesAfterTransitions == null) continue;
+
+            transitionsExamined += nodesAfterTransitions.size();
+            for (Node node : nodesAfterTransitions) {
+                if (seen.add(node)) newCurrentPositions.add(node);
+            }
         }
 
+        // Any node reachable by epsilon transitions from where we landed is also a current position
+        addEpsilonClosure(newCurrentPositions, seen);
+
         // Set the current positions to the positions after the transitions
         currentPositions = newCurrentPositions;
+
+        if (metricsRecorder != null) metricsRecorder.step(transitionsExamined, newCurrentPositions.size());
     }
 
     /**
@@ -246,11 +597,16 @@ public class Graph implements Serializable {
     public boolean endTestingWord() {
         currentlyTestingWord = false;
 
+        boolean accepted = false;
         for (Node node : getCurrentPositions()) {
-            if (node.isAccepting()) return true;
+            if (node.isAccepting()) {
+                accepted = true;
+                break;
+            }
         }
 
-        return false;
+        if (metricsRecorder != null) metricsRecorder.end(accepted);
+        return accepted;
     }
 
     public List<Node> getCurrentPositions() {
@@ -300,11 +656,298 @@ public class Graph implements Serializable {
      * @throws NodeNotFoundException If the node isn't found
      */
     public Node getNode(String label) {
-        for (Node n : nodes) {
-            if (n.equals(label)) return n;
+        Node n = getNodesByLabel().get(label);
+        if (n == null) throw new NodeNotFoundException(label);
+
+        return n;
+    }
+
+    /**
+     * @return The alphabet the graph uses
+     */
+    public String[] getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Takes an immutable snapshot of the graph where the nodes and symbols are numbered densely. Changes made to the
+     * graph afterwards are not reflected in the snapshot
+     *
+     * @return Snapshot of the graph
+     */
+    public FrozenGraph freeze() {
+        return FrozenGraph.of(this);
+    }
+
+    /**
+     * Builds an equivalent graph without epsilon transitions. Every node gets the transitions of the nodes in its
+     * epsilon-closure and becomes accepting if any node in its closure is accepting. The nodes keep their labels
+     *
+     * @return The epsilon free graph
+     */
+    public Graph removeEpsilonTransitions() {
+        FrozenGraph frozen = freeze();
+        Graph g = new Graph(alphabet.clone());
+
+        for (int s = 0; s < frozen.getStateCount(); s++) {
+            boolean accepting = false;
+            for (int q : frozen.getEpsilonClosure(s)) accepting |= frozen.isAccepting(q);
+
+            g.addNode(new Node(frozen.getLabel(s), accepting));
+        }
+
+        for (int s = 0; s < frozen.getStateCount(); s++) {
+            for (int q : frozen.getEpsilonClosure(s)) {
+                for (int a = 0; a < frozen.getAlphabetSize(); a++) {
+                    for (int i = frozen.transitionsStart(q, a); i < frozen.transitionsEnd(q, a); i++) {
+                        g.connectNodes(frozen.getLabel(s), frozen.getLabel(frozen.target(i)), frozen.getSymbol(a));
+                    }
+                }
+            }
         }
 
-        throw new NodeNotFoundException(label);
+        if (frozen.getStartState() != FrozenGraph.NO_STATE) g.setStartNode(frozen.getLabel(frozen.getStartState()));
+
+        return g;
+    }
+
+    /**
+     * Builds a DFA that accepts the words accepted by both this graph and another. Only the pairs of nodes that can be
+     * reached from the pair of start nodes are created. The alphabet is this graph's alphabet followed by any symbols
+     * only the other graph has
+     *
+     * @param other Other graph
+     * @return The DFA
+     * @throws NoStartNodeException If either graph has no start node
+     * @see ProductAutomaton
+     */
+    public Graph intersection(Graph other) {
+        return freeze().intersection(other.freeze()).toGraph();
+    }
+
+    /**
+     * Builds a DFA that accepts the words accepted by either this graph or another. Only the pairs of nodes that can be
+     * reached from the pair of start nodes are created. The alphabet is this graph's alphabet followed by any symbols
+     * only the other graph has
+     *
+     * @param other Other graph
+     * @return The DFA
+     * @throws NoStartNodeException If either graph has no start node
+     * @see ProductAutomaton
+     */
+    public Graph union(Graph other) {
+        return freeze().union(other.freeze()).toGraph();
+    }
+
+    /**
+     * Builds a DFA that accepts the words accepted by this graph but not by another. Only the pairs of nodes that can
+     * be reached from the pair of start nodes are created. The alphabet is this graph's alphabet followed by any
+     * symbols only the other graph has
+     *
+     * @param other Other graph
+     * @return The DFA
+     * @throws NoStartNodeException If either graph has no start node
+     * @see ProductAutomaton
+     */
+    public Graph difference(Graph other) {
+        return freeze().difference(other.freeze()).toGraph();
+    }
+
+    /**
+     * Builds a DFA over the same alphabet that accepts exactly the words this graph doesn't. Missing transitions lead
+     * to an accepting sink node, which is only created if it can be reached
+     *
+     * @return The DFA
+     * @throws NoStartNodeException If the graph has no start node
+     * @see ProductAutomaton
+     */
+    public Graph complement() {
+        return freeze().complement().toGraph();
+    }
+
+    /**
+     * Checks whether this graph accepts exactly the same words as another, however differently the graphs are built.
+     * This takes near-linear time for DFAs
+     *
+     * @param other Other graph
+     * @return true if the graphs accept the same words
+     * @throws NoStartNodeException If either graph has no start node
+     * @see #findEquivalenceCounterexample(Graph)
+     */
+    public boolean isEquivalent(Graph other) {
+        return freeze().isEquivalent(other.freeze());
+    }
+
+    /**
+     * Finds a shortest word that shows this graph and another accept different words
+     *
+     * @param other Other graph
+     * @return The symbols of a shortest word accepted by exactly one of the graphs, or null if they are equivalent
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    public List<String> findEquivalenceCounterexample(Graph other) {
+        return freeze().findEquivalenceCounterexample(other.freeze());
+    }
+
+    /**
+     * Checks whether every word this graph accepts is also accepted by another
+     *
+     * @param other Other graph
+     * @return true if the words accepted by this graph are a subset of the words accepted by the other
+     * @throws NoStartNodeException If either graph has no start node
+     * @see #findSubsetCounterexample(Graph)
+     */
+    public boolean isSubsetOf(Graph other) {
+        return freeze().isSubsetOf(other.freeze());
+    }
+
+    /**
+     * Finds a shortest word that shows this graph accepts a word another doesn't
+     *
+     * @param other Other graph
+     * @return The symbols of a shortest word accepted by this graph but not the other, or null if there is none
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    public List<String> findSubsetCounterexample(Graph other) {
+        return freeze().findSubsetCounterexample(other.freeze());
+    }
+
+    /**
+     * @return Whether the graph accepts no words at all, i.e. no accepting node can be reached from the start node
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public boolean isLanguageEmpty() {
+        return freeze().isLanguageEmpty();
+    }
+
+    /**
+     * Finds a shortest word the graph accepts
+     *
+     * @return The symbols of the word, or null if no word is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public List<String> findShortestWord() {
+        return freeze().findShortestWord();
+    }
+
+    /**
+     * Counts how many different words of a length the graph accepts. Very large lengths are handled with O(log n)
+     * matrix products instead of looking at every word
+     *
+     * @param length Number of symbols in the words to count
+     * @return The number of accepted words of that length
+     * @throws NoStartNodeException     If the graph has no start node
+     * @throws IllegalArgumentException If the length is negative
+     */
+    public BigInteger countWords(long length) {
+        return freeze().countWords(length);
+    }
+
+    /**
+     * Converts the graph into a regular expression that matches exactly the words it accepts. The expression uses the
+     * syntax of {@link #fromRegex(String, String[], RegexConstruction)}, so it can be turned back into a graph
+     *
+     * @return The regular expression, or null if no word is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     * @see StateElimination
+     */
+    public String toRegex() {
+        return freeze().toRegex();
+    }
+
+    /**
+     * Builds the minimal DFA that accepts the same words as this graph using Hopcroft's algorithm. Equivalent nodes are
+     * merged, and nodes that can't be reached from the start node or can never lead to an accepting node are removed.
+     * Each node in the minimal DFA takes the label of one of the nodes it was merged from
+     *
+     * @return The minimal DFA and the number of nodes that were merged or removed
+     * @throws NotDeterministicException If the graph is an NFA
+     * @throws NoStartNodeException      If the graph has no start node
+     */
+    public MinimizationResult minimize() {
+        return HopcroftMinimizer.minimize(freeze());
+    }
+
+    /**
+     * Creates a matching session over a snapshot of the graph. Unlike {@link #startTestingWord()}, the matching state is
+     * kept in the session, so several sessions can test words at once. Changes made to the graph afterwards are not
+     * seen by the session
+     *
+     * @return The matcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public Matcher matcher() {
+        return freeze().matcher();
+    }
+
+    /**
+     * Tests a batch of words against a snapshot of the graph, split across all cores. This gives the same results as
+     * testing each word with {@link #startTestingWord()}, {@link #stepTestingWord(String)} and
+     * {@link #endTestingWord()}
+     *
+     * @param words Words to test. Every character of a word is treated as a single character symbol
+     * @return A bitset where bit i is set if word i is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public BitSet acceptsAll(List<? extends CharSequence> words) {
+        return freeze().acceptsAll(words);
+    }
+
+    /**
+     * Compiles the graph into a table driven matcher that tests words without allocating. The graph must be a DFA
+     *
+     * @return The compiled matcher
+     * @throws NotDeterministicException If the graph is an NFA
+     * @throws NoStartNodeException      If the graph has no start node
+     */
+    public CompiledDFA compile() {
+        return freeze().compile();
+    }
+
+    /**
+     * Creates a matcher that determinizes the graph lazily as words are tested. Unlike {@link #compile()} this works
+     * for NFAs, and only the DFA states that the input actually reaches are ever built
+     *
+     * @return The lazy matcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public LazyDFA lazyDFA() {
+        return freeze().lazyDFA();
+    }
+
+    /**
+     * Creates a matcher over a snapshot of the graph that tests whole streams, files and channels as single words in
+     * constant memory, without creating a string per symbol
+     *
+     * @return The stream matcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public StreamMatcher streamMatcher() {
+        return freeze().streamMatcher();
+    }
+
+    /**
+     * Creates a searcher over a snapshot of the graph that finds every offset in a text where an accepted substring
+     * ends, in a single pass over the text
+     *
+     * @return The searcher
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public TextSearcher searcher() {
+        return freeze().searcher();
+    }
+
+    /**
+     * Creates a matcher that numbers the nodes densely and simulates the graph with the active nodes kept as a bitset,
+     * so every node is active at most once per step
+     *
+     * @return The bit parallel matcher
+     * @throws NoStartNodeException  If the graph has no start node
+     * @throws IllegalStateException If the graph has too many nodes for the bitsets of every state and symbol to fit
+     *                               in one array
+     */
+    public BitParallelNFA bitParallelNFA() {
+        return freeze().bitParallelNFA();
     }
 
     public String toString() {
@@ -317,17 +960,21 @@ public class Graph implements Serializable {
         return s.toString();
     }
 
+    /**
+     * The transitions are compared regardless of the order they were added in, since a graph loaded from a file gets
+     * its transitions back grouped by node and symbol
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Graph graph = (Graph) o;
-        return currentlyTestingWord == graph.currentlyTestingWord && nodes.equals(graph.nodes) && Objects.equals(currentPositions, graph.currentPositions) && allTransitions.equals(graph.allTransitions) && Arrays.equals(alphabet, graph.alphabet) && Objects.equals(startNode, graph.startNode);
+        return currentlyTestingWord == graph.currentlyTestingWord && nodes.equals(graph.nodes) && Objects.equals(currentPositions, graph.currentPositions) && allTransitions.size() == graph.allTransitions.size() && new HashSet<>(allTransitions).equals(new HashSet<>(graph.allTransitions)) && Arrays.equals(alphabet, graph.alphabet) && Objects.equals(startNode, graph.startNode);
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(nodes, currentPositions, currentlyTestingWord, allTransitions, startNode);
+        int result = Objects.hash(nodes, currentPositions, currentlyTestingWord, new HashSet<>(allTransitions), startNode);
         result = 31 * result + Arrays.hashCode(alphabet);
         return result;
     }
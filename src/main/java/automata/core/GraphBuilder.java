@@ -0,0 +1,363 @@
+package automata.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Builds a {@link FrozenGraph} from nodes and transitions given in bulk, without creating a {@link Node} or
+ * {@link Transition} object for each of them.
+ * <p>
+ * Labels are interned into dense state ids as they are seen, and a node named by a transition that hasn't been added
+ * yet is added as a non accepting node. Each transition is stored as one packed <code>long</code>: the
+ * <code>(state, symbol)</code> bucket it belongs in above the destination state. {@link #build()} sorts the packed
+ * transitions once, which groups them into the buckets of the compressed-sparse-row arrays of the frozen graph in
+ * order. The same pass over the sorted transitions checks the states, drops duplicates and counts each bucket, so
+ * building takes <code>O(E log E)</code> time with no per transition objects.
+ * <p>
+ * Transitions can also be given by state id and symbol id, which skips interning the labels altogether. State ids are
+ * numbered in the order the nodes were added, and symbol ids are positions in the alphabet, with {@link #EPSILON} for an
+ * epsilon transition.
+ */
+public final class GraphBuilder {
+    /**
+     * Symbol id of an epsilon transition
+     */
+    public static final int EPSILON = -1;
+
+    private final String[] alphabet;
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+
+    private final List<String> labels = new ArrayList<>();
+    private final Map<String, Integer> stateIds = new HashMap<>();
+    private final BitSet accepting = new BitSet();
+
+    /**
+     * The states added with {@link #addNode}, as opposed to ones only named by a transition, start node or accepting
+     * node so far
+     */
+    private final BitSet added = new BitSet();
+    private int startState = FrozenGraph.NO_STATE;
+
+    /**
+     * The transitions added so far, packed by {@link #pack}. After {@link #build()} they are sorted with no duplicates
+     */
+    private long[] transitions = new long[16];
+    private int transitionCount;
+
+    /**
+     * Number of buckets per state, one for each symbol after the epsilon bucket
+     */
+    private final int bucketsPerState;
+
+    /**
+     * Instantiates a builder with an alphabet and no nodes
+     *
+     * @param alphabet The alphabet the graph will use
+     */
+    public GraphBuilder(String[] alphabet) {
+        this.alphabet = alphabet.clone();
+        for (int i = 0; i < alphabet.length; i++) symbolIds.putIfAbsent(alphabet[i], i);
+
+        bucketsPerState = alphabet.length + 1;
+    }
+
+    /**
+     * Adds a non accepting node. A node that has only been named by a transition can still be added, it keeps its state
+     * id
+     *
+     * @param label Label of the node
+     * @return The state id of the node
+     * @throws LabelAlreadyExistsException If a node with the label has already been added
+     */
+    public int addNode(String label) {
+        return addNode(label, false);
+    }
+
+    /**
+     * Adds a node. A node that has only been named by a transition, {@link #setStartNode} or
+     * {@link #makeNodeAccepting} can still be added, it keeps its state id, so the accepting nodes can be declared after
+     * streaming in the transitions
+     *
+     * @param label     Label of the node
+     * @param accepting Whether the node is accepting
+     * @return The state id of the node
+     * @throws LabelAlreadyExistsException If a node with the label has already been added
+     */
+    public int addNode(String label, boolean accepting) {
+        int state = intern(label);
+        if (added.get(state)) throw new LabelAlreadyExistsException(label);
+
+        added.set(state);
+        if (accepting) this.accepting.set(state);
+
+        return state;
+    }
+
+    /**
+     * Adds a non accepting node for each label
+     *
+     * @param labels Labels of the nodes
+     * @throws LabelAlreadyExistsException If a node with one of the labels has already been added
+     */
+    public void addNodes(String[] labels) {
+        for (String label : labels) addNode(label);
+    }
+
+    /**
+     * Adds a non accepting node for each label in a stream
+     *
+     * @param labels Labels of the nodes
+     * @throws LabelAlreadyExistsException If a node with one of the labels has already been added
+     */
+    public void addNodes(Stream<String> labels) {
+        labels.forEachOrdered(this::addNode);
+    }
+
+    /**
+     * Sets the start node, adding it if it hasn't been added
+     *
+     * @param label Label of the start node
+     */
+    public void setStartNode(String label) {
+        startState = intern(label);
+    }
+
+    /**
+     * Sets the start node by its state id. The state must have been added by the time the graph is built
+     *
+     * @param state State id of the start node
+     */
+    public void setStartState(int state) {
+        checkState(state);
+        startState = state;
+    }
+
+    /**
+     * Makes a node accepting, adding it if it hasn't been added
+     *
+     * @param label Label of the node
+     */
+    public void makeNodeAccepting(String label) {
+        accepting.set(intern(label));
+    }
+
+    /**
+     * Makes a node accepting by its state id. The state must have been added by the time the graph is built
+     *
+     * @param state State id of the node
+     */
+    public void makeStateAccepting(int state) {
+        checkState(state);
+        accepting.set(state);
+    }
+
+    /**
+     * Adds a transition, adding the source and destination nodes if they haven't been added. Adding a transition that
+     * already exists does nothing
+     *
+     * @param label1           Label of the source node
+     * @param label2           Label of the destination node
+     * @param transitionSymbol Symbol of the transition, or the empty string for an epsilon transition
+     * @throws SymbolNotFoundException If the symbol isn't in the alphabet
+     */
+    public void addTransition(String label1, String label2, String transitionSymbol) {
+        int symbol = symbolId(transitionSymbol);
+        add(pack(intern(label1), symbol, intern(label2)));
+    }
+
+    /**
+     * Adds a transition between states by their ids. The states must have been added by the time the graph is built
+     *
+     * @param source      State id of the source node
+     * @param destination State id of the destination node
+     * @param symbolId    Position of the symbol in the alphabet, or {@link #EPSILON}
+     * @throws SymbolNotFoundException If there is no symbol with that id
+     */
+    public void addTransition(int source, int destination, int symbolId) {
+        checkState(source);
+        checkState(destination);
+        if (symbolId < EPSILON || symbolId >= alphabet.length) {
+            throw new SymbolNotFoundException(String.valueOf(symbolId));
+        }
+
+        add(pack(source, symbolId, destination));
+    }
+
+    /**
+     * Adds the transitions <code>labels1[i] -> labels2[i]</code> over <code>symbols[i]</code>, see
+     * {@link #addTransition(String, String, String)}
+     */
+    public void addTransitions(String[] labels1, String[] labels2, String[] symbols) {
+        checkLengths(labels1.length, labels2.length, symbols.length);
+
+        reserve(labels1.length);
+        for (int i = 0; i < labels1.length; i++) addTransition(labels1[i], labels2[i], symbols[i]);
+    }
+
+    /**
+     * Adds the transitions <code>sources[i] -> destinations[i]</code> over <code>symbolIds[i]</code>, see
+     * {@link #addTransition(int, int, int)}
+     */
+    public void addTransitions(int[] sources, int[] destinations, int[] symbolIds) {
+        checkLengths(sources.length, destinations.length, symbolIds.length);
+
+        reserve(sources.length);
+        for (int i = 0; i < sources.length; i++) addTransition(sources[i], destinations[i], symbolIds[i]);
+    }
+
+    /**
+     * Adds a stream of transitions, each given as the array <code>{label1, label2, symbol}</code>, see
+     * {@link #addTransition(String, String, String)}
+     */
+    public void addTransitions(Stream<String[]> transitions) {
+        transitions.forEachOrdered(t -> {
+            checkLengths(t.length, 3, 3);
+            addTransition(t[0], t[1], t[2]);
+        });
+    }
+
+    /**
+     * @return The number of nodes added so far
+     */
+    public int getStateCount() {
+        return labels.size();
+    }
+
+    /**
+     * Gets the state id of a node that has been added
+     *
+     * @param label Label of the node
+     * @return The state id of the node
+     * @throws NodeNotFoundException If no node with the label has been added
+     */
+    public int getStateId(String label) {
+        Integer state = stateIds.get(label);
+        if (state == null) throw new NodeNotFoundException(label);
+
+        return state;
+    }
+
+    /**
+     * Builds the graph from everything added so far. The builder can still be used afterwards, and later graphs it
+     * builds include the transitions of this one
+     *
+     * @return The frozen graph
+     * @throws NodeNotFoundException If a start node, accepting node or transition refers to a state id that hasn't
+     *                               been added
+     */
+    public FrozenGraph build() {
+        int stateCount = labels.size();
+        int alphabetSize = alphabet.length;
+        if ((long) stateCount * alphabetSize + 1 > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many nodes for an alphabet of " + alphabetSize + " symbols");
+        }
+        if (startState >= stateCount) throw new NodeNotFoundException(String.valueOf(startState));
+        if (accepting.length() > stateCount) throw new NodeNotFoundException(String.valueOf(accepting.length() - 1));
+
+        Arrays.parallelSort(transitions, 0, transitionCount);
+
+        // Drop the duplicates, check the states and count the transitions in each bucket in one pass
+        int[] offsets = new int[stateCount * alphabetSize + 1];
+        int[] epsilonOffsets = new int[stateCount + 1];
+        int unique = 0;
+        for (int i = 0; i < transitionCount; i++) {
+            long transition = transitions[i];
+            if (unique > 0 && transitions[unique - 1] == transition) continue;
+            transitions[unique++] = transition;
+
+            int bucket = (int) (transition >>> 32), destination = (int) transition;
+            int source = bucket / bucketsPerState, symbol = bucket % bucketsPerState - 1;
+            if (source >= stateCount) throw new NodeNotFoundException(String.valueOf(source));
+            if (destination >= stateCount) throw new NodeNotFoundException(String.valueOf(destination));
+
+            if (symbol == EPSILON) epsilonOffsets[source + 1]++;
+            else offsets[source * alphabetSize + symbol + 1]++;
+        }
+        transitionCount = unique;
+
+        for (int i = 1; i < offsets.length; i++) offsets[i] += offsets[i - 1];
+        for (int i = 1; i < epsilonOffsets.length; i++) epsilonOffsets[i] += epsilonOffsets[i - 1];
+
+        // The transitions are sorted by bucket, so the destinations are already in the order of the offsets
+        int[] targets = new int[offsets[offsets.length - 1]];
+        int[] epsilonTargets = new int[epsilonOffsets[epsilonOffsets.length - 1]];
+        for (int i = 0, t = 0, e = 0; i < transitionCount; i++) {
+            long transition = transitions[i];
+            if ((int) (transition >>> 32) % bucketsPerState == 0) epsilonTargets[e++] = (int) transition;
+            else targets[t++] = (int) transition;
+        }
+
+        return new FrozenGraph(alphabet.clone(), labels.toArray(new String[0]), startState, (BitSet) accepting.clone(),
+                offsets, targets, epsilonOffsets, epsilonTargets);
+    }
+
+    /**
+     * @return The state id of a label, adding a non accepting node if it hasn't been added
+     */
+    private int intern(String label) {
+        Integer state = stateIds.get(label);
+        if (state != null) return state;
+
+        stateIds.put(label, labels.size());
+        labels.add(label);
+        return labels.size() - 1;
+    }
+
+    private int symbolId(String symbol) {
+        if (symbol.equals(Symbol.EPSILON.toString())) return EPSILON;
+
+        Integer id = symbolIds.get(symbol);
+        if (id == null) throw new SymbolNotFoundException(symbol);
+
+        return id;
+    }
+
+    /**
+     * Packs a transition so that sorting the packed transitions sorts them by source, then symbol with epsilon first,
+     * then destination
+     */
+    private long pack(int source, int symbol, int destination) {
+        long bucket = (long) source * bucketsPerState + symbol + 1;
+        if (bucket > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many nodes for an alphabet of " + alphabet.length + " symbols");
+        }
+
+        return bucket << 32 | destination;
+    }
+
+    private void add(long transition) {
+        if (transitionCount == transitions.length) reserve(1);
+        transitions[transitionCount++] = transition;
+    }
+
+    /**
+     * Makes room for some more transitions
+     */
+    private void reserve(int extra) {
+        long needed = (long) transitionCount + extra;
+        if (needed <= transitions.length) return;
+        if (needed > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too many transitions");
+
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, transitions.length * 3L / 2));
+        transitions = Arrays.copyOf(transitions, capacity);
+    }
+
+    /**
+     * State ids can't be checked against the number of nodes until the graph is built, since the nodes can be added
+     * after the transitions
+     */
+    private static void checkState(int state) {
+        if (state < 0) throw new NodeNotFoundException(String.valueOf(state));
+    }
+
+    private static void checkLengths(int length1, int length2, int length3) {
+        if (length1 != length2 || length2 != length3) {
+            throw new IllegalArgumentException("Every transition needs a source, a destination and a symbol");
+        }
+    }
+}
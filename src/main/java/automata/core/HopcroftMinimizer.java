@@ -0,0 +1,284 @@
+package automata.core;
+
+import java.util.Arrays;
+
+/**
+ * Minimizes a DFA with Hopcroft's partition refinement algorithm, which runs in O(n k log n) time for n states and k
+ * symbols.
+ * <p>
+ * Only states reachable from the start state are considered. Missing transitions go to an implicit sink state, so the
+ * states that can never reach an accepting state end up in the same block as the sink and are left out of the result.
+ * <p>
+ * The partition is stored as a permutation of the states in which every block is a contiguous range. When a block is
+ * split, the smaller half becomes the new block, so a state changes block O(log n) times and only the new block has to
+ * be added to the worklist.
+ */
+final class HopcroftMinimizer {
+    private final FrozenGraph graph;
+    private final int alphabetSize;
+
+    /**
+     * Number of reachable states plus one for the sink, which is always the last state
+     */
+    private int states;
+    private int sink;
+
+    /**
+     * Reachable state id -> state id in the frozen graph
+     */
+    private int[] original;
+
+    /**
+     * The states that reach state t over symbol a are
+     * <code>predecessors[predecessorOffsets[t * alphabetSize + a]]</code> up to (but not including)
+     * <code>predecessors[predecessorOffsets[t * alphabetSize + a + 1]]</code>
+     */
+    private int[] predecessorOffsets;
+    private int[] predecessors;
+
+    // The partition
+    private int[] elements;
+    private int[] location;
+    private int[] blockOf;
+    private int[] blockStart;
+    private int[] blockEnd;
+    private int[] markedEnd;
+    private int blockCount;
+
+    private HopcroftMinimizer(FrozenGraph graph) {
+        this.graph = graph;
+        this.alphabetSize = graph.getAlphabetSize();
+    }
+
+    /**
+     * Minimizes a DFA
+     *
+     * @param graph DFA to minimize
+     * @return The minimal DFA and the number of states removed
+     * @throws NotDeterministicException If the graph is an NFA
+     * @throws NoStartNodeException      If the graph has no start node
+     */
+    static MinimizationResult minimize(FrozenGraph graph) {
+        if (!graph.isDeterministic()) throw new NotDeterministicException();
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        HopcroftMinimizer minimizer = new HopcroftMinimizer(graph);
+        int[] next = minimizer.findReachableStates();
+        minimizer.buildPredecessors(next);
+        minimizer.refine();
+
+        Graph minimal = minimizer.buildGraph(next);
+        return new MinimizationResult(minimal, graph.getStateCount() - minimal.getNodes().size());
+    }
+
+    /**
+     * Numbers the states reachable from the start state, with the start state as 0 and the sink as the last state
+     *
+     * @return The completed transition table of the reachable states, <code>next[s * alphabetSize + a]</code>
+     */
+    private int[] findReachableStates() {
+        int[] renumbered = new int[graph.getStateCount()];
+        Arrays.fill(renumbered, -1);
+        original = new int[graph.getStateCount()];
+
+        int count = 0;
+        renumbered[graph.getStartState()] = count;
+        original[count++] = graph.getStartState();
+        for (int i = 0; i < count; i++) {
+            int s = original[i];
+            for (int a = 0; a < alphabetSize; a++) {
+                int start = graph.transitionsStart(s, a);
+                if (start == graph.transitionsEnd(s, a)) continue;
+
+                int t = graph.target(start);
+                if (renumbered[t] == -1) {
+                    renumbered[t] = count;
+                    original[count++] = t;
+                }
+            }
+        }
+
+        sink = count;
+        states = count + 1;
+
+        int[] next = new int[states * alphabetSize];
+        for (int i = 0; i < count; i++) {
+            int s = original[i];
+            for (int a = 0; a < alphabetSize; a++) {
+                int start = graph.transitionsStart(s, a);
+                boolean missing = start == graph.transitionsEnd(s, a);
+                next[i * alphabetSize + a] = missing ? sink : renumbered[graph.target(start)];
+            }
+        }
+        for (int a = 0; a < alphabetSize; a++) next[sink * alphabetSize + a] = sink;
+
+        return next;
+    }
+
+    private void buildPredecessors(int[] next) {
+        predecessorOffsets = new int[states * alphabetSize + 1];
+        for (int s = 0; s < states; s++) {
+            for (int a = 0; a < alphabetSize; a++) {
+                predecessorOffsets[next[s * alphabetSize + a] * alphabetSize + a + 1]++;
+            }
+        }
+        for (int i = 1; i < predecessorOffsets.length; i++) predecessorOffsets[i] += predecessorOffsets[i - 1];
+
+        predecessors = new int[states * alphabetSize];
+        int[] fill = Arrays.copyOf(predecessorOffsets, predecessorOffsets.length - 1);
+        for (int s = 0; s < states; s++) {
+            for (int a = 0; a < alphabetSize; a++) {
+                predecessors[fill[next[s * alphabetSize + a] * alphabetSize + a]++] = s;
+            }
+        }
+    }
+
+    private boolean isAccepting(int state) {
+        return state != sink && graph.isAccepting(original[state]);
+    }
+
+    private void refine() {
+        elements = new int[states];
+        location = new int[states];
+        blockOf = new int[states];
+        blockStart = new int[states];
+        blockEnd = new int[states];
+        markedEnd = new int[states];
+
+        // Start with the accepting states in block 0 and the rest in block 1
+        int front = 0;
+        int back = states;
+        for (int s = 0; s < states; s++) {
+            int index = isAccepting(s) ? front++ : --back;
+            elements[index] = s;
+            location[s] = index;
+        }
+
+        int[] worklist = new int[states];
+        int worklistSize = 0;
+
+        if (front == 0 || front == states) {
+            // Only one block, nothing can be split
+            blockCount = 1;
+            blockEnd[0] = states;
+            return;
+        }
+
+        blockCount = 2;
+        blockStart[0] = 0;
+        blockEnd[0] = front;
+        blockStart[1] = front;
+        blockEnd[1] = states;
+        for (int s = 0; s < states; s++) blockOf[s] = location[s] < front ? 0 : 1;
+        markedEnd[0] = blockStart[0];
+        markedEnd[1] = blockStart[1];
+        worklist[worklistSize++] = front <= states - front ? 0 : 1;
+
+        int[] splitter = new int[states];
+        int[] touched = new int[states];
+        while (worklistSize > 0) {
+            int block = worklist[--worklistSize];
+
+            // Copy the splitter, the block itself may be split while it's being used
+            int splitterSize = blockEnd[block] - blockStart[block];
+            System.arraycopy(elements, blockStart[block], splitter, 0, splitterSize);
+
+            for (int a = 0; a < alphabetSize; a++) {
+                int touchedCount = 0;
+
+                for (int i = 0; i < splitterSize; i++) {
+                    int bucket = splitter[i] * alphabetSize + a;
+                    for (int j = predecessorOffsets[bucket]; j < predecessorOffsets[bucket + 1]; j++) {
+                        int p = predecessors[j];
+                        int b = blockOf[p];
+                        if (location[p] < markedEnd[b]) continue;
+
+                        if (markedEnd[b] == blockStart[b]) touched[touchedCount++] = b;
+                        swap(location[p], markedEnd[b]++);
+                    }
+                }
+
+                for (int i = 0; i < touchedCount; i++) {
+                    int b = touched[i];
+                    int marked = markedEnd[b] - blockStart[b];
+                    int unmarked = blockEnd[b] - markedEnd[b];
+
+                    if (unmarked == 0) {
+                        markedEnd[b] = blockStart[b];
+                        continue;
+                    }
+
+                    // The smaller half becomes the new block
+                    int newBlock = blockCount++;
+                    if (marked <= unmarked) {
+                        blockStart[newBlock] = blockStart[b];
+                        blockEnd[newBlock] = markedEnd[b];
+                        blockStart[b] = markedEnd[b];
+                    } else {
+                        blockStart[newBlock] = markedEnd[b];
+                        blockEnd[newBlock] = blockEnd[b];
+                        blockEnd[b] = markedEnd[b];
+                    }
+                    markedEnd[b] = blockStart[b];
+                    markedEnd[newBlock] = blockStart[newBlock];
+
+                    for (int j = blockStart[newBlock]; j < blockEnd[newBlock]; j++) blockOf[elements[j]] = newBlock;
+
+                    // Whether or not b is already waiting, adding the smaller half is enough
+                    worklist[worklistSize++] = newBlock;
+                }
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int si = elements[i];
+        int sj = elements[j];
+        elements[i] = sj;
+        elements[j] = si;
+        location[sj] = i;
+        location[si] = j;
+    }
+
+    /**
+     * Creates a node for every block except the sink's, labelled with the label of the block's first state
+     */
+    private Graph buildGraph(int[] next) {
+        int sinkBlock = blockOf[sink];
+        int startBlock = blockOf[0];
+
+        // Number the blocks in the order their first state was reached, so the start state's block comes first
+        int[] blockIds = new int[blockCount];
+        Arrays.fill(blockIds, -1);
+        int[] representatives = new int[blockCount];
+        int nodeCount = 0;
+        for (int s = 0; s < sink; s++) {
+            int b = blockOf[s];
+            if (blockIds[b] != -1 || (b == sinkBlock && b != startBlock)) continue;
+
+            blockIds[b] = nodeCount;
+            representatives[nodeCount++] = s;
+        }
+
+        String[] labels = new String[nodeCount];
+        Graph g = new Graph(graph.getAlphabet());
+        for (int i = 0; i < nodeCount; i++) {
+            labels[i] = graph.getLabel(original[representatives[i]]);
+            g.addNode(new Node(labels[i], isAccepting(representatives[i])));
+        }
+
+        for (int i = 0; i < nodeCount; i++) {
+            int s = representatives[i];
+            for (int a = 0; a < alphabetSize; a++) {
+                int b = blockOf[next[s * alphabetSize + a]];
+                if (b == sinkBlock) continue;
+
+                g.connectNodes(labels[i], labels[blockIds[b]], graph.getSymbol(a));
+            }
+        }
+
+        g.setStartNode(labels[0]);
+
+        return g;
+    }
+}
@@ -0,0 +1,13 @@
+package automata.core;
+
+import java.io.IOException;
+
+/**
+ * This exception is thrown when a file being loaded as an automaton isn't in the binary automaton format, was written
+ * by an unsupported version of it, or is corrupted
+ */
+public class InvalidAutomatonFileException extends IOException {
+    InvalidAutomatonFileException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,311 @@
+package automata.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Compares the languages of two graphs, finding a shortest word that shows they differ.
+ * <p>
+ * Equivalence uses Hopcroft and Karp's algorithm: pairs of states are explored breadth first from the pair of start
+ * states, and pairs are merged with union-find as they are assumed equivalent, so a pair is only explored if its states
+ * haven't already been merged through other pairs. On DFAs this is near-linear in the size of the graphs. NFAs are
+ * determinized on the fly with the subset construction.
+ * <p>
+ * Inclusion uses an antichain: pairs of a state of the first graph and a set of states of the second graph (the subset
+ * construction) are explored breadth first, and a pair is skipped if a pair with the same state and a subset of its set
+ * has already been explored, since any word that proves the check false from it also does from the smaller pair. When
+ * the second graph is a DFA every set has at most one state, so skipping is a hash lookup.
+ * <p>
+ * Both searches are breadth first, so the counterexample they find is as short as possible.
+ */
+final class LanguageComparison {
+    private LanguageComparison() {
+    }
+
+    /**
+     * Finds a shortest word accepted by exactly one of two graphs
+     *
+     * @return The symbols of the word, or null if the graphs accept the same words
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    static List<String> findEquivalenceCounterexample(FrozenGraph first, FrozenGraph second) {
+        checkStartStates(first, second);
+
+        String[] alphabet = ProductAutomaton.mergeAlphabets(first, second);
+        int[] firstSymbolIds = symbolIds(first, alphabet);
+        int[] secondSymbolIds = symbolIds(second, alphabet);
+        SparseSet firstNext = new SparseSet(first.getStateCount());
+        SparseSet secondNext = new SparseSet(second.getStateCount());
+
+        // Sets of states of each graph are numbered in one union-find
+        Map<StateSet, Integer> firstIds = new HashMap<>();
+        Map<StateSet, Integer> secondIds = new HashMap<>();
+        UnionFind sets = new UnionFind();
+
+        Search search = new Search();
+        StateSet firstStart = ProductAutomaton.closure(first, first.getStartState());
+        StateSet secondStart = ProductAutomaton.closure(second, second.getStartState());
+        if (ProductAutomaton.isAccepting(first, firstStart) != ProductAutomaton.isAccepting(second, secondStart)) {
+            return Collections.emptyList();
+        }
+        sets.union(id(firstIds, firstStart, sets), id(secondIds, secondStart, sets));
+        search.add(firstStart, secondStart, -1, -1);
+
+        for (int i = 0; i < search.size(); i++) {
+            StateSet firstSet = search.firstSets.get(i);
+            StateSet secondSet = search.secondSets.get(i);
+
+            for (int a = 0; a < alphabet.length; a++) {
+                StateSet firstTarget = ProductAutomaton.move(first, firstSet, firstSymbolIds[a], firstNext);
+                StateSet secondTarget = ProductAutomaton.move(second, secondSet, secondSymbolIds[a], secondNext);
+
+                if (!sets.union(id(firstIds, firstTarget, sets), id(secondIds, secondTarget, sets))) continue;
+
+                search.add(firstTarget, secondTarget, i, a);
+                if (ProductAutomaton.isAccepting(first, firstTarget)
+                        != ProductAutomaton.isAccepting(second, secondTarget)) {
+                    return search.word(search.size() - 1, alphabet);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds a shortest word accepted by the first graph but not the second
+     *
+     * @return The symbols of the word, or null if every word the first graph accepts is accepted by the second
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    static List<String> findInclusionCounterexample(FrozenGraph first, FrozenGraph second) {
+        checkStartStates(first, second);
+
+        String[] alphabet = ProductAutomaton.mergeAlphabets(first, second);
+        int[] firstSymbolIds = symbolIds(first, alphabet);
+        int[] secondSymbolIds = symbolIds(second, alphabet);
+        SparseSet secondNext = new SparseSet(second.getStateCount());
+
+        // The explored sets for every state of the first graph, as an exact set and as a list to check subsets against.
+        // Sets with one state only need the exact check, their only other subset is the empty set, so when the second
+        // graph is a DFA the list is never scanned
+        Set<Pair> explored = new HashSet<>();
+        List<List<StateSet>> antichains = new ArrayList<>();
+        for (int s = 0; s < first.getStateCount(); s++) antichains.add(new ArrayList<>());
+
+        Search search = new Search();
+        StateSet secondStart = ProductAutomaton.closure(second, second.getStartState());
+        boolean secondStartAccepting = ProductAutomaton.isAccepting(second, secondStart);
+        for (int state : first.getEpsilonClosure(first.getStartState())) {
+            if (first.isAccepting(state) && !secondStartAccepting) return Collections.emptyList();
+
+            explore(state, secondStart, explored, antichains);
+            search.add(new StateSet(new int[]{state}), secondStart, -1, -1);
+        }
+
+        for (int i = 0; i < search.size(); i++) {
+            int state = search.firstSets.get(i).states[0];
+            StateSet secondSet = search.secondSets.get(i);
+
+            for (int a = 0; a < alphabet.length; a++) {
+                if (firstSymbolIds[a] == -1) continue;
+
+                int start = first.transitionsStart(state, firstSymbolIds[a]);
+                int end = first.transitionsEnd(state, firstSymbolIds[a]);
+                if (start == end) continue;
+
+                StateSet secondTarget = ProductAutomaton.move(second, secondSet, secondSymbolIds[a], secondNext);
+                boolean secondAccepting = ProductAutomaton.isAccepting(second, secondTarget);
+
+                for (int t = start; t < end; t++) {
+                    int target = first.target(t);
+                    for (int c = first.closureStart(target), last = first.closureEnd(target); c < last; c++) {
+                        int firstTarget = first.closureState(c);
+                        if (isCovered(firstTarget, secondTarget, explored, antichains)) continue;
+
+                        explore(firstTarget, secondTarget, explored, antichains);
+                        search.add(new StateSet(new int[]{firstTarget}), secondTarget, i, a);
+                        if (first.isAccepting(firstTarget) && !secondAccepting) {
+                            return search.word(search.size() - 1, alphabet);
+                        }
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return Whether a pair with the same state and a subset of the set has already been explored
+     */
+    private static boolean isCovered(int state, StateSet set, Set<Pair> explored, List<List<StateSet>> antichains) {
+        if (explored.contains(new Pair(state, set))) return true;
+        if (set.states.length == 0) return false;
+        if (explored.contains(new Pair(state, ProductAutomaton.EMPTY))) return true;
+        if (set.states.length == 1) return false;
+
+        for (StateSet smaller : antichains.get(state)) {
+            if (isSubset(smaller, set)) return true;
+        }
+
+        return false;
+    }
+
+    private static void explore(int state, StateSet set, Set<Pair> explored, List<List<StateSet>> antichains) {
+        explored.add(new Pair(state, set));
+        if (set.states.length > 0) antichains.get(state).add(set);
+    }
+
+    /**
+     * @return Whether every state of the first sorted set is in the second
+     */
+    private static boolean isSubset(StateSet smaller, StateSet larger) {
+        if (smaller.states.length > larger.states.length) return false;
+
+        int j = 0;
+        for (int state : smaller.states) {
+            while (j < larger.states.length && larger.states[j] < state) j++;
+            if (j == larger.states.length || larger.states[j] != state) return false;
+            j++;
+        }
+
+        return true;
+    }
+
+    private static void checkStartStates(FrozenGraph first, FrozenGraph second) {
+        if (first.getStartState() == FrozenGraph.NO_STATE || second.getStartState() == FrozenGraph.NO_STATE) {
+            throw new NoStartNodeException();
+        }
+    }
+
+    /**
+     * @return The id in a graph of every symbol of a combined alphabet, -1 if the graph doesn't have it
+     */
+    private static int[] symbolIds(FrozenGraph graph, String[] alphabet) {
+        int[] ids = new int[alphabet.length];
+        for (int a = 0; a < alphabet.length; a++) ids[a] = graph.getSymbolId(alphabet[a]);
+
+        return ids;
+    }
+
+    private static int id(Map<StateSet, Integer> ids, StateSet set, UnionFind sets) {
+        return ids.computeIfAbsent(set, s -> sets.add());
+    }
+
+    /**
+     * The pairs found by a breadth first search, with the pair and symbol each was reached from so the word leading to
+     * a pair can be rebuilt
+     */
+    private static final class Search {
+        final List<StateSet> firstSets = new ArrayList<>();
+        final List<StateSet> secondSets = new ArrayList<>();
+        private int[] parents = new int[16];
+        private int[] symbols = new int[16];
+
+        int size() {
+            return firstSets.size();
+        }
+
+        void add(StateSet first, StateSet second, int parent, int symbol) {
+            int index = size();
+            if (index == parents.length) {
+                parents = Arrays.copyOf(parents, index * 2);
+                symbols = Arrays.copyOf(symbols, index * 2);
+            }
+
+            firstSets.add(first);
+            secondSets.add(second);
+            parents[index] = parent;
+            symbols[index] = symbol;
+        }
+
+        List<String> word(int index, String[] alphabet) {
+            List<String> word = new ArrayList<>();
+            for (int i = index; parents[i] != -1; i = parents[i]) word.add(alphabet[symbols[i]]);
+            Collections.reverse(word);
+
+            return word;
+        }
+    }
+
+    /**
+     * Disjoint sets of ids with path halving and union by size
+     */
+    private static final class UnionFind {
+        private int[] parents = new int[16];
+        private int[] sizes = new int[16];
+        private int count;
+
+        int add() {
+            if (count == parents.length) {
+                parents = Arrays.copyOf(parents, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+            }
+
+            parents[count] = count;
+            sizes[count] = 1;
+            return count++;
+        }
+
+        int find(int id) {
+            while (parents[id] != id) {
+                parents[id] = parents[parents[id]];
+                id = parents[id];
+            }
+
+            return id;
+        }
+
+        /**
+         * @return false if the ids were already in the same set
+         */
+        boolean union(int first, int second) {
+            first = find(first);
+            second = find(second);
+            if (first == second) return false;
+
+            if (sizes[first] < sizes[second]) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+            parents[second] = first;
+            sizes[first] += sizes[second];
+            return true;
+        }
+    }
+
+    /**
+     * A state of the first graph and a set of states of the second
+     */
+    private static final class Pair {
+        final int state;
+        final StateSet set;
+
+        Pair(int state, StateSet set) {
+            this.state = state;
+            this.set = set;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Pair pair = (Pair) o;
+            return state == pair.state && set.equals(pair.set);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(state, set);
+        }
+    }
+}
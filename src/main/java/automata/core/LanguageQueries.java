@@ -0,0 +1,306 @@
+package automata.core;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers questions about the words a {@link FrozenGraph} accepts.
+ * <p>
+ * Emptiness and the shortest word come from a breadth first search over the dense state ids, following epsilon
+ * transitions through the precomputed closures. Counting the words of a length needs a DFA, since an NFA can accept a
+ * word along several paths, so the graph is determinized first (only the subsets reachable from the start state are
+ * built) and states that can't lead to an accepting state are dropped. The count is then either pushed forward one
+ * symbol at a time, or computed with O(log n) products of the transition count matrix, whichever takes fewer
+ * operations for the length asked for.
+ */
+final class LanguageQueries {
+    private LanguageQueries() {
+    }
+
+    /**
+     * Finds a shortest accepted word
+     *
+     * @return The symbols of the word, or null if no word is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    static List<String> findShortestWord(FrozenGraph graph) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        int states = graph.getStateCount();
+        int[] parents = new int[states];
+        int[] symbols = new int[states];
+
+        // The set doubles as the queue, states are appended as they are reached
+        SparseSet reached = new SparseSet(states);
+        for (int s : graph.getEpsilonClosure(graph.getStartState())) {
+            reached.add(s);
+            parents[s] = FrozenGraph.NO_STATE;
+        }
+
+        for (int i = 0; i < reached.size(); i++) {
+            int state = reached.get(i);
+            if (graph.isAccepting(state)) return word(graph, state, parents, symbols);
+
+            for (int a = 0; a < graph.getAlphabetSize(); a++) {
+                for (int t = graph.transitionsStart(state, a), end = graph.transitionsEnd(state, a); t < end; t++) {
+                    int target = graph.target(t);
+                    for (int c = graph.closureStart(target), last = graph.closureEnd(target); c < last; c++) {
+                        int next = graph.closureState(c);
+                        if (reached.add(next)) {
+                            parents[next] = state;
+                            symbols[next] = a;
+                        }
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static List<String> word(FrozenGraph graph, int state, int[] parents, int[] symbols) {
+        List<String> word = new ArrayList<>();
+        for (int s = state; parents[s] != FrozenGraph.NO_STATE; s = parents[s]) word.add(graph.getSymbol(symbols[s]));
+        Collections.reverse(word);
+
+        return word;
+    }
+
+    /**
+     * Counts the accepted words of a length
+     *
+     * @param length Number of symbols in the words to count
+     * @return The number of distinct accepted words of that length
+     * @throws NoStartNodeException     If the graph has no start node
+     * @throws IllegalArgumentException If the length is negative
+     */
+    static BigInteger countWords(FrozenGraph graph, long length) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+        if (length < 0) throw new IllegalArgumentException("The length can't be negative");
+
+        CountingDFA dfa = new CountingDFA(graph);
+        if (dfa.states == 0) return BigInteger.ZERO;
+
+        // Stepping costs about length * transitions, squaring about log2(length) * states^3
+        double stepCost = (double) length * Math.max(1, dfa.transitionCount);
+        double squareCost = (64 - Long.numberOfLeadingZeros(length)) * Math.pow(dfa.states, 3);
+        return stepCost <= squareCost ? dfa.countByStepping(length) : dfa.countBySquaring(length);
+    }
+
+    /**
+     * The states of the determinized graph that can lead to an accepting state, with transitions stored as counts: the
+     * number of symbols that lead from one state to another
+     */
+    private static final class CountingDFA {
+        final int states;
+        final int transitionCount;
+        final BitSet accepting = new BitSet();
+
+        // The transitions out of state s are sources[s] up to sources[s + 1] in targets and counts
+        final int[] sources;
+        final int[] targets;
+        final long[] counts;
+
+        CountingDFA(FrozenGraph graph) {
+            int alphabetSize = graph.getAlphabetSize();
+
+            // Subset construction from the start state
+            Map<StateSet, Integer> ids = new HashMap<>();
+            List<StateSet> sets = new ArrayList<>();
+            List<int[]> successors = new ArrayList<>();
+            SparseSet next = new SparseSet(graph.getStateCount());
+
+            StateSet start = ProductAutomaton.closure(graph, graph.getStartState());
+            ids.put(start, 0);
+            sets.add(start);
+            for (int s = 0; s < sets.size(); s++) {
+                int[] row = new int[alphabetSize];
+                for (int a = 0; a < alphabetSize; a++) {
+                    StateSet target = ProductAutomaton.move(graph, sets.get(s), a, next);
+                    if (target.states.length == 0) {
+                        row[a] = FrozenGraph.NO_STATE;
+                        continue;
+                    }
+
+                    Integer id = ids.get(target);
+                    if (id == null) {
+                        id = sets.size();
+                        ids.put(target, id);
+                        sets.add(target);
+                    }
+                    row[a] = id;
+                }
+                successors.add(row);
+            }
+
+            // Keep only the states that can reach an accepting state, found by searching backwards from them
+            int total = sets.size();
+            List<List<Integer>> predecessors = new ArrayList<>();
+            for (int s = 0; s < total; s++) predecessors.add(new ArrayList<>());
+            for (int s = 0; s < total; s++) {
+                for (int target : successors.get(s)) {
+                    if (target != FrozenGraph.NO_STATE) predecessors.get(target).add(s);
+                }
+            }
+
+            SparseSet useful = new SparseSet(total);
+            for (int s = 0; s < total; s++) {
+                if (ProductAutomaton.isAccepting(graph, sets.get(s))) useful.add(s);
+            }
+            for (int i = 0; i < useful.size(); i++) {
+                for (int predecessor : predecessors.get(useful.get(i))) useful.add(predecessor);
+            }
+
+            // Renumber the useful states densely, keeping the start state at 0
+            int[] newIds = new int[total];
+            Arrays.fill(newIds, FrozenGraph.NO_STATE);
+            int count = 0;
+            for (int s = 0; s < total; s++) {
+                if (useful.contains(s)) newIds[s] = count++;
+            }
+            states = useful.contains(0) ? count : 0;
+
+            // Merge the symbols that lead to the same state into one weighted transition
+            sources = new int[states + 1];
+            List<Integer> targetList = new ArrayList<>();
+            List<Long> countList = new ArrayList<>();
+            Map<Integer, Long> weights = new HashMap<>();
+            for (int s = 0; s < total && states > 0; s++) {
+                if (newIds[s] == FrozenGraph.NO_STATE) continue;
+                if (ProductAutomaton.isAccepting(graph, sets.get(s))) accepting.set(newIds[s]);
+
+                weights.clear();
+                for (int target : successors.get(s)) {
+                    if (target != FrozenGraph.NO_STATE && newIds[target] != FrozenGraph.NO_STATE) {
+                        weights.merge(newIds[target], 1L, Long::sum);
+                    }
+                }
+                for (Map.Entry<Integer, Long> weight : weights.entrySet()) {
+                    targetList.add(weight.getKey());
+                    countList.add(weight.getValue());
+                }
+                sources[newIds[s] + 1] = targetList.size();
+            }
+
+            transitionCount = targetList.size();
+            targets = new int[transitionCount];
+            counts = new long[transitionCount];
+            for (int i = 0; i < transitionCount; i++) {
+                targets[i] = targetList.get(i);
+                counts[i] = countList.get(i);
+            }
+        }
+
+        /**
+         * Pushes the number of words reaching each state forward one symbol at a time, in longs until they would
+         * overflow and in big integers after that
+         */
+        BigInteger countByStepping(long length) {
+            long[] current = new long[states];
+            long[] next = new long[states];
+            current[0] = 1;
+
+            long step = 0;
+            try {
+                for (; step < length; step++) {
+                    Arrays.fill(next, 0);
+                    for (int s = 0; s < states; s++) {
+                        if (current[s] == 0) continue;
+                        for (int t = sources[s]; t < sources[s + 1]; t++) {
+                            long words = Math.multiplyExact(current[s], counts[t]);
+                            next[targets[t]] = Math.addExact(next[targets[t]], words);
+                        }
+                    }
+
+                    long[] swap = current;
+                    current = next;
+                    next = swap;
+                }
+
+                long total = 0;
+                for (int s = accepting.nextSetBit(0); s >= 0; s = accepting.nextSetBit(s + 1)) {
+                    total = Math.addExact(total, current[s]);
+                }
+                return BigInteger.valueOf(total);
+            } catch (ArithmeticException e) {
+                // Carry on from the last step that fit in longs
+                BigInteger[] big = new BigInteger[states];
+                for (int s = 0; s < states; s++) big[s] = BigInteger.valueOf(current[s]);
+
+                return countByStepping(big, length - step);
+            }
+        }
+
+        private BigInteger countByStepping(BigInteger[] current, long length) {
+            for (long step = 0; step < length; step++) {
+                BigInteger[] next = new BigInteger[states];
+                Arrays.fill(next, BigInteger.ZERO);
+                for (int s = 0; s < states; s++) {
+                    if (current[s].signum() == 0) continue;
+                    for (int t = sources[s]; t < sources[s + 1]; t++) {
+                        next[targets[t]] = next[targets[t]].add(current[s].multiply(BigInteger.valueOf(counts[t])));
+                    }
+                }
+                current = next;
+            }
+
+            return sumAccepting(current);
+        }
+
+        /**
+         * Raises the transition count matrix to the power of the length by repeated squaring, applying it to the
+         * start state's row as it goes
+         */
+        BigInteger countBySquaring(long length) {
+            BigInteger[][] power = new BigInteger[states][states];
+            for (BigInteger[] row : power) Arrays.fill(row, BigInteger.ZERO);
+            for (int s = 0; s < states; s++) {
+                for (int t = sources[s]; t < sources[s + 1]; t++) power[s][targets[t]] = BigInteger.valueOf(counts[t]);
+            }
+
+            BigInteger[] row = new BigInteger[states];
+            Arrays.fill(row, BigInteger.ZERO);
+            row[0] = BigInteger.ONE;
+
+            for (long remaining = length; remaining > 0; remaining >>>= 1) {
+                if ((remaining & 1) == 1) row = multiply(row, power);
+                if (remaining > 1) power = multiply(power, power);
+            }
+
+            return sumAccepting(row);
+        }
+
+        private BigInteger sumAccepting(BigInteger[] row) {
+            BigInteger total = BigInteger.ZERO;
+            for (int s = accepting.nextSetBit(0); s >= 0; s = accepting.nextSetBit(s + 1)) total = total.add(row[s]);
+
+            return total;
+        }
+
+        private BigInteger[] multiply(BigInteger[] row, BigInteger[][] matrix) {
+            BigInteger[] result = new BigInteger[states];
+            Arrays.fill(result, BigInteger.ZERO);
+            for (int i = 0; i < states; i++) {
+                if (row[i].signum() == 0) continue;
+                for (int j = 0; j < states; j++) {
+                    if (matrix[i][j].signum() != 0) result[j] = result[j].add(row[i].multiply(matrix[i][j]));
+                }
+            }
+
+            return result;
+        }
+
+        private BigInteger[][] multiply(BigInteger[][] a, BigInteger[][] b) {
+            BigInteger[][] result = new BigInteger[states][];
+            for (int i = 0; i < states; i++) result[i] = multiply(a[i], b);
+
+            return result;
+        }
+    }
+}
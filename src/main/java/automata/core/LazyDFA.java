@@ -0,0 +1,267 @@
+package automata.core;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Matches words against an NFA by building the subset construction lazily. A DFA state (a set of NFA states) is only
+ * created the first time the input reaches it and is then cached, so repeated inputs run at DFA speed without paying
+ * for the whole powerset up front.
+ * <p>
+ * The cache holds a bounded number of DFA states. When it's full it is flushed and rebuilt from the current position.
+ * If a single word flushes the cache too many times the cache is thrashing, so the rest of that word is matched by
+ * simulating the NFA directly instead.
+ * <p>
+ * Instances are not thread safe.
+ */
+public final class LazyDFA {
+    public static final int DEFAULT_MAX_CACHED_STATES = 10_000;
+
+    /**
+     * Number of flushes a single word may cause before falling back to simulating the NFA
+     */
+    static final int MAX_FLUSHES_PER_WORD = 3;
+
+    private static final int DEAD = -1;
+    private static final int UNKNOWN = -2;
+
+    private final FrozenGraph graph;
+    private final int alphabetSize;
+    private final int maxCachedStates;
+
+    private final Map<StateSet, Integer> stateIds = new HashMap<>();
+    private StateSet[] states;
+    private int[] transitions;
+    private final BitSet accepting = new BitSet();
+    private int stateCount;
+    private int startState;
+
+    private long flushCount;
+    private long fallbackCount;
+
+    // Scratch space reused between steps
+    private SparseSet current;
+    private SparseSet next;
+
+    LazyDFA(FrozenGraph graph, int maxCachedStates) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+        if (maxCachedStates < 2) throw new IllegalArgumentException("The cache must be able to hold at least 2 states");
+
+        this.graph = graph;
+        this.alphabetSize = graph.getAlphabetSize();
+        this.maxCachedStates = maxCachedStates;
+
+        int capacity = Math.min(maxCachedStates, 64);
+        states = new StateSet[capacity];
+        transitions = new int[capacity * alphabetSize];
+
+        current = new SparseSet(graph.getStateCount());
+        next = new SparseSet(graph.getStateCount());
+
+        startState = intern(new StateSet(graph.getEpsilonClosure(graph.getStartState())));
+    }
+
+    /**
+     * Tests whether a word is accepted. Every character of the word is treated as a single character symbol
+     *
+     * @param word Word to test
+     * @return true if the word is accepted, false if it isn't or it contains a character outside the alphabet
+     */
+    public boolean accepts(CharSequence word) {
+        long flushLimit = flushCount + MAX_FLUSHES_PER_WORD;
+
+        int state = startState;
+        for (int i = 0, length = word.length(); i < length; i++) {
+            int symbolId = graph.getSymbolId(word.charAt(i));
+            if (symbolId == -1) return false;
+
+            state = step(state, symbolId);
+            if (state == DEAD) return false;
+
+            if (flushCount > flushLimit) {
+                fallbackCount++;
+                loadCurrent(state);
+                for (int j = i + 1; j < length; j++) {
+                    symbolId = graph.getSymbolId(word.charAt(j));
+                    if (symbolId == -1 || !simulateStep(symbolId)) return false;
+                }
+                return isCurrentAccepting();
+            }
+        }
+
+        return accepting.get(state);
+    }
+
+    /**
+     * Tests whether a word, given as a sequence of symbol ids, is accepted
+     *
+     * @param symbolIds Ids of the symbols of the word, see {@link FrozenGraph#getSymbolId(String)}
+     * @return true if the word is accepted, false if it isn't
+     */
+    public boolean accepts(int[] symbolIds) {
+        long flushLimit = flushCount + MAX_FLUSHES_PER_WORD;
+
+        int state = startState;
+        for (int i = 0; i < symbolIds.length; i++) {
+            state = step(state, checkSymbolId(symbolIds[i]));
+            if (state == DEAD) return false;
+
+            if (flushCount > flushLimit) {
+                fallbackCount++;
+                loadCurrent(state);
+                for (int j = i + 1; j < symbolIds.length; j++) {
+                    if (!simulateStep(checkSymbolId(symbolIds[j]))) return false;
+                }
+                return isCurrentAccepting();
+            }
+        }
+
+        return accepting.get(state);
+    }
+
+    private int checkSymbolId(int symbolId) {
+        if (symbolId < 0 || symbolId >= alphabetSize) throw new ArrayIndexOutOfBoundsException(symbolId);
+        return symbolId;
+    }
+
+    /**
+     * Follows a cached transition, computing it if it hasn't been seen before. Computing a transition may flush the
+     * cache, in which case the returned id refers to the new cache
+     */
+    private int step(int state, int symbolId) {
+        int cached = transitions[state * alphabetSize + symbolId];
+        if (cached != UNKNOWN) return cached;
+
+        next.clear();
+        for (int s : states[state].states) {
+            for (int i = graph.transitionsStart(s, symbolId), end = graph.transitionsEnd(s, symbolId); i < end; i++) {
+                addClosure(next, graph.target(i));
+            }
+        }
+
+        if (next.isEmpty()) {
+            transitions[state * alphabetSize + symbolId] = DEAD;
+            return DEAD;
+        }
+
+        StateSet nextSet = new StateSet(next.toSortedArray());
+        Integer nextState = stateIds.get(nextSet);
+        if (nextState != null) {
+            transitions[state * alphabetSize + symbolId] = nextState;
+            return nextState;
+        }
+
+        if (stateCount == maxCachedStates) {
+            // The source state is lost in the flush, so the transition isn't recorded
+            flush();
+            return intern(nextSet);
+        }
+
+        int id = intern(nextSet);
+        transitions[state * alphabetSize + symbolId] = id;
+        return id;
+    }
+
+    /**
+     * Adds a state and everything reachable from it by epsilon transitions to a set
+     */
+    private void addClosure(SparseSet set, int state) {
+        for (int i = graph.closureStart(state), end = graph.closureEnd(state); i < end; i++) {
+            set.add(graph.closureState(i));
+        }
+    }
+
+    private int intern(StateSet set) {
+        if (stateCount == states.length) {
+            int capacity = Math.min(maxCachedStates, states.length * 2);
+            states = Arrays.copyOf(states, capacity);
+            transitions = Arrays.copyOf(transitions, capacity * alphabetSize);
+        }
+
+        int id = stateCount++;
+        states[id] = set;
+        stateIds.put(set, id);
+        Arrays.fill(transitions, id * alphabetSize, (id + 1) * alphabetSize, UNKNOWN);
+
+        accepting.clear(id);
+        for (int s : set.states) {
+            if (graph.isAccepting(s)) {
+                accepting.set(id);
+                break;
+            }
+        }
+
+        return id;
+    }
+
+    /**
+     * Empties the cache, keeping only the start state
+     */
+    private void flush() {
+        flushCount++;
+
+        StateSet start = states[startState];
+        stateIds.clear();
+        Arrays.fill(states, 0, stateCount, null);
+        stateCount = 0;
+
+        startState = intern(start);
+    }
+
+    private void loadCurrent(int state) {
+        current.clear();
+        for (int s : states[state].states) current.add(s);
+    }
+
+    /**
+     * Applies a symbol to the NFA states in {@link #current}
+     *
+     * @return false if there are no states left
+     */
+    private boolean simulateStep(int symbolId) {
+        next.clear();
+        for (int j = 0; j < current.size(); j++) {
+            int s = current.get(j);
+            for (int i = graph.transitionsStart(s, symbolId), end = graph.transitionsEnd(s, symbolId); i < end; i++) {
+                addClosure(next, graph.target(i));
+            }
+        }
+
+        SparseSet swap = current;
+        current = next;
+        next = swap;
+
+        return !current.isEmpty();
+    }
+
+    private boolean isCurrentAccepting() {
+        for (int j = 0; j < current.size(); j++) {
+            if (graph.isAccepting(current.get(j))) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return Number of DFA states currently in the cache
+     */
+    public int getCachedStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * @return Number of times the cache has been flushed because it was full
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * @return Number of words that fell back to simulating the NFA because the cache was thrashing
+     */
+    public long getFallbackCount() {
+        return fallbackCount;
+    }
+}
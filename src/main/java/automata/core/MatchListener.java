@@ -0,0 +1,15 @@
+package automata.core;
+
+/**
+ * Receives the matches found by a {@link TextSearcher}, in order of their end offsets
+ */
+@FunctionalInterface
+public interface MatchListener {
+    /**
+     * Called for every offset in the text where an accepted substring ends
+     *
+     * @param start Offset of the first symbol of the leftmost accepted substring that ends here
+     * @param end   Offset after the last symbol of the substring
+     */
+    void onMatch(long start, long end);
+}
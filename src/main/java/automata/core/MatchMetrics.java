@@ -0,0 +1,79 @@
+package automata.core;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for words tested by a {@link Graph} or {@link Matcher}. Metrics are off by default, they are turned on by
+ * passing an instance to {@link Graph#setMetrics(MatchMetrics)} or {@link Matcher#setMetrics(MatchMetrics)}. While
+ * they are off, the only cost on the matching path is a null check per symbol.
+ * <p>
+ * Each engine keeps the counts of the word it is testing in plain fields and adds them here when the word ends, so a
+ * single instance can be shared by any number of engines on different threads. The counters are striped
+ * ({@link LongAdder}), so threads adding to them at the same time don't contend. Words that are started but never
+ * ended aren't counted.
+ * <p>
+ * When a word ends a {@link WordMatchEvent} is also committed, which shows up in Java Flight Recorder recordings that
+ * enable the <code>automata.WordMatch</code> event.
+ */
+public final class MatchMetrics {
+    private final LongAdder words = new LongAdder();
+    private final LongAdder acceptedWords = new LongAdder();
+    private final LongAdder symbols = new LongAdder();
+    private final LongAdder transitionsExamined = new LongAdder();
+    private final LongAdder activeStateSamples = new LongAdder();
+    private final LongAdder activeStateSum = new LongAdder();
+    private final LongAccumulator peakActiveStates = new LongAccumulator(Math::max, 0);
+    private final LongAdder nanos = new LongAdder();
+    private final LongAccumulator maxWordNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Takes a snapshot of the counters. The counters aren't read atomically, so a snapshot taken while words are being
+     * tested may count part of a word in some counters but not others
+     *
+     * @return The snapshot
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(words.sum(), acceptedWords.sum(), symbols.sum(), transitionsExamined.sum(),
+                activeStateSamples.sum(), activeStateSum.sum(), (int) peakActiveStates.get(), nanos.sum(),
+                maxWordNanos.get());
+    }
+
+    /**
+     * Sets every counter back to 0
+     */
+    public void reset() {
+        words.reset();
+        acceptedWords.reset();
+        symbols.reset();
+        transitionsExamined.reset();
+        activeStateSamples.reset();
+        activeStateSum.reset();
+        peakActiveStates.reset();
+        nanos.reset();
+        maxWordNanos.reset();
+    }
+
+    /**
+     * Adds the counts of one word
+     *
+     * @param symbols             Number of symbols in the word
+     * @param transitionsExamined Number of transitions followed while testing the word
+     * @param activeStateSum      Sum of the number of active states at the start and after every symbol
+     * @param peakActiveStates    Largest number of active states at once
+     * @param nanos               Time between starting and ending the word
+     * @param accepted            Whether the word was accepted
+     */
+    void record(long symbols, long transitionsExamined, long activeStateSum, int peakActiveStates, long nanos,
+                boolean accepted) {
+        words.increment();
+        if (accepted) acceptedWords.increment();
+        this.symbols.add(symbols);
+        this.transitionsExamined.add(transitionsExamined);
+        activeStateSamples.add(symbols + 1);
+        this.activeStateSum.add(activeStateSum);
+        this.peakActiveStates.accumulate(peakActiveStates);
+        this.nanos.add(nanos);
+        maxWordNanos.accumulate(nanos);
+    }
+}
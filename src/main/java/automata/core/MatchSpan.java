@@ -0,0 +1,46 @@
+package automata.core;
+
+/**
+ * A substring of a text that is accepted by a graph, found by a {@link TextSearcher}
+ */
+public final class MatchSpan {
+    private final long start;
+    private final long end;
+
+    public MatchSpan(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return Offset of the first symbol of the match
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * @return Offset after the last symbol of the match
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MatchSpan matchSpan = (MatchSpan) o;
+        return start == matchSpan.start && end == matchSpan.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(start) * 31 + Long.hashCode(end);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}
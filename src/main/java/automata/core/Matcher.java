@@ -0,0 +1,192 @@
+package automata.core;
+
+/**
+ * A session for testing words against a {@link FrozenGraph}, one symbol at a time. This works like
+ * {@link Graph#startTestingWord()}, {@link Graph#stepTestingWord(String)} and {@link Graph#endTestingWord()}, but
+ * the matching state lives in the matcher instead of the graph. Since a frozen graph can't change, any number of
+ * matchers can test words against the same graph at once from different threads without locking.
+ * <p>
+ * A matcher can be reused for any number of words, and only allocates when it is created. A single matcher must not be
+ * used by more than one thread at a time, {@link MatcherPool} can be used to share matchers between threads.
+ */
+public final class Matcher {
+    private final FrozenGraph graph;
+
+    private SparseSet current;
+    private SparseSet next;
+    private boolean testingWord;
+
+    /**
+     * Counts the words tested, or null if metrics are off
+     */
+    private MetricsRecorder metricsRecorder;
+
+    Matcher(FrozenGraph graph) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        this.graph = graph;
+        current = new SparseSet(graph.getStateCount());
+        next = new SparseSet(graph.getStateCount());
+    }
+
+    /**
+     * @return The graph this matcher tests words against
+     */
+    public FrozenGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Starts testing a word, discarding any word that was being tested. Any calls to {@link #step(int)} will throw an
+     * error if this function hasn't been called beforehand
+     */
+    public void start() {
+        current.clear();
+        addClosure(current, graph.getStartState());
+        testingWord = true;
+
+        if (metricsRecorder != null) metricsRecorder.start(current.size());
+    }
+
+    /**
+     * Turns metrics on or off for the words tested by this matcher
+     *
+     * @param metrics Metrics to add the counts of every word to, or null to turn metrics off
+     */
+    public void setMetrics(MatchMetrics metrics) {
+        metricsRecorder = metrics == null ? null : new MetricsRecorder(metrics, "Matcher");
+    }
+
+    /**
+     * @return The metrics words are counted in, or null if metrics are off
+     */
+    public MatchMetrics getMetrics() {
+        return metricsRecorder == null ? null : metricsRecorder.getMetrics();
+    }
+
+    /**
+     * Applies a symbol to all current states
+     *
+     * @param symbolId Id of the symbol, see {@link FrozenGraph#getSymbolId(String)}
+     * @throws IllegalStateException   If {@link #start()} hasn't been called
+     * @throws SymbolNotFoundException If there is no symbol with that id
+     */
+    public void step(int symbolId) {
+        if (!testingWord) throw new IllegalStateException("start must be called before inputting symbols");
+        if (symbolId < 0 || symbolId >= graph.getAlphabetSize()) {
+            throw new SymbolNotFoundException(String.valueOf(symbolId));
+        }
+
+        int transitionsExamined = 0;
+
+        next.clear();
+        for (int j = 0; j < current.size(); j++) {
+            int s = current.get(j);
+            int start = graph.transitionsStart(s, symbolId), end = graph.transitionsEnd(s, symbolId);
+            for (int i = start; i < end; i++) addClosure(next, graph.target(i));
+            transitionsExamined += end - start;
+        }
+
+        SparseSet swap = current;
+        current = next;
+        next = swap;
+
+        if (metricsRecorder != null) metricsRecorder.step(transitionsExamined, current.size());
+    }
+
+    /**
+     * Applies a symbol to all current states. Symbols outside the alphabet leave no current states
+     *
+     * @param symbol Symbol to apply
+     * @throws IllegalStateException If {@link #start()} hasn't been called
+     */
+    public void step(String symbol) {
+        int symbolId = graph.getSymbolId(symbol);
+
+        if (symbolId == -1) {
+            if (!testingWord) throw new IllegalStateException("start must be called before inputting symbols");
+            current.clear();
+            if (metricsRecorder != null) metricsRecorder.step(0, 0);
+        } else {
+            step(symbolId);
+        }
+    }
+
+    /**
+     * Ends testing the word. After this call, calling {@link #step(int)} without calling {@link #start()} will throw
+     * an error
+     *
+     * @return true if any of the current states is accepting (the word is accepted), false if not
+     */
+    public boolean end() {
+        testingWord = false;
+
+        boolean accepted = isAccepting();
+        if (metricsRecorder != null) metricsRecorder.end(accepted);
+        return accepted;
+    }
+
+    /**
+     * @return Whether any of the current states is accepting, i.e. whether the symbols so far form an accepted word
+     */
+    public boolean isAccepting() {
+        for (int j = 0; j < current.size(); j++) {
+            if (graph.isAccepting(current.get(j))) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return Whether there are no current states left, in which case no more symbols can make the word accepted
+     */
+    public boolean isStuck() {
+        return current.isEmpty();
+    }
+
+    /**
+     * @return The ids of the current states in ascending order
+     */
+    public int[] getCurrentStates() {
+        return current.toSortedArray();
+    }
+
+    /**
+     * Stops testing the current word so the matcher can be reused, e.g. by a different thread through a pool
+     */
+    public void reset() {
+        current.clear();
+        testingWord = false;
+    }
+
+    /**
+     * Tests a whole word. Every character of the word is treated as a single character symbol
+     *
+     * @param word Word to test
+     * @return true if the word is accepted, false if it isn't or it contains a character outside the alphabet
+     */
+    public boolean matches(CharSequence word) {
+        start();
+
+        for (int i = 0, length = word.length(); i < length && !current.isEmpty(); i++) {
+            int symbolId = graph.getSymbolId(word.charAt(i));
+            if (symbolId == -1) {
+                current.clear();
+                return end();
+            }
+
+            step(symbolId);
+        }
+
+        return end();
+    }
+
+    /**
+     * Adds a state and everything reachable from it by epsilon transitions to a set
+     */
+    private void addClosure(SparseSet set, int state) {
+        for (int i = graph.closureStart(state), end = graph.closureEnd(state); i < end; i++) {
+            set.add(graph.closureState(i));
+        }
+    }
+}
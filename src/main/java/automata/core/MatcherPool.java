@@ -0,0 +1,77 @@
+package automata.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A lock free pool of {@link Matcher}s for one {@link FrozenGraph}, so threads can borrow a matcher instead of creating
+ * one (and its scratch space) for every word. The pool grows to however many matchers are in use at once.
+ */
+public final class MatcherPool {
+    private final FrozenGraph graph;
+    private final MatchMetrics metrics;
+    private final ConcurrentLinkedQueue<Matcher> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param graph Graph that the matchers test words against
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public MatcherPool(FrozenGraph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * @param graph   Graph that the matchers test words against
+     * @param metrics Metrics that every matcher in the pool counts its words in, or null to turn metrics off
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    public MatcherPool(FrozenGraph graph, MatchMetrics metrics) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Takes a matcher out of the pool, creating one if none are idle. It must be given back with
+     * {@link #release(Matcher)} once it isn't needed
+     *
+     * @return A matcher that isn't being used by anything else
+     */
+    public Matcher acquire() {
+        Matcher matcher = idle.poll();
+        if (matcher == null) {
+            matcher = new Matcher(graph);
+            matcher.setMetrics(metrics);
+        }
+
+        return matcher;
+    }
+
+    /**
+     * Gives a matcher back to the pool. It must not be used afterwards
+     *
+     * @param matcher Matcher taken from this pool
+     * @throws IllegalArgumentException If the matcher is for a different graph
+     */
+    public void release(Matcher matcher) {
+        if (matcher.getGraph() != graph) throw new IllegalArgumentException("The matcher is for a different graph");
+
+        matcher.reset();
+        idle.offer(matcher);
+    }
+
+    /**
+     * Tests a whole word with a pooled matcher. Every character of the word is treated as a single character symbol
+     *
+     * @param word Word to test
+     * @return true if the word is accepted, false if it isn't or it contains a character outside the alphabet
+     */
+    public boolean matches(CharSequence word) {
+        Matcher matcher = acquire();
+        try {
+            return matcher.matches(word);
+        } finally {
+            release(matcher);
+        }
+    }
+}
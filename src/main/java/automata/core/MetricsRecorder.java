@@ -0,0 +1,82 @@
+package automata.core;
+
+import jdk.jfr.EventType;
+
+/**
+ * Counts the word an engine is testing and adds the counts to a {@link MatchMetrics} when the word ends. Each engine
+ * has its own recorder, so the counting itself is done in plain fields
+ */
+final class MetricsRecorder {
+    private static final EventType WORD_MATCH_EVENT = EventType.getEventType(WordMatchEvent.class);
+
+    private final MatchMetrics metrics;
+    private final String engine;
+
+    private long symbols;
+    private long transitionsExamined;
+    private long activeStateSum;
+    private int peakActiveStates;
+    private long startNanos;
+    private WordMatchEvent event;
+
+    /**
+     * @param metrics Metrics to add the counts to
+     * @param engine  Name of the engine, used in the flight recorder events
+     */
+    MetricsRecorder(MatchMetrics metrics, String engine) {
+        this.metrics = metrics;
+        this.engine = engine;
+    }
+
+    MatchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param activeStates Number of active states at the start of the word
+     */
+    void start(int activeStates) {
+        symbols = 0;
+        transitionsExamined = 0;
+        activeStateSum = activeStates;
+        peakActiveStates = activeStates;
+
+        // Only allocate an event if a recording is listening for it
+        if (WORD_MATCH_EVENT.isEnabled()) {
+            event = new WordMatchEvent();
+            event.begin();
+        } else {
+            event = null;
+        }
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * @param transitionsExamined Number of transitions followed for the symbol
+     * @param activeStates        Number of active states after the symbol
+     */
+    void step(int transitionsExamined, int activeStates) {
+        symbols++;
+        this.transitionsExamined += transitionsExamined;
+        activeStateSum += activeStates;
+        peakActiveStates = Math.max(peakActiveStates, activeStates);
+    }
+
+    void end(boolean accepted) {
+        long nanos = System.nanoTime() - startNanos;
+        metrics.record(symbols, transitionsExamined, activeStateSum, peakActiveStates, nanos, accepted);
+
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.engine = engine;
+                event.symbols = symbols;
+                event.transitionsExamined = transitionsExamined;
+                event.peakActiveStates = peakActiveStates;
+                event.accepted = accepted;
+                event.commit();
+            }
+            event = null;
+        }
+    }
+}
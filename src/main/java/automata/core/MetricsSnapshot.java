@@ -0,0 +1,108 @@
+package automata.core;
+
+/**
+ * The values of a {@link MatchMetrics} at one point in time
+ */
+public final class MetricsSnapshot {
+    private final long wordCount;
+    private final long acceptedWordCount;
+    private final long symbolCount;
+    private final long transitionsExamined;
+    private final long activeStateSamples;
+    private final long activeStateSum;
+    private final int peakActiveStates;
+    private final long totalNanos;
+    private final long maxWordNanos;
+
+    MetricsSnapshot(long wordCount, long acceptedWordCount, long symbolCount, long transitionsExamined,
+                    long activeStateSamples, long activeStateSum, int peakActiveStates, long totalNanos,
+                    long maxWordNanos) {
+        this.wordCount = wordCount;
+        this.acceptedWordCount = acceptedWordCount;
+        this.symbolCount = symbolCount;
+        this.transitionsExamined = transitionsExamined;
+        this.activeStateSamples = activeStateSamples;
+        this.activeStateSum = activeStateSum;
+        this.peakActiveStates = peakActiveStates;
+        this.totalNanos = totalNanos;
+        this.maxWordNanos = maxWordNanos;
+    }
+
+    /**
+     * @return Number of words tested
+     */
+    public long getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @return Number of words that were accepted
+     */
+    public long getAcceptedWordCount() {
+        return acceptedWordCount;
+    }
+
+    /**
+     * @return Number of symbols consumed over all words
+     */
+    public long getSymbolCount() {
+        return symbolCount;
+    }
+
+    /**
+     * @return Number of transitions followed over all words, not counting epsilon transitions
+     */
+    public long getTransitionsExamined() {
+        return transitionsExamined;
+    }
+
+    /**
+     * @return Largest number of states that were active at once
+     */
+    public int getPeakActiveStates() {
+        return peakActiveStates;
+    }
+
+    /**
+     * @return Average number of active states, sampled at the start of every word and after every symbol. 0 if no
+     * words have been tested
+     */
+    public double getAverageActiveStates() {
+        return activeStateSamples == 0 ? 0 : (double) activeStateSum / activeStateSamples;
+    }
+
+    /**
+     * @return Total time spent between starting and ending words, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return Average time per word in nanoseconds, 0 if no words have been tested
+     */
+    public double getAverageNanosPerWord() {
+        return wordCount == 0 ? 0 : (double) totalNanos / wordCount;
+    }
+
+    /**
+     * @return Longest time taken by a single word, in nanoseconds
+     */
+    public long getMaxWordNanos() {
+        return maxWordNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "wordCount=" + wordCount +
+                ", acceptedWordCount=" + acceptedWordCount +
+                ", symbolCount=" + symbolCount +
+                ", transitionsExamined=" + transitionsExamined +
+                ", peakActiveStates=" + peakActiveStates +
+                ", averageActiveStates=" + getAverageActiveStates() +
+                ", totalNanos=" + totalNanos +
+                ", maxWordNanos=" + maxWordNanos +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package automata.core;
+
+/**
+ * The result of {@link Graph#minimize()}: the minimal DFA and how much smaller it is than the original
+ */
+public final class MinimizationResult {
+    private final Graph graph;
+    private final int mergedStateCount;
+
+    MinimizationResult(Graph graph, int mergedStateCount) {
+        this.graph = graph;
+        this.mergedStateCount = mergedStateCount;
+    }
+
+    /**
+     * @return The minimal DFA
+     */
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return The number of states in the original graph that aren't in the minimal graph, because they were merged
+     * into an equivalent state or because they can't be reached or can never lead to an accepting state
+     */
+    public int getMergedStateCount() {
+        return mergedStateCount;
+    }
+}
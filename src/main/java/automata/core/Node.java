@@ -2,7 +2,12 @@ package automata.core;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class Node implements Serializable {
     private static final long serialVersionUID = -4082132092395620031L;
@@ -14,6 +19,19 @@ public class Node implements Serializable {
 
     private List<Transition> transitions = new ArrayList<>();
 
+    /**
+     * Indexes of the transitions, so looking up a transition or the destinations over a symbol doesn't have to scan
+     * every transition. They aren't serialized, they are rebuilt from <code>transitions</code> when first needed
+     */
+    private transient Set<Transition> transitionSet;
+    private transient Map<Symbol, List<Node>> destinationsBySymbol;
+
+    /**
+     * The same lists as <code>destinationsBySymbol</code> indexed by the id of the symbol, for symbols interned by a
+     * graph. Entries are null if there are no transitions over that symbol
+     */
+    private transient List<List<Node>> destinationsBySymbolId;
+
     private boolean isAccepting;
 
     /**
@@ -61,7 +79,56 @@ public class Node implements Serializable {
      * @param t Transition to add
      */
     public void addTransition(Transition t) {
+        buildIndexes();
+
         transitions.add(t);
+        index(t);
+    }
+
+    /**
+     * Builds the transition indexes if this is the first time they've been needed
+     */
+    private void buildIndexes() {
+        if (transitionSet != null) return;
+
+        transitionSet = new HashSet<>();
+        destinationsBySymbol = new HashMap<>();
+        destinationsBySymbolId = new ArrayList<>();
+        for (Transition t : transitions) index(t);
+    }
+
+    /**
+     * Drops the transition indexes so they are rebuilt when next needed, e.g. after the symbols of the transitions have
+     * been swapped for interned ones
+     */
+    void clearIndexes() {
+        transitionSet = null;
+        destinationsBySymbol = null;
+        destinationsBySymbolId = null;
+    }
+
+    private void index(Transition t) {
+        transitionSet.add(t);
+
+        List<Node> destinations = destinationsBySymbol.computeIfAbsent(t.getSymbol(), symbol -> new ArrayList<>(1));
+        destinations.add(t.getDestination());
+
+        int id = t.getSymbol().getId();
+        if (id != Symbol.NO_ID) {
+            while (destinationsBySymbolId.size() <= id) destinationsBySymbolId.add(null);
+            destinationsBySymbolId.set(id, destinations);
+        }
+    }
+
+    /**
+     * Checks whether this node already has a transition
+     *
+     * @param t Transition to look for
+     * @return Whether a transition with the same source, destination and symbol has been added to this node
+     */
+    public boolean hasTransition(Transition t) {
+        buildIndexes();
+        return transitionSet.contains(t);
     }
 
     /**
@@ -71,13 +138,21 @@ public class Node implements Serializable {
      * @return
      */
     public boolean willSymbolCauseTransition(Symbol symbol) {
-        for (Transition t : getTransitions()) {
-            if (t.willSymbolCauseTransition(symbol)) {
-                return true;
-            }
-        }
+        buildIndexes();
+        return destinationsBySymbol.containsKey(symbol);
+    }
 
-        return false;
+    /**
+     * Gets the out-degree of this node over a symbol
+     *
+     * @param symbol Symbol to apply to the node
+     * @return The number of transitions from this node over the symbol
+     */
+    public int getOutDegree(Symbol symbol) {
+        buildIndexes();
+
+        List<Node> destinationNodes = destinationsBySymbol.get(symbol);
+        return destinationNodes == null ? 0 : destinationNodes.size();
     }
 
     /**
@@ -85,15 +160,38 @@ public class Node implements Serializable {
      * activated by that symbol
      *
      * @param symbol Symbol to apply to the node
-     * @return The destination nodes that have a transition over the given symbol
+     * @return The destination nodes that have a transition over the given symbol, in the order the transitions were
+     * added. The list can't be modified
      */
     public List<Node> getDestinationNodesAfterTransition(Symbol symbol) {
-        List<Node> destinationNodes = new ArrayList<>();
-        for (Transition t : getTransitions()) {
-            if (t.willSymbolCauseTransition(symbol)) destinationNodes.add(t.getDestination());
-        }
+        buildIndexes();
 
-        return destinationNodes;
+        List<Node> destinationNodes = destinationsBySymbol.get(symbol);
+        return destinationNodes == null ? Collections.emptyList() : Collections.unmodifiableList(destinationNodes);
+    }
+
+    /**
+     * Applies a symbol to this node and returns the destination node of all the transitions from it that would be
+     * activated by that symbol. This only looks at transitions over symbols interned by the node's graph
+     *
+     * @param symbolId Id of the symbol in the alphabet of the node's graph
+     * @return The destination nodes that have a transition over the given symbol, in the order the transitions were
+     * added. The list can't be modified
+     */
+    public List<Node> getDestinationNodesAfterTransition(int symbolId) {
+        List<Node> destinationNodes = getDestinationNodesById(symbolId);
+        return destinationNodes == null ? Collections.emptyList() : Collections.unmodifiableList(destinationNodes);
+    }
+
+    /**
+     * Same as {@link #getDestinationNodesAfterTransition(int)} but without wrapping the list, for matching loops
+     *
+     * @param symbolId Id of the symbol in the alphabet of the node's graph
+     * @return The destination nodes, or null if there are none. The list must not be modified
+     */
+    List<Node> getDestinationNodesById(int symbolId) {
+        buildIndexes();
+        return symbolId < destinationsBySymbolId.size() ? destinationsBySymbolId.get(symbolId) : null;
     }
 
     /**
@@ -130,6 +228,7 @@ public class Node implements Serializable {
      * @return Whether this node and the given node are equivalent
      */
     public boolean equals(Object n) {
+        if (this == n) return true;
         if (n == null) return false;
 
         Node node = (Node) n;
@@ -147,4 +246,14 @@ public class Node implements Serializable {
         return true;
     }
 
+    /**
+     * Only the label is used, since the transitions of a node can change while it's in a hash based collection
+     *
+     * @return Hash code of the node
+     */
+    @Override
+    public int hashCode() {
+        return getLabel().hashCode();
+    }
+
 }
@@ -0,0 +1,11 @@
+package automata.core;
+
+/**
+ * This exception is thrown when an operation needs a DFA but the graph is an NFA
+ */
+public class NotDeterministicException extends RuntimeException {
+
+    public NotDeterministicException() {
+        super("The graph is an NFA but this operation requires a DFA");
+    }
+}
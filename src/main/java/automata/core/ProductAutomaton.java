@@ -0,0 +1,322 @@
+package automata.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A DFA for a boolean combination of one or two {@link FrozenGraph}s, such as the words accepted by one graph but not
+ * the other. It is built with the product construction: each state is a pair of sets of states, one set in each graph
+ * (the subset construction of each side runs alongside the other, so NFAs and epsilon transitions are supported).
+ * <p>
+ * States are only created when they are first reached, starting from the pair of start states, so states that can't be
+ * reached are never allocated. {@link #accepts(CharSequence)} only explores what the word needs, while
+ * {@link #toGraph()} explores everything reachable. An empty set stands for the sink state of a graph, so the graphs
+ * don't have to be complete. Pairs that can never lead to an accepted word (e.g. for an intersection, a pair where
+ * either set is empty) aren't created either, except for a complement, where the sink state is accepting.
+ * <p>
+ * The alphabet is the alphabet of the first graph followed by the symbols of the second graph that the first doesn't
+ * have. A symbol that isn't in one graph's alphabet leads that graph to its sink state. Explored states are cached for
+ * the lifetime of the automaton. Instances are not thread safe.
+ */
+public final class ProductAutomaton {
+    /**
+     * The boolean operation applied to whether each graph accepts
+     */
+    enum Operation {
+        INTERSECTION, UNION, DIFFERENCE, COMPLEMENT;
+
+        boolean accepts(boolean first, boolean second) {
+            switch (this) {
+                case INTERSECTION:
+                    return first && second;
+                case UNION:
+                    return first || second;
+                case DIFFERENCE:
+                    return first && !second;
+                default:
+                    return !first;
+            }
+        }
+
+        /**
+         * @return Whether no word can be accepted from a pair with these sides stuck in their sink state
+         */
+        boolean isDead(boolean firstEmpty, boolean secondEmpty) {
+            switch (this) {
+                case INTERSECTION:
+                    return firstEmpty || secondEmpty;
+                case UNION:
+                    return firstEmpty && secondEmpty;
+                case DIFFERENCE:
+                    return firstEmpty;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static final int DEAD = -1;
+    private static final int UNKNOWN = -2;
+    static final StateSet EMPTY = new StateSet(new int[0]);
+
+    private final FrozenGraph first;
+    private final FrozenGraph second;
+    private final Operation operation;
+
+    private final String[] alphabet;
+    private final int[] charToSymbol;
+
+    /**
+     * The symbol id in each graph of every symbol in the combined alphabet, -1 if the graph doesn't have it
+     */
+    private final int[] firstSymbolIds;
+    private final int[] secondSymbolIds;
+
+    private final Map<Pair, Integer> stateIds = new HashMap<>();
+    private final List<Pair> states = new ArrayList<>();
+    private int[] transitions;
+    private final BitSet accepting = new BitSet();
+
+    // Scratch space reused between steps
+    private final SparseSet firstNext;
+    private final SparseSet secondNext;
+
+    /**
+     * @param first     First graph
+     * @param second    Second graph, or null for {@link Operation#COMPLEMENT}
+     * @param operation Operation to apply
+     * @throws NoStartNodeException If either graph has no start node
+     */
+    ProductAutomaton(FrozenGraph first, FrozenGraph second, Operation operation) {
+        if (first.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+        if (second != null && second.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        this.first = first;
+        this.second = second;
+        this.operation = operation;
+
+        alphabet = second == null ? first.getAlphabet() : mergeAlphabets(first, second);
+        charToSymbol = FrozenGraph.buildCharToSymbol(alphabet);
+
+        firstSymbolIds = new int[alphabet.length];
+        secondSymbolIds = new int[alphabet.length];
+        for (int a = 0; a < alphabet.length; a++) {
+            firstSymbolIds[a] = first.getSymbolId(alphabet[a]);
+            secondSymbolIds[a] = second == null ? -1 : second.getSymbolId(alphabet[a]);
+        }
+
+        transitions = new int[Math.max(1, alphabet.length) * 16];
+        firstNext = new SparseSet(first.getStateCount());
+        secondNext = new SparseSet(second == null ? 0 : second.getStateCount());
+
+        StateSet secondStart = second == null ? EMPTY : closure(second, second.getStartState());
+        intern(new Pair(closure(first, first.getStartState()), secondStart));
+    }
+
+    /**
+     * Combines the alphabets of two graphs: the symbols of the first, followed by the symbols of the second that the
+     * first doesn't have
+     */
+    static String[] mergeAlphabets(FrozenGraph first, FrozenGraph second) {
+        Set<String> symbols = new LinkedHashSet<>(Arrays.asList(first.getAlphabet()));
+        symbols.addAll(Arrays.asList(second.getAlphabet()));
+
+        return symbols.toArray(new String[0]);
+    }
+
+    /**
+     * @return The combined alphabet, see the class description
+     */
+    public String[] getAlphabet() {
+        return alphabet.clone();
+    }
+
+    /**
+     * @return The number of states explored so far
+     */
+    public int getExploredStateCount() {
+        return states.size();
+    }
+
+    /**
+     * Tests whether a word is accepted, exploring any states it reaches for the first time. Every character of the word
+     * is treated as a single character symbol
+     *
+     * @param word Word to test
+     * @return true if the word is accepted, false if it isn't or it contains a character outside the combined alphabet
+     */
+    public boolean accepts(CharSequence word) {
+        int state = 0;
+        for (int i = 0, length = word.length(); i < length; i++) {
+            char c = word.charAt(i);
+            int symbolId = c < charToSymbol.length ? charToSymbol[c] : -1;
+            if (symbolId == -1) return false;
+
+            state = step(state, symbolId);
+            if (state == DEAD) return false;
+        }
+
+        return accepting.get(state);
+    }
+
+    /**
+     * Explores every reachable state and builds a DFA from them. Each node is labelled with the labels of the states
+     * it stands for in each graph
+     *
+     * @return The DFA, whose start node is the pair of start states
+     */
+    public Graph toGraph() {
+        // States are appended as they are found, so this is a breadth first search
+        for (int s = 0; s < states.size(); s++) {
+            for (int a = 0; a < alphabet.length; a++) step(s, a);
+        }
+
+        Graph g = new Graph(alphabet.clone());
+        String[] labels = new String[states.size()];
+        for (int s = 0; s < labels.length; s++) {
+            // Different states can print the same, e.g. a set of nodes and a node labelled like that set
+            String label = label(states.get(s));
+            labels[s] = label;
+            for (int n = s; g.containsNode(labels[s]); n++) labels[s] = label + "#" + n;
+            g.addNode(new Node(labels[s], accepting.get(s)));
+        }
+
+        for (int s = 0; s < labels.length; s++) {
+            for (int a = 0; a < alphabet.length; a++) {
+                int target = transitions[s * alphabet.length + a];
+                if (target != DEAD) g.connectNodes(labels[s], labels[target], alphabet[a]);
+            }
+        }
+        g.setStartNode(labels[0]);
+
+        return g;
+    }
+
+    /**
+     * Follows a transition, exploring the state it leads to if it hasn't been seen before
+     */
+    private int step(int state, int symbolId) {
+        int cached = transitions[state * alphabet.length + symbolId];
+        if (cached != UNKNOWN) return cached;
+
+        Pair pair = states.get(state);
+        StateSet firstSet = move(first, pair.first, firstSymbolIds[symbolId], firstNext);
+        StateSet secondSet = second == null ? EMPTY : move(second, pair.second, secondSymbolIds[symbolId], secondNext);
+
+        int next;
+        if (operation.isDead(firstSet.states.length == 0, secondSet.states.length == 0)) {
+            next = DEAD;
+        } else {
+            Pair nextPair = new Pair(firstSet, secondSet);
+            Integer id = stateIds.get(nextPair);
+            next = id == null ? intern(nextPair) : id;
+        }
+
+        transitions[state * alphabet.length + symbolId] = next;
+        return next;
+    }
+
+    private int intern(Pair pair) {
+        int id = states.size();
+        states.add(pair);
+        stateIds.put(pair, id);
+
+        if ((id + 1) * alphabet.length > transitions.length) {
+            transitions = Arrays.copyOf(transitions, Math.max(transitions.length * 2, (id + 1) * alphabet.length));
+        }
+        Arrays.fill(transitions, id * alphabet.length, (id + 1) * alphabet.length, UNKNOWN);
+
+        boolean secondAccepts = second != null && isAccepting(second, pair.second);
+        if (operation.accepts(isAccepting(first, pair.first), secondAccepts)) accepting.set(id);
+
+        return id;
+    }
+
+    /**
+     * Applies a symbol to a set of states of a graph
+     *
+     * @param symbolId Id of the symbol in that graph, or -1 if the graph doesn't have it
+     * @param next     Scratch space big enough for the states of the graph
+     * @return The set of states reached, including their epsilon-closures
+     */
+    static StateSet move(FrozenGraph graph, StateSet set, int symbolId, SparseSet next) {
+        if (symbolId == -1 || set.states.length == 0) return EMPTY;
+
+        next.clear();
+        for (int s : set.states) {
+            for (int i = graph.transitionsStart(s, symbolId), end = graph.transitionsEnd(s, symbolId); i < end; i++) {
+                int target = graph.target(i);
+                for (int c = graph.closureStart(target), last = graph.closureEnd(target); c < last; c++) {
+                    next.add(graph.closureState(c));
+                }
+            }
+        }
+
+        return next.isEmpty() ? EMPTY : new StateSet(next.toSortedArray());
+    }
+
+    static StateSet closure(FrozenGraph graph, int state) {
+        return new StateSet(graph.getEpsilonClosure(state));
+    }
+
+    static boolean isAccepting(FrozenGraph graph, StateSet set) {
+        for (int s : set.states) {
+            if (graph.isAccepting(s)) return true;
+        }
+
+        return false;
+    }
+
+    private String label(Pair pair) {
+        String firstLabel = label(first, pair.first);
+        return second == null ? firstLabel : "(" + firstLabel + ", " + label(second, pair.second) + ")";
+    }
+
+    /**
+     * @return The label of the only state in a set, or the labels of all of them in braces
+     */
+    private static String label(FrozenGraph graph, StateSet set) {
+        if (set.states.length == 1) return graph.getLabel(set.states[0]);
+
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < set.states.length; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(graph.getLabel(set.states[i]));
+        }
+
+        return builder.append('}').toString();
+    }
+
+    /**
+     * A state of the product: a set of states in each graph
+     */
+    private static final class Pair {
+        final StateSet first;
+        final StateSet second;
+
+        Pair(StateSet first, StateSet second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Pair pair = (Pair) o;
+            return first.equals(pair.first) && second.equals(pair.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(first, second);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package automata.core;
+
+/**
+ * The ways a regular expression can be turned into a graph, see {@link Graph#fromRegex(String, String[],
+ * RegexConstruction)}
+ */
+public enum RegexConstruction {
+    /**
+     * Thompson's construction, which builds an NFA with epsilon transitions. The number of nodes and transitions grows
+     * linearly with the length of the pattern, so this gives the smallest graph
+     */
+    THOMPSON,
+
+    /**
+     * Glushkov's construction, which builds an NFA without epsilon transitions that has one node for every symbol in
+     * the pattern plus a start node. Every transition into a node is over that node's symbol. There can be more
+     * transitions than with {@link #THOMPSON}, quadratically many in the worst case, but no epsilon-closures have to be
+     * followed while matching
+     */
+    GLUSHKOV
+}
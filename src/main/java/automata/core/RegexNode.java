@@ -0,0 +1,177 @@
+package automata.core;
+
+import java.util.List;
+
+/**
+ * A node of the syntax tree of a regular expression, either parsed by {@link RegexParser} or built by
+ * {@link StateElimination}. Nodes are immutable and compare by structure, so equal subexpressions can be found when
+ * simplifying
+ */
+abstract class RegexNode {
+    /**
+     * Number of symbols and operators in the expression, counting shared subexpressions every time they appear
+     */
+    final long size;
+
+    /**
+     * Whether the expression matches the empty word
+     */
+    final boolean nullable;
+
+    private int hash;
+
+    private RegexNode(long size, boolean nullable) {
+        this.size = size;
+        this.nullable = nullable;
+    }
+
+    abstract int computeHash();
+
+    @Override
+    public int hashCode() {
+        // The hash is cached since expressions built by state elimination share a lot of subexpressions
+        if (hash == 0) hash = computeHash();
+        return hash;
+    }
+
+    /**
+     * Matches a single symbol
+     */
+    static final class SymbolNode extends RegexNode {
+        /**
+         * Position of the symbol in the alphabet
+         */
+        final int symbolId;
+
+        SymbolNode(int symbolId) {
+            super(1, false);
+            this.symbolId = symbolId;
+        }
+
+        @Override
+        int computeHash() {
+            return symbolId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof SymbolNode && ((SymbolNode) o).symbolId == symbolId;
+        }
+    }
+
+    /**
+     * Matches only the empty word
+     */
+    static final class EmptyWordNode extends RegexNode {
+        static final EmptyWordNode INSTANCE = new EmptyWordNode();
+
+        private EmptyWordNode() {
+            super(1, true);
+        }
+
+        @Override
+        int computeHash() {
+            return -1;
+        }
+    }
+
+    /**
+     * Matches the parts one after another. There are always at least 2 parts
+     */
+    static final class ConcatenationNode extends RegexNode {
+        final List<RegexNode> parts;
+
+        ConcatenationNode(List<RegexNode> parts) {
+            super(sizeOf(parts), allNullable(parts));
+            this.parts = parts;
+        }
+
+        private static boolean allNullable(List<RegexNode> parts) {
+            for (RegexNode part : parts) {
+                if (!part.nullable) return false;
+            }
+            return true;
+        }
+
+        @Override
+        int computeHash() {
+            return parts.hashCode() * 31 + 1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof ConcatenationNode && o.hashCode() == hashCode()
+                    && ((ConcatenationNode) o).parts.equals(parts);
+        }
+    }
+
+    /**
+     * Matches any one of the options. There are always at least 2 options
+     */
+    static final class UnionNode extends RegexNode {
+        final List<RegexNode> options;
+
+        UnionNode(List<RegexNode> options) {
+            super(sizeOf(options), anyNullable(options));
+            this.options = options;
+        }
+
+        private static boolean anyNullable(List<RegexNode> options) {
+            for (RegexNode option : options) {
+                if (option.nullable) return true;
+            }
+            return false;
+        }
+
+        @Override
+        int computeHash() {
+            return options.hashCode() * 31 + 2;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof UnionNode && o.hashCode() == hashCode()
+                    && ((UnionNode) o).options.equals(options);
+        }
+    }
+
+    /**
+     * Matches the inner expression repeated. <code>*</code> allows zero and many repetitions, <code>+</code> only many
+     * and <code>?</code> only zero
+     */
+    static final class RepeatNode extends RegexNode {
+        final RegexNode inner;
+        final boolean allowsZero;
+        final boolean allowsMany;
+
+        RepeatNode(RegexNode inner, boolean allowsZero, boolean allowsMany) {
+            super(inner.size + 1, allowsZero || inner.nullable);
+            this.inner = inner;
+            this.allowsZero = allowsZero;
+            this.allowsMany = allowsMany;
+        }
+
+        @Override
+        int computeHash() {
+            return inner.hashCode() * 31 + (allowsZero ? 4 : 0) + (allowsMany ? 8 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RepeatNode)) return false;
+
+            RepeatNode other = (RepeatNode) o;
+            return other.allowsZero == allowsZero && other.allowsMany == allowsMany && other.inner.equals(inner);
+        }
+    }
+
+    /**
+     * Adds up the sizes of some parts plus one for each operator between them
+     */
+    private static long sizeOf(List<RegexNode> parts) {
+        long size = parts.size() - 1;
+        for (RegexNode part : parts) size += part.size;
+        return size;
+    }
+}
@@ -0,0 +1,175 @@
+package automata.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses a regular expression over an alphabet into a syntax tree. The syntax is
+ * <ul>
+ *     <li><code>r|s</code> matches r or s, and an empty option like in <code>r|</code> matches the empty word</li>
+ *     <li><code>rs</code> matches r followed by s</li>
+ *     <li><code>r*</code>, <code>r+</code> and <code>r?</code> match r any number of times, at least once and at
+ *     most once</li>
+ *     <li><code>(r)</code> groups r, and <code>()</code> matches the empty word</li>
+ *     <li><code>.</code> matches any symbol of the alphabet</li>
+ *     <li><code>&lt;name&gt;</code> matches the symbol <code>name</code>, for symbols longer than 1 character</li>
+ *     <li><code>\c</code> matches the character c as a symbol even if it is one of the characters above</li>
+ *     <li>Any other character matches itself as a symbol</li>
+ * </ul>
+ * The parser runs in linear time. Unions and concatenations are kept flat, so a pattern with thousands of options
+ * doesn't build a deep tree.
+ */
+final class RegexParser {
+    private final String pattern;
+    private final String[] alphabet;
+    private final Map<String, Integer> symbolIds;
+    private int index;
+
+    /**
+     * Number of symbol nodes in the tree, which is the number of positions for {@link GlushkovConstruction}
+     */
+    private int symbolCount;
+
+    private RegexParser(String pattern, String[] alphabet) {
+        this.pattern = pattern;
+        this.alphabet = alphabet;
+        this.symbolIds = new HashMap<>();
+        for (int i = 0; i < alphabet.length; i++) symbolIds.putIfAbsent(alphabet[i], i);
+    }
+
+    /**
+     * The result of parsing a pattern
+     */
+    static final class ParsedRegex {
+        final RegexNode root;
+        final int symbolCount;
+
+        private ParsedRegex(RegexNode root, int symbolCount) {
+            this.root = root;
+            this.symbolCount = symbolCount;
+        }
+    }
+
+    /**
+     * Parses a pattern
+     *
+     * @param pattern  Pattern to parse
+     * @param alphabet Alphabet the symbols of the pattern must come from
+     * @return The syntax tree of the pattern
+     * @throws RegexSyntaxException    If the pattern isn't a valid regular expression
+     * @throws SymbolNotFoundException If the pattern uses a symbol that isn't in the alphabet
+     */
+    static ParsedRegex parse(String pattern, String[] alphabet) {
+        RegexParser parser = new RegexParser(pattern, alphabet);
+        RegexNode root = parser.parseUnion();
+
+        if (parser.index < pattern.length()) throw parser.error("Unmatched ')'");
+
+        return new ParsedRegex(root, parser.symbolCount);
+    }
+
+    private RegexNode parseUnion() {
+        RegexNode first = parseConcatenation();
+        if (!peek('|')) return first;
+
+        List<RegexNode> options = new ArrayList<>();
+        options.add(first);
+        while (peek('|')) {
+            index++;
+            options.add(parseConcatenation());
+        }
+
+        return new RegexNode.UnionNode(options);
+    }
+
+    private RegexNode parseConcatenation() {
+        List<RegexNode> parts = new ArrayList<>();
+        while (index < pattern.length() && !peek('|') && !peek(')')) parts.add(parseRepeat());
+
+        if (parts.isEmpty()) return RegexNode.EmptyWordNode.INSTANCE;
+        if (parts.size() == 1) return parts.get(0);
+        return new RegexNode.ConcatenationNode(parts);
+    }
+
+    private RegexNode parseRepeat() {
+        RegexNode node = parseAtom();
+
+        while (index < pattern.length()) {
+            char c = pattern.charAt(index);
+            if (c == '*') node = new RegexNode.RepeatNode(node, true, true);
+            else if (c == '+') node = new RegexNode.RepeatNode(node, false, true);
+            else if (c == '?') node = new RegexNode.RepeatNode(node, true, false);
+            else break;
+
+            index++;
+        }
+
+        return node;
+    }
+
+    private RegexNode parseAtom() {
+        char c = pattern.charAt(index);
+
+        switch (c) {
+            case '(': {
+                int open = index++;
+                RegexNode inner = parseUnion();
+                if (!peek(')')) throw new RegexSyntaxException("Unclosed '('", pattern, open);
+                index++;
+                return inner;
+            }
+            case '*':
+            case '+':
+            case '?':
+                throw error("Nothing to repeat before '" + c + "'");
+            case '.': {
+                // A union of no options would act as the empty word, so there has to be a symbol to match
+                if (alphabet.length == 0) throw error("'.' needs a symbol in the alphabet to match");
+                index++;
+
+                List<RegexNode> options = new ArrayList<>(alphabet.length);
+                for (int i = 0; i < alphabet.length; i++) {
+                    if (symbolIds.get(alphabet[i]) == i) options.add(symbol(i));
+                }
+                return options.size() == 1 ? options.get(0) : new RegexNode.UnionNode(options);
+            }
+            case '<': {
+                int close = pattern.indexOf('>', index + 1);
+                if (close == -1) throw error("Unclosed '<'");
+
+                String name = pattern.substring(index + 1, close);
+                index = close + 1;
+                return symbol(name);
+            }
+            case '\\':
+                if (index + 1 == pattern.length()) throw error("Nothing to escape after '\\'");
+                index += 2;
+                return symbol(String.valueOf(pattern.charAt(index - 1)));
+            default:
+                index++;
+                return symbol(String.valueOf(c));
+        }
+    }
+
+    private RegexNode symbol(String name) {
+        Integer symbolId = symbolIds.get(name);
+        if (symbolId == null) throw new SymbolNotFoundException(name);
+
+        return symbol(symbolId);
+    }
+
+    private RegexNode symbol(int symbolId) {
+        symbolCount++;
+        return new RegexNode.SymbolNode(symbolId);
+    }
+
+    private boolean peek(char c) {
+        return index < pattern.length() && pattern.charAt(index) == c;
+    }
+
+    private RegexSyntaxException error(String description) {
+        return new RegexSyntaxException(description, pattern, index);
+    }
+}
@@ -0,0 +1,29 @@
+package automata.core;
+
+/**
+ * This exception is thrown when a regular expression can't be parsed
+ */
+public class RegexSyntaxException extends RuntimeException {
+    private final String pattern;
+    private final int index;
+
+    public RegexSyntaxException(String description, String pattern, int index) {
+        super(description + " at index " + index + " of the pattern '" + pattern + "'");
+        this.pattern = pattern;
+        this.index = index;
+    }
+
+    /**
+     * @return The pattern that couldn't be parsed
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return Index of the character in the pattern where the error was found
+     */
+    public int getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,67 @@
+package automata.core;
+
+import java.util.Arrays;
+
+/**
+ * A set of state ids between 0 and a fixed capacity. Adding, checking membership and clearing are all O(1), which makes
+ * it suitable for tracking the active states of an NFA without deduplicating through a list
+ */
+final class SparseSet {
+    private final int[] dense;
+    private final int[] sparse;
+    private int size;
+
+    /**
+     * @param capacity Largest state id that can be stored plus one
+     */
+    SparseSet(int capacity) {
+        dense = new int[capacity];
+        sparse = new int[capacity];
+    }
+
+    boolean contains(int state) {
+        int index = sparse[state];
+        return index < size && dense[index] == state;
+    }
+
+    /**
+     * @param state State to add
+     * @return true if the state wasn't already in the set
+     */
+    boolean add(int state) {
+        if (contains(state)) return false;
+
+        sparse[state] = size;
+        dense[size++] = state;
+        return true;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index Index between 0 and {@link #size()}, in the order the states were added
+     * @return The state at that index
+     */
+    int get(int index) {
+        return dense[index];
+    }
+
+    /**
+     * @return The states in the set in ascending order
+     */
+    int[] toSortedArray() {
+        int[] states = Arrays.copyOf(dense, size);
+        Arrays.sort(states);
+        return states;
+    }
+}
@@ -0,0 +1,392 @@
+package automata.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts a {@link FrozenGraph} into a regular expression by state elimination.
+ * <p>
+ * A new start state leads to the start state by an empty word edge, and every accepting state leads to a new final
+ * state the same way. Each edge is labelled with a regular expression. States that can't be reached from the start
+ * state or can't reach an accepting state are dropped first, since they can't add any words. Then the states are
+ * removed one at a time: for every edge p -&gt; q over r1 and q -&gt; t over r3, where q loops over r2, the edge
+ * p -&gt; t gets r1 r2* r3 added to it. The expression on the edge from the new start state to the new final state is
+ * the result.
+ * <p>
+ * The order states are removed in decides how big the expression gets. The state removed next is the one with the
+ * fewest (in-degree x out-degree) new edges, with ties broken by the total size of the expressions the removal would
+ * copy. Expressions are simplified as they are built (the empty word is dropped from concatenations, unions are
+ * flattened and duplicate options removed, common first and last parts are factored out of unions, <code>r r*</code>
+ * becomes <code>r+</code> and so on) and equal
+ * subexpressions are shared rather than copied, so memory grows with the number of distinct subexpressions.
+ */
+final class StateElimination {
+    private final FrozenGraph graph;
+
+    /**
+     * Outgoing and incoming edges of every state, not counting loops. The new start state is
+     * <code>graph.getStateCount()</code> and the new final state is the one after it
+     */
+    private final List<Map<Integer, RegexNode>> out = new ArrayList<>();
+    private final List<Map<Integer, RegexNode>> in = new ArrayList<>();
+    private final RegexNode[] loops;
+    private final boolean[] removed;
+    private final RegexNode[] symbols;
+
+    private StateElimination(FrozenGraph graph) {
+        this.graph = graph;
+
+        int states = graph.getStateCount() + 2;
+        for (int s = 0; s < states; s++) {
+            out.add(new HashMap<>());
+            in.add(new HashMap<>());
+        }
+        loops = new RegexNode[states];
+        removed = new boolean[states];
+
+        symbols = new RegexNode[graph.getAlphabetSize()];
+        for (int a = 0; a < symbols.length; a++) symbols[a] = new RegexNode.SymbolNode(a);
+    }
+
+    /**
+     * Converts a graph into a regular expression
+     *
+     * @param graph Graph to convert
+     * @return The regular expression in the syntax of {@link RegexParser}, or null if no word is accepted
+     * @throws NoStartNodeException If the graph has no start node
+     */
+    static String toRegex(FrozenGraph graph) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        StateElimination elimination = new StateElimination(graph);
+        RegexNode result = elimination.eliminate();
+        if (result == null) return null;
+
+        StringBuilder regex = new StringBuilder();
+        elimination.append(regex, result, UNION);
+        return regex.toString();
+    }
+
+    private RegexNode eliminate() {
+        int start = graph.getStateCount(), end = start + 1;
+
+        addReachableEdges(start, end);
+        removeDeadStates(end);
+
+        while (true) {
+            int state = nextState();
+            if (state == -1) break;
+            removeState(state);
+        }
+
+        return out.get(start).get(end);
+    }
+
+    /**
+     * Adds the edges of every state reachable from the start state, along with the edges from the new start state and
+     * to the new final state
+     */
+    private void addReachableEdges(int start, int end) {
+        boolean[] reached = new boolean[graph.getStateCount()];
+        List<Integer> queue = new ArrayList<>();
+        reached[graph.getStartState()] = true;
+        queue.add(graph.getStartState());
+        addEdge(start, graph.getStartState(), RegexNode.EmptyWordNode.INSTANCE);
+
+        for (int i = 0; i < queue.size(); i++) {
+            int s = queue.get(i);
+            if (graph.isAccepting(s)) addEdge(s, end, RegexNode.EmptyWordNode.INSTANCE);
+
+            for (int a = 0; a < graph.getAlphabetSize(); a++) {
+                for (int t = graph.transitionsStart(s, a), last = graph.transitionsEnd(s, a); t < last; t++) {
+                    int target = graph.target(t);
+                    addEdge(s, target, symbols[a]);
+                    if (!reached[target]) {
+                        reached[target] = true;
+                        queue.add(target);
+                    }
+                }
+            }
+            for (int t = graph.epsilonStart(s), last = graph.epsilonEnd(s); t < last; t++) {
+                int target = graph.epsilonTarget(t);
+                addEdge(s, target, RegexNode.EmptyWordNode.INSTANCE);
+                if (!reached[target]) {
+                    reached[target] = true;
+                    queue.add(target);
+                }
+            }
+        }
+
+        for (int s = 0; s < reached.length; s++) removed[s] = !reached[s];
+    }
+
+    /**
+     * Removes the states that can't reach the new final state along with their edges, without adding any new edges
+     */
+    private void removeDeadStates(int end) {
+        boolean[] alive = new boolean[removed.length];
+        List<Integer> queue = new ArrayList<>();
+        alive[end] = true;
+        queue.add(end);
+
+        for (int i = 0; i < queue.size(); i++) {
+            for (int p : in.get(queue.get(i)).keySet()) {
+                if (!alive[p]) {
+                    alive[p] = true;
+                    queue.add(p);
+                }
+            }
+        }
+
+        for (int s = 0; s < graph.getStateCount(); s++) {
+            if (alive[s] || removed[s]) continue;
+
+            for (int p : in.get(s).keySet()) out.get(p).remove(s);
+            for (int t : out.get(s).keySet()) in.get(t).remove(s);
+            removed[s] = true;
+        }
+    }
+
+    /**
+     * Picks the state to remove next
+     *
+     * @return The state, or -1 if only the new start and final states are left
+     */
+    private int nextState() {
+        int best = -1;
+        long bestEdges = Long.MAX_VALUE, bestWeight = Long.MAX_VALUE;
+
+        for (int s = 0; s < graph.getStateCount(); s++) {
+            if (removed[s]) continue;
+
+            long inDegree = in.get(s).size(), outDegree = out.get(s).size();
+            long edges = inDegree * outDegree;
+            if (edges > bestEdges) continue;
+
+            // The size of everything the removal copies: each incoming expression once per outgoing edge and so on
+            long weight = loops[s] == null ? 0 : loops[s].size * (edges - 1);
+            for (RegexNode r : in.get(s).values()) weight += r.size * (outDegree - 1);
+            for (RegexNode r : out.get(s).values()) weight += r.size * (inDegree - 1);
+
+            if (edges < bestEdges || weight < bestWeight) {
+                best = s;
+                bestEdges = edges;
+                bestWeight = weight;
+            }
+        }
+
+        return best;
+    }
+
+    private void removeState(int state) {
+        RegexNode loop = loops[state] == null ? RegexNode.EmptyWordNode.INSTANCE : star(loops[state]);
+
+        for (Map.Entry<Integer, RegexNode> incoming : in.get(state).entrySet()) {
+            RegexNode prefix = concat(incoming.getValue(), loop);
+            for (Map.Entry<Integer, RegexNode> outgoing : out.get(state).entrySet()) {
+                addEdge(incoming.getKey(), outgoing.getKey(), concat(prefix, outgoing.getValue()));
+            }
+        }
+
+        for (int p : in.get(state).keySet()) out.get(p).remove(state);
+        for (int t : out.get(state).keySet()) in.get(t).remove(state);
+        in.get(state).clear();
+        out.get(state).clear();
+        loops[state] = null;
+        removed[state] = true;
+    }
+
+    private void addEdge(int from, int to, RegexNode r) {
+        if (from == to) {
+            loops[from] = union(loops[from], r);
+        } else {
+            RegexNode combined = union(out.get(from).get(to), r);
+            out.get(from).put(to, combined);
+            in.get(to).put(from, combined);
+        }
+    }
+
+    /**
+     * @param a Expression or null for the empty language
+     * @param b Expression
+     * @return An expression matching a or b
+     */
+    static RegexNode union(RegexNode a, RegexNode b) {
+        if (a == null || a.equals(b)) return b;
+
+        // Factor out a common first or last part, so r s | t s becomes (r|t)s
+        if (!(a instanceof RegexNode.UnionNode) && !(b instanceof RegexNode.UnionNode)
+                && !(a instanceof RegexNode.EmptyWordNode) && !(b instanceof RegexNode.EmptyWordNode)) {
+            List<RegexNode> aParts = new ArrayList<>(), bParts = new ArrayList<>();
+            addParts(aParts, a);
+            addParts(bParts, b);
+            int aLast = aParts.size() - 1, bLast = bParts.size() - 1;
+
+            if (aParts.get(aLast).equals(bParts.get(bLast))) {
+                return concat(union(sequence(aParts, 0, aLast), sequence(bParts, 0, bLast)), aParts.get(aLast));
+            }
+            if (aParts.get(0).equals(bParts.get(0))) {
+                return concat(aParts.get(0), union(sequence(aParts, 1, aLast + 1), sequence(bParts, 1, bLast + 1)));
+            }
+        }
+
+        Set<RegexNode> options = new LinkedHashSet<>();
+        boolean emptyWord = addOptions(options, a) | addOptions(options, b);
+
+        RegexNode result;
+        if (options.isEmpty()) return RegexNode.EmptyWordNode.INSTANCE;
+        else if (options.size() == 1) result = options.iterator().next();
+        else result = new RegexNode.UnionNode(new ArrayList<>(options));
+
+        return emptyWord ? optional(result) : result;
+    }
+
+    /**
+     * Adds the options of a union to a set, leaving out the empty word
+     *
+     * @return Whether the empty word was left out
+     */
+    private static boolean addOptions(Set<RegexNode> options, RegexNode r) {
+        if (r instanceof RegexNode.EmptyWordNode) return true;
+
+        if (r instanceof RegexNode.RepeatNode && !((RegexNode.RepeatNode) r).allowsMany) {
+            addOptions(options, ((RegexNode.RepeatNode) r).inner);
+            return true;
+        }
+
+        if (r instanceof RegexNode.UnionNode) options.addAll(((RegexNode.UnionNode) r).options);
+        else options.add(r);
+        return false;
+    }
+
+    static RegexNode optional(RegexNode r) {
+        if (r.nullable) return r;
+        if (r instanceof RegexNode.RepeatNode) return star(((RegexNode.RepeatNode) r).inner);
+        return new RegexNode.RepeatNode(r, true, false);
+    }
+
+    static RegexNode star(RegexNode r) {
+        if (r instanceof RegexNode.EmptyWordNode) return r;
+        if (r instanceof RegexNode.RepeatNode) return star(((RegexNode.RepeatNode) r).inner);
+        return new RegexNode.RepeatNode(r, true, true);
+    }
+
+    /**
+     * @return An expression matching a followed by b
+     */
+    static RegexNode concat(RegexNode a, RegexNode b) {
+        if (a instanceof RegexNode.EmptyWordNode) return b;
+        if (b instanceof RegexNode.EmptyWordNode) return a;
+
+        List<RegexNode> parts = new ArrayList<>();
+        addParts(parts, a);
+
+        List<RegexNode> after = new ArrayList<>();
+        addParts(after, b);
+
+        // Only the parts where a and b meet can be merged, the rest were simplified already
+        RegexNode merged = merge(parts.get(parts.size() - 1), after.get(0));
+        if (merged != null) {
+            parts.set(parts.size() - 1, merged);
+            after.remove(0);
+        }
+        parts.addAll(after);
+
+        return parts.size() == 1 ? parts.get(0) : new RegexNode.ConcatenationNode(parts);
+    }
+
+    /**
+     * @return The concatenation of <code>parts[from]</code> up to (but not including) <code>parts[to]</code>
+     */
+    private static RegexNode sequence(List<RegexNode> parts, int from, int to) {
+        if (from == to) return RegexNode.EmptyWordNode.INSTANCE;
+        if (to - from == 1) return parts.get(from);
+        return new RegexNode.ConcatenationNode(new ArrayList<>(parts.subList(from, to)));
+    }
+
+    private static void addParts(List<RegexNode> parts, RegexNode r) {
+        if (r instanceof RegexNode.ConcatenationNode) parts.addAll(((RegexNode.ConcatenationNode) r).parts);
+        else parts.add(r);
+    }
+
+    /**
+     * Merges r r*, r* r, r* r* and the like into a single repetition
+     *
+     * @return The merged expression, or null if the parts can't be merged
+     */
+    private static RegexNode merge(RegexNode first, RegexNode second) {
+        RegexNode.RepeatNode firstRepeat = loop(first), secondRepeat = loop(second);
+
+        if (firstRepeat != null && secondRepeat != null && firstRepeat.inner.equals(secondRepeat.inner)) {
+            // r* r* is r*, and r+ r* or r* r+ is r+. r+ r+ needs at least two copies of r, so it stays as it is
+            if (!firstRepeat.allowsZero && !secondRepeat.allowsZero) return null;
+            return firstRepeat.allowsZero && secondRepeat.allowsZero ? firstRepeat
+                    : new RegexNode.RepeatNode(firstRepeat.inner, false, true);
+        }
+        if (firstRepeat != null && firstRepeat.allowsZero && firstRepeat.inner.equals(second)) {
+            return new RegexNode.RepeatNode(second, false, true);
+        }
+        if (secondRepeat != null && secondRepeat.allowsZero && secondRepeat.inner.equals(first)) {
+            return new RegexNode.RepeatNode(first, false, true);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return r if it is a <code>*</code> or <code>+</code> repetition, otherwise null
+     */
+    private static RegexNode.RepeatNode loop(RegexNode r) {
+        if (r instanceof RegexNode.RepeatNode && ((RegexNode.RepeatNode) r).allowsMany) return (RegexNode.RepeatNode) r;
+        return null;
+    }
+
+    // Precedence levels, from loosest to tightest binding
+    private static final int UNION = 0;
+    private static final int CONCATENATION = 1;
+    private static final int REPEAT = 2;
+
+    /**
+     * Writes an expression, putting it in brackets if it binds more loosely than its surroundings need
+     *
+     * @param level The loosest precedence level that can be written without brackets
+     */
+    private void append(StringBuilder regex, RegexNode r, int level) {
+        if (r instanceof RegexNode.SymbolNode) {
+            appendSymbol(regex, graph.getSymbol(((RegexNode.SymbolNode) r).symbolId));
+        } else if (r instanceof RegexNode.EmptyWordNode) {
+            regex.append("()");
+        } else if (r instanceof RegexNode.ConcatenationNode) {
+            if (level > CONCATENATION) regex.append('(');
+            for (RegexNode part : ((RegexNode.ConcatenationNode) r).parts) append(regex, part, CONCATENATION);
+            if (level > CONCATENATION) regex.append(')');
+        } else if (r instanceof RegexNode.UnionNode) {
+            if (level > UNION) regex.append('(');
+            List<RegexNode> options = ((RegexNode.UnionNode) r).options;
+            for (int i = 0; i < options.size(); i++) {
+                if (i > 0) regex.append('|');
+                append(regex, options.get(i), CONCATENATION);
+            }
+            if (level > UNION) regex.append(')');
+        } else {
+            RegexNode.RepeatNode repeat = (RegexNode.RepeatNode) r;
+            if (level > REPEAT) regex.append('(');
+            append(regex, repeat.inner, REPEAT + 1);
+            regex.append(repeat.allowsMany ? repeat.allowsZero ? '*' : '+' : '?');
+            if (level > REPEAT) regex.append(')');
+        }
+    }
+
+    private static void appendSymbol(StringBuilder regex, String symbol) {
+        if (symbol.length() != 1) {
+            regex.append('<').append(symbol).append('>');
+        } else {
+            if ("|*+?().<>\\".indexOf(symbol.charAt(0)) != -1) regex.append('\\');
+            regex.append(symbol);
+        }
+    }
+}
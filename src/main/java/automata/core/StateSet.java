@@ -0,0 +1,38 @@
+package automata.core;
+
+import java.util.Arrays;
+
+/**
+ * An immutable, sorted set of NFA state ids that can be used as a hash key, e.g. to intern the states found by the
+ * subset construction
+ */
+final class StateSet {
+    final int[] states;
+    private final int hash;
+
+    /**
+     * @param states State ids in ascending order without duplicates. The array must not be modified afterwards
+     */
+    StateSet(int[] states) {
+        this.states = states;
+        this.hash = Arrays.hashCode(states);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StateSet stateSet = (StateSet) o;
+        return hash == stateSet.hash && Arrays.equals(states, stateSet.states);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(states);
+    }
+}
@@ -0,0 +1,243 @@
+package automata.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tests a whole stream as one word against a {@link FrozenGraph}, reading it in fixed size buffers so inputs of any
+ * size are matched in constant memory.
+ * <p>
+ * Every byte (or char, for a {@link Reader}) is one symbol. A byte is looked up as the single character symbol with
+ * the same value (ISO-8859-1), so alphabets made of ASCII characters work on raw bytes directly. A byte or char
+ * outside the alphabet rejects the input. Reading stops as soon as the result is known, so the input may not be read
+ * to the end.
+ * <p>
+ * DFAs are matched with a {@link CompiledDFA} table, NFAs with a {@link Matcher}. The buffers are allocated once, so a
+ * stream matcher can be reused for any number of inputs, but it is not thread safe.
+ */
+public final class StreamMatcher {
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Largest region of a file that is mapped at once
+     */
+    static final int MAX_MAPPED_REGION = 1 << 30;
+
+    private final FrozenGraph graph;
+    private final CompiledDFA dfa;
+    private final Matcher matcher;
+
+    /**
+     * Maps an unsigned byte to its symbol id, or -1 if it isn't in the alphabet
+     */
+    private final int[] byteToSymbol = new int[256];
+
+    private final ByteBuffer byteBuffer;
+    private final char[] charBuffer;
+
+    // Position in the automaton while an input is being read
+    private int state;
+
+    StreamMatcher(FrozenGraph graph, int bufferSize) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+        if (bufferSize < 1) throw new IllegalArgumentException("The buffer size must be positive");
+
+        this.graph = graph;
+        this.dfa = graph.isDeterministic() ? graph.compile() : null;
+        this.matcher = dfa == null ? graph.matcher() : null;
+
+        for (int b = 0; b < byteToSymbol.length; b++) byteToSymbol[b] = graph.getSymbolId((char) b);
+
+        byteBuffer = ByteBuffer.allocate(bufferSize);
+        charBuffer = new char[bufferSize];
+    }
+
+    /**
+     * @return The graph this matcher tests inputs against
+     */
+    public FrozenGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Tests whether the bytes of a stream form an accepted word. The stream is not closed
+     *
+     * @param in Stream to read
+     * @return true if the bytes read up to the end of the stream are accepted
+     * @throws IOException If reading fails
+     */
+    public boolean accepts(InputStream in) throws IOException {
+        byte[] buffer = byteBuffer.array();
+
+        start();
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            if (!feed(buffer, read)) return false;
+        }
+
+        return end();
+    }
+
+    /**
+     * Tests whether the bytes of a channel form an accepted word. The channel is not closed
+     *
+     * @param channel Channel to read
+     * @return true if the bytes read up to the end of the channel are accepted
+     * @throws IOException If reading fails
+     */
+    public boolean accepts(ReadableByteChannel channel) throws IOException {
+        byte[] buffer = byteBuffer.array();
+
+        start();
+        while (true) {
+            byteBuffer.clear();
+            if (channel.read(byteBuffer) == -1) break;
+            if (!feed(buffer, byteBuffer.position())) return false;
+        }
+
+        return end();
+    }
+
+    /**
+     * Tests whether the bytes of a file form an accepted word. The file is memory mapped a region at a time instead of
+     * being copied through the buffer
+     *
+     * @param file File to read
+     * @return true if the contents of the file are accepted
+     * @throws IOException If the file can't be opened or mapped
+     */
+    public boolean accepts(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            start();
+            for (long position = 0; position < size; position += MAX_MAPPED_REGION) {
+                long length = Math.min(MAX_MAPPED_REGION, size - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (!feed(region)) return false;
+            }
+
+            return end();
+        }
+    }
+
+    /**
+     * Tests whether the chars of a reader form an accepted word. Every char is treated as a single character symbol.
+     * The reader is not closed
+     *
+     * @param reader Reader to read
+     * @return true if the chars read up to the end of the reader are accepted
+     * @throws IOException If reading fails
+     */
+    public boolean accepts(Reader reader) throws IOException {
+        start();
+        for (int read; (read = reader.read(charBuffer)) != -1; ) {
+            if (!feed(charBuffer, read)) return false;
+        }
+
+        return end();
+    }
+
+    private void start() {
+        if (dfa != null) state = dfa.getStartState();
+        else matcher.start();
+    }
+
+    private boolean end() {
+        return dfa != null ? dfa.isAccepting(state) : matcher.end();
+    }
+
+    /**
+     * Steps through a buffer of bytes
+     *
+     * @return false if the input can no longer be accepted
+     */
+    private boolean feed(byte[] buffer, int length) {
+        if (dfa != null) {
+            int state = this.state;
+            for (int i = 0; i < length; i++) {
+                int symbolId = byteToSymbol[buffer[i] & 0xFF];
+                if (symbolId == -1 || (state = dfa.next(state, symbolId)) == CompiledDFA.DEAD) return false;
+            }
+            this.state = state;
+        } else {
+            for (int i = 0; i < length; i++) {
+                if (!step(byteToSymbol[buffer[i] & 0xFF])) return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Steps through the remaining bytes of a buffer
+     *
+     * @return false if the input can no longer be accepted
+     */
+    private boolean feed(ByteBuffer buffer) {
+        int end = buffer.limit();
+
+        if (dfa != null) {
+            int state = this.state;
+            for (int i = buffer.position(); i < end; i++) {
+                int symbolId = byteToSymbol[buffer.get(i) & 0xFF];
+                if (symbolId == -1 || (state = dfa.next(state, symbolId)) == CompiledDFA.DEAD) return false;
+            }
+            this.state = state;
+        } else {
+            for (int i = buffer.position(); i < end; i++) {
+                if (!step(byteToSymbol[buffer.get(i) & 0xFF])) return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Steps through a buffer of chars
+     *
+     * @return false if the input can no longer be accepted
+     */
+    private boolean feed(char[] buffer, int length) {
+        if (dfa != null) {
+            int state = this.state;
+            for (int i = 0; i < length; i++) {
+                int symbolId = graph.getSymbolId(buffer[i]);
+                if (symbolId == -1 || (state = dfa.next(state, symbolId)) == CompiledDFA.DEAD) return false;
+            }
+            this.state = state;
+        } else {
+            for (int i = 0; i < length; i++) {
+                if (!step(graph.getSymbolId(buffer[i]))) return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Applies one symbol to the NFA matcher
+     *
+     * @return false if the input can no longer be accepted
+     */
+    private boolean step(int symbolId) {
+        if (symbolId == -1) {
+            matcher.reset();
+            return false;
+        }
+
+        matcher.step(symbolId);
+        if (matcher.isStuck()) {
+            matcher.reset();
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -3,12 +3,23 @@ package automata.core;
 import java.io.Serializable;
 import java.util.Objects;
 
+/**
+ * A symbol of an alphabet. Each {@link Graph} interns the symbols of its alphabet, giving each one an id that is its
+ * position in the alphabet, so matching can compare ids instead of strings. Symbols are equal if they have the same
+ * string representation, whether or not they have been interned
+ */
 public class Symbol implements Serializable {
     private static final long serialVersionUID = 7001254062522064867L;
 
+    /**
+     * The id of a symbol that doesn't belong to an alphabet, including {@link #EPSILON}
+     */
+    public static final int NO_ID = -1;
+
     public static final Symbol EPSILON = fromString("");
     private String stringRepresentation;
     private boolean isEpsilon;
+    private int id = NO_ID;
 
     private Symbol() {
     }
@@ -21,6 +32,35 @@ public class Symbol implements Serializable {
         return symbol;
     }
 
+    /**
+     * Creates the interned symbol for a position in an alphabet
+     *
+     * @param s  The symbol
+     * @param id Position of the symbol in the alphabet
+     * @return The symbol
+     */
+    static Symbol fromString(String s, int id) {
+        Symbol symbol = fromString(s);
+        symbol.id = id;
+
+        return symbol;
+    }
+
+    /**
+     * @return The position of the symbol in the alphabet of the graph that interned it, or {@link #NO_ID} if it
+     * hasn't been interned
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return Whether this is the empty symbol, which a transition can be taken over without consuming any input
+     */
+    public boolean isEpsilon() {
+        return isEpsilon;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -29,6 +69,11 @@ public class Symbol implements Serializable {
         return Objects.equals(stringRepresentation, symbol.stringRepresentation);
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(stringRepresentation);
+    }
+
     @Override
     public String toString() {
         return stringRepresentation;
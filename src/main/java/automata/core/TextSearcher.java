@@ -0,0 +1,163 @@
+package automata.core;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the substrings of a text that are accepted by a {@link FrozenGraph}, like grep does for a regular expression.
+ * <p>
+ * The text is read once from start to end. Instead of running the graph again from every offset, the start state is
+ * added to the active states before every symbol, and each active state remembers the leftmost offset it was started
+ * from. Whenever an accepting state is active, a match is reported from that offset to the current one, so every
+ * offset where an accepted substring ends is reported once, with the longest substring that ends there. This takes
+ * O(text length * states) time and no memory beyond a few arrays sized by the number of states.
+ * <p>
+ * If the empty word is accepted, an empty match is reported at offsets where no longer match ends. Symbols outside the
+ * alphabet can't be part of a match. A searcher can be reused for any number of texts but is not thread safe.
+ */
+public final class TextSearcher {
+    private final FrozenGraph graph;
+
+    /**
+     * Maps an unsigned byte to its symbol id, or -1 if it isn't in the alphabet
+     */
+    private final int[] byteToSymbol = new int[256];
+
+    // Active states and the leftmost offset each was started from, for the current and the next offset
+    private SparseSet current;
+    private SparseSet next;
+    private long[] currentStarts;
+    private long[] nextStarts;
+
+    TextSearcher(FrozenGraph graph) {
+        if (graph.getStartState() == FrozenGraph.NO_STATE) throw new NoStartNodeException();
+
+        this.graph = graph;
+        for (int b = 0; b < byteToSymbol.length; b++) byteToSymbol[b] = graph.getSymbolId((char) b);
+
+        int states = graph.getStateCount();
+        current = new SparseSet(states);
+        next = new SparseSet(states);
+        currentStarts = new long[states];
+        nextStarts = new long[states];
+    }
+
+    /**
+     * @return The graph this searcher matches substrings against
+     */
+    public FrozenGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Searches a text. Every character of the text is treated as a single character symbol
+     *
+     * @param text     Text to search
+     * @param listener Called for every match, in order of the end offsets
+     */
+    public void search(CharSequence text, MatchListener listener) {
+        current.clear();
+
+        for (int i = 0, length = text.length(); i < length; i++) {
+            restart(i, listener);
+            step(graph.getSymbolId(text.charAt(i)));
+        }
+        restart(text.length(), listener);
+    }
+
+    /**
+     * Searches the bytes of a file, memory mapping it a region at a time. A byte is looked up as the single character
+     * symbol with the same value (ISO-8859-1), and offsets are byte offsets into the file
+     *
+     * @param file     File to search
+     * @param listener Called for every match, in order of the end offsets
+     * @throws IOException If the file can't be opened or mapped
+     */
+    public void search(Path file, MatchListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            current.clear();
+            for (long position = 0; position < size; position += StreamMatcher.MAX_MAPPED_REGION) {
+                int length = (int) Math.min(StreamMatcher.MAX_MAPPED_REGION, size - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                for (int i = 0; i < length; i++) {
+                    restart(position + i, listener);
+                    step(byteToSymbol[region.get(i) & 0xFF]);
+                }
+            }
+            restart(size, listener);
+        }
+    }
+
+    /**
+     * Collects every match in a text. Every character of the text is treated as a single character symbol
+     *
+     * @param text Text to search
+     * @return The matches in order of their end offsets
+     */
+    public List<MatchSpan> findAll(CharSequence text) {
+        List<MatchSpan> matches = new ArrayList<>();
+        search(text, (start, end) -> matches.add(new MatchSpan(start, end)));
+
+        return matches;
+    }
+
+    /**
+     * Starts the graph again at an offset and reports the match that ends there, if any
+     */
+    private void restart(long offset, MatchListener listener) {
+        // States that are already active were started earlier, so they keep their offset
+        for (int i = graph.closureStart(graph.getStartState()), end = graph.closureEnd(graph.getStartState());
+             i < end; i++) {
+            int state = graph.closureState(i);
+            if (current.add(state)) currentStarts[state] = offset;
+        }
+
+        long leftmost = Long.MAX_VALUE;
+        for (int j = 0; j < current.size(); j++) {
+            int state = current.get(j);
+            if (graph.isAccepting(state)) leftmost = Math.min(leftmost, currentStarts[state]);
+        }
+
+        if (leftmost != Long.MAX_VALUE) listener.onMatch(leftmost, offset);
+    }
+
+    /**
+     * Applies a symbol to all active states, keeping the leftmost start offset when several states lead to the same
+     * state. A symbol id of -1 (outside the alphabet) leaves no active states
+     */
+    private void step(int symbolId) {
+        next.clear();
+
+        if (symbolId != -1) {
+            for (int j = 0; j < current.size(); j++) {
+                int s = current.get(j);
+                long start = currentStarts[s];
+
+                int end = graph.transitionsEnd(s, symbolId);
+                for (int i = graph.transitionsStart(s, symbolId); i < end; i++) {
+                    int target = graph.target(i);
+                    for (int c = graph.closureStart(target), last = graph.closureEnd(target); c < last; c++) {
+                        int state = graph.closureState(c);
+                        if (next.add(state) || start < nextStarts[state]) nextStarts[state] = start;
+                    }
+                }
+            }
+        }
+
+        SparseSet swap = current;
+        current = next;
+        next = swap;
+
+        long[] swapStarts = currentStarts;
+        currentStarts = nextStarts;
+        nextStarts = swapStarts;
+    }
+}
@@ -0,0 +1,100 @@
+package automata.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds an NFA with epsilon transitions from a regular expression with Thompson's construction.
+ * <p>
+ * Each part of the expression is built from the node its match starts at and returns the node its match ends at, so
+ * concatenation just continues from where the previous part ended and needs no epsilon transitions. Repetitions loop
+ * back to a new node that nothing else leads to, so a loop can't be entered from outside its repetition. This gives at
+ * most 2 nodes and 3 transitions for each symbol and operator in the pattern.
+ */
+final class ThompsonConstruction {
+    private final Graph graph;
+    private final String[] alphabet;
+    private final List<String> labels = new ArrayList<>();
+
+    private ThompsonConstruction(String[] alphabet) {
+        this.graph = new Graph(alphabet.clone());
+        this.alphabet = alphabet;
+    }
+
+    /**
+     * Builds the NFA for a parsed regular expression. The nodes are labelled q0, q1, ... with q0 the start node and a
+     * single accepting node
+     *
+     * @param regex    Parsed regular expression
+     * @param alphabet Alphabet the expression was parsed with
+     * @return The NFA
+     */
+    static Graph build(RegexParser.ParsedRegex regex, String[] alphabet) {
+        ThompsonConstruction construction = new ThompsonConstruction(alphabet);
+
+        int start = construction.newNode();
+        int end = construction.build(regex.root, start);
+
+        construction.graph.setStartNode(construction.labels.get(start));
+        construction.graph.makeNodeAccepting(construction.labels.get(end));
+
+        return construction.graph;
+    }
+
+    /**
+     * Adds the nodes and transitions for a part of the expression
+     *
+     * @param node Part to add
+     * @param from Node the match of the part starts at
+     * @return Node the match of the part ends at
+     */
+    private int build(RegexNode node, int from) {
+        if (node instanceof RegexNode.SymbolNode) {
+            int to = newNode();
+            graph.connectNodes(labels.get(from), labels.get(to), alphabet[((RegexNode.SymbolNode) node).symbolId]);
+            return to;
+        } else if (node instanceof RegexNode.ConcatenationNode) {
+            int end = from;
+            for (RegexNode part : ((RegexNode.ConcatenationNode) node).parts) end = build(part, end);
+            return end;
+        } else if (node instanceof RegexNode.UnionNode) {
+            int join = newNode();
+            for (RegexNode option : ((RegexNode.UnionNode) node).options) epsilon(build(option, from), join);
+            return join;
+        } else if (node instanceof RegexNode.RepeatNode) {
+            RegexNode.RepeatNode repeat = (RegexNode.RepeatNode) node;
+
+            if (!repeat.allowsMany) {
+                int end = build(repeat.inner, from);
+                if (end == from) return from;
+
+                int join = newNode();
+                epsilon(from, join);
+                epsilon(end, join);
+                return join;
+            }
+
+            int loop = newNode();
+            epsilon(from, loop);
+            int end = build(repeat.inner, loop);
+            epsilon(end, loop);
+
+            // For r* the loop node is both the start and the end of the match, r+ has to get through r at least once
+            return repeat.allowsZero ? loop : end;
+        }
+
+        // The empty word
+        return from;
+    }
+
+    private int newNode() {
+        String label = "q" + labels.size();
+        graph.addNode(new Node(label));
+        labels.add(label);
+        return labels.size() - 1;
+    }
+
+    private void epsilon(int from, int to) {
+        if (from != to) graph.connectNodesByEpsilon(labels.get(from), labels.get(to));
+    }
+}
@@ -52,7 +52,16 @@ public class Transition implements Serializable {
      * @return Whether <code>testSymbol</code> would cause this transition to activate
      */
     public boolean willSymbolCauseTransition(String testSymbol) {
-        return Symbol.fromString(testSymbol).equals(getSymbol());
+        return getSymbol().toString().equals(testSymbol);
+    }
+
+    /**
+     * Replaces the symbol with an equal one, used to swap in the interned symbols after deserialization
+     *
+     * @param interned Symbol equal to the current one
+     */
+    void setInternedSymbol(Symbol interned) {
+        symbol = interned;
     }
 
     public Node getSource() {
@@ -81,6 +90,7 @@ public class Transition implements Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(source, destination, symbol);
+        // Only the labels of the nodes are compared in equals, so only they can be used here
+        return Objects.hash(source.getLabel(), destination.getLabel(), symbol);
     }
 }
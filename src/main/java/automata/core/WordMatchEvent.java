@@ -0,0 +1,32 @@
+package automata.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for one word tested with metrics on, see {@link MatchMetrics}. The duration of the event
+ * is the time between starting and ending the word
+ */
+@Name("automata.WordMatch")
+@Label("Word Match")
+@Category("Automata")
+@Description("A word tested against an automaton")
+final class WordMatchEvent extends Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Symbols")
+    long symbols;
+
+    @Label("Transitions Examined")
+    long transitionsExamined;
+
+    @Label("Peak Active States")
+    int peakActiveStates;
+
+    @Label("Accepted")
+    boolean accepted;
+}
@@ -0,0 +1,63 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static automata.core.TestAutomata.setUpEndsInAbNFA;
+import static automata.core.TestAutomata.setUpEvenAsDFA;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchMatcherTest {
+
+    List<String> binaryWords(int count) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < count; i++) words.add(Integer.toBinaryString(i).replace('0', 'a').replace('1', 'b'));
+
+        return words;
+    }
+
+    @Test
+    void testAcceptsAllDFA() {
+        List<String> words = binaryWords(10_000);
+        BitSet results = setUpEvenAsDFA().acceptsAll(words);
+
+        for (int i = 0; i < words.size(); i++) {
+            boolean expected = words.get(i).chars().filter(c -> c == 'a').count() % 2 == 0;
+            assertEquals(expected, results.get(i), "Wrong result for the word " + words.get(i));
+        }
+    }
+
+    @Test
+    void testAcceptsAllNFA() {
+        List<String> words = binaryWords(10_000);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            BitSet results = setUpEndsInAbNFA().freeze().acceptsAll(words, pool);
+
+            for (int i = 0; i < words.size(); i++) {
+                assertEquals(words.get(i).endsWith("ab"), results.get(i), "Wrong result for the word " + words.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testAcceptsAllWithoutRandomAccess() {
+        List<String> words = new LinkedList<>(binaryWords(3000));
+        BitSet results = setUpEndsInAbNFA().acceptsAll(words);
+
+        int i = 0;
+        for (String word : words) assertEquals(word.endsWith("ab"), results.get(i++));
+    }
+
+    @Test
+    void testAcceptsAllEmptyList() {
+        assertTrue(setUpEvenAsDFA().acceptsAll(new ArrayList<String>()).isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitParallelNFATest {
+
+    /**
+     * This function returns an NFA over {a} with a loop between A and B, where B can also move to the accepting node C.
+     * It accepts words with an even number of a's that is at least 2
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpLoopingNFA() {
+        Graph g = new Graph(new String[]{"a", "b", "c"});
+
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B"));
+        g.addNode(new Node("C"));
+
+        g.connectNodes("A", "B", "a");
+        g.connectNodes("B", "A", "a");
+        g.connectNodes("B", "C", "a");
+
+        g.makeNodeAccepting("C");
+        g.setStartNode("A");
+
+        return g;
+    }
+
+    /**
+     * This function returns an NFA over {a, b} with more than 64 nodes that accepts words where the n-th symbol from the
+     * end is an a
+     *
+     * @param n Position of the a from the end of the word
+     * @return Automaton as specified
+     */
+    Graph setUpNthFromLastNFA(int n) {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        for (int i = 0; i <= n; i++) g.addNode(new Node(String.valueOf(i)));
+        g.setStartNode("0");
+        g.makeNodeAccepting(String.valueOf(n));
+
+        g.connectNodeToSelf("0", "a");
+        g.connectNodeToSelf("0", "b");
+        g.connectNodes("0", "1", "a");
+        for (int i = 1; i < n; i++) {
+            g.connectNodes(String.valueOf(i), String.valueOf(i + 1), "a");
+            g.connectNodes(String.valueOf(i), String.valueOf(i + 1), "b");
+        }
+
+        return g;
+    }
+
+    @Test
+    void testLoopingNFA() {
+        BitParallelNFA nfa = setUpLoopingNFA().bitParallelNFA();
+
+        for (int i = 0; i <= 40; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = 0; j < i; j++) word.append('a');
+
+            assertEquals(i >= 2 && i % 2 == 0, nfa.accepts(word), "Wrong result for " + i + " a's");
+        }
+    }
+
+    @Test
+    void testNFAWithMoreThan64Nodes() {
+        BitParallelNFA nfa = setUpNthFromLastNFA(100).bitParallelNFA();
+
+        StringBuilder word = new StringBuilder("a");
+        for (int i = 0; i < 99; i++) word.append('b');
+        assertTrue(nfa.accepts(word));
+
+        word.append('b');
+        assertFalse(nfa.accepts(word));
+
+        word.insert(0, "bbbbab");
+        assertTrue(nfa.accepts(word.substring(0, word.length() - 1)));
+    }
+
+    @Test
+    void testRejectsWordsOutsideTheAlphabet() {
+        BitParallelNFA nfa = setUpLoopingNFA().bitParallelNFA();
+
+        assertFalse(nfa.accepts("ada"));
+    }
+
+    @Test
+    void testAcceptsSymbolIds() {
+        FrozenGraph frozen = setUpLoopingNFA().freeze();
+        BitParallelNFA nfa = frozen.bitParallelNFA();
+
+        int a = frozen.getSymbolId("a");
+        int c = frozen.getSymbolId("c");
+
+        assertTrue(nfa.accepts(new int[]{a, a, a, a}));
+        assertFalse(nfa.accepts(new int[]{a, c}));
+    }
+
+    @Test
+    void testTooManyStates_ThrowsIllegalStateException() {
+        // 70000 states need 1094 words per mask, and there is a mask for every state and each of the 30 symbols
+        String[] alphabet = new String[30];
+        for (int i = 0; i < alphabet.length; i++) alphabet[i] = String.valueOf((char) ('A' + i));
+
+        GraphBuilder builder = new GraphBuilder(alphabet);
+        for (int i = 0; i < 70_000; i++) builder.addNode("S" + i);
+        builder.setStartState(0);
+
+        assertThrows(IllegalStateException.class, () -> builder.build().bitParallelNFA());
+    }
+}
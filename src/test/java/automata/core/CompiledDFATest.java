@@ -0,0 +1,118 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledDFATest {
+
+    /**
+     * This function returns a DFA that accepts all words in the language defined by the regular expression
+     * (ab*a)|(ba*b)
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpDFA1() {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        g.addNode(new Node("0"));
+        g.addNode(new Node("0a"));
+        g.addNode(new Node("0b"));
+        g.addNode(new Node("1"));
+        g.addNode(new Node("2"));
+
+        g.setStartNode("0");
+
+        g.connectNodes("0", "0a", "a");
+        g.connectNodeToSelf("0a", "b");
+        g.connectNodes("0a", "1", "a");
+
+        g.connectNodes("0", "0b", "b");
+        g.connectNodeToSelf("0b", "a");
+        g.connectNodes("0b", "1", "b");
+
+        g.connectNodes("1", "2", "a");
+        g.connectNodes("1", "2", "b");
+
+        g.connectNodeToSelf("2", "a");
+        g.connectNodeToSelf("2", "b");
+
+        g.makeNodeAccepting("1");
+
+        return g;
+    }
+
+    @Test
+    void testAcceptsValidWords() {
+        CompiledDFA dfa = setUpDFA1().compile();
+
+        for (String word : new String[]{"aba", "abba", "abbba", "bab", "baab", "baaab"}) {
+            assertTrue(dfa.accepts(word), "The word " + word + " was not accepted when it should've been");
+        }
+    }
+
+    @Test
+    void testRejectsInvalidWords() {
+        CompiledDFA dfa = setUpDFA1().compile();
+
+        for (String word : new String[]{"", "a", "b", "abb", "abbb", "abaa", "abaaa", "aaba"}) {
+            assertFalse(dfa.accepts(word), "The word " + word + " was accepted when it shouldn't have been");
+        }
+    }
+
+    @Test
+    void testRejectsWordsOutsideTheAlphabet() {
+        CompiledDFA dfa = setUpDFA1().compile();
+
+        assertFalse(dfa.accepts("aca"));
+        assertFalse(dfa.accepts("a\u2603a"));
+    }
+
+    @Test
+    void testAcceptsSymbolIds() {
+        Graph g = setUpDFA1();
+        FrozenGraph frozen = g.freeze();
+        CompiledDFA dfa = frozen.compile();
+
+        int a = frozen.getSymbolId("a");
+        int b = frozen.getSymbolId("b");
+
+        assertTrue(dfa.accepts(new int[]{a, b, b, a}));
+        assertFalse(dfa.accepts(new int[]{a, b, b}));
+    }
+
+    @Test
+    void testMissingTransitionsRejectWord() {
+        Graph g = new Graph(new String[]{"a", "b"});
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B", true));
+        g.connectNodes("A", "B", "a");
+        g.setStartNode("A");
+
+        CompiledDFA dfa = g.compile();
+
+        assertTrue(dfa.accepts("a"));
+        assertFalse(dfa.accepts("b"));
+        assertFalse(dfa.accepts("aa"));
+    }
+
+    @Test
+    void testCompilingNFA_ThrowsNotDeterministicException() {
+        Graph g = new Graph(new String[]{"a"});
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B"));
+        g.connectNodes("A", "A", "a");
+        g.connectNodes("A", "B", "a");
+        g.setStartNode("A");
+
+        assertThrows(NotDeterministicException.class, g::compile);
+    }
+
+    @Test
+    void testCompilingWithoutStartNode_ThrowsNoStartNodeException() {
+        Graph g = new Graph(new String[]{"a"});
+        g.addNode(new Node("A"));
+
+        assertThrows(NoStartNodeException.class, g::compile);
+    }
+}
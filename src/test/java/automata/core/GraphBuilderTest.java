@@ -0,0 +1,185 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphBuilderTest {
+
+    /**
+     * This function returns an NFA over {a, b} with random transitions, including epsilon transitions and duplicates,
+     * where each node is accepting with probability 1/3
+     *
+     * @param nodes       Number of nodes
+     * @param transitions Number of transitions to add
+     * @param seed        Seed of the random transitions
+     * @return Automaton as specified
+     */
+    Graph setUpRandomNFA(int nodes, int transitions, long seed) {
+        Random random = new Random(seed);
+        String[] symbols = {"a", "b", ""};
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        for (int i = 0; i < nodes; i++) g.addNode(new Node("S" + i, random.nextInt(3) == 0));
+        g.setStartNode("S0");
+
+        for (int i = 0; i < transitions; i++) {
+            g.connectNodes("S" + random.nextInt(nodes), "S" + random.nextInt(nodes), symbols[random.nextInt(3)]);
+        }
+
+        return g;
+    }
+
+    /**
+     * Checks that two frozen graphs have the same nodes, start node and transitions, ignoring the order of the
+     * destinations in each bucket
+     */
+    void assertSameGraph(FrozenGraph expected, FrozenGraph actual) {
+        assertArrayEquals(expected.getAlphabet(), actual.getAlphabet());
+        assertEquals(expected.getStateCount(), actual.getStateCount());
+        assertEquals(expected.getStartState(), actual.getStartState());
+
+        for (int s = 0; s < expected.getStateCount(); s++) {
+            assertEquals(expected.getLabel(s), actual.getLabel(s));
+            assertEquals(expected.isAccepting(s), actual.isAccepting(s));
+
+            for (int a = 0; a < expected.getAlphabetSize(); a++) {
+                int[] expectedTargets = IntStream.range(expected.transitionsStart(s, a), expected.transitionsEnd(s, a))
+                        .map(expected::target).sorted().toArray();
+                int[] actualTargets = IntStream.range(actual.transitionsStart(s, a), actual.transitionsEnd(s, a))
+                        .map(actual::target).toArray();
+                assertArrayEquals(expectedTargets, actualTargets);
+            }
+
+            int[] expectedTargets = IntStream.range(expected.epsilonStart(s), expected.epsilonEnd(s))
+                    .map(expected::epsilonTarget).sorted().toArray();
+            int[] actualTargets = IntStream.range(actual.epsilonStart(s), actual.epsilonEnd(s))
+                    .map(actual::epsilonTarget).toArray();
+            assertArrayEquals(expectedTargets, actualTargets);
+            assertArrayEquals(expected.getEpsilonClosure(s), actual.getEpsilonClosure(s));
+        }
+    }
+
+    @Test
+    void testBuildMatchesFreeze() {
+        for (long seed = 0; seed < 20; seed++) {
+            Graph g = setUpRandomNFA(30, 120, seed);
+
+            // Add the transitions in reverse, with every one of them twice
+            GraphBuilder builder = new GraphBuilder(g.getAlphabet());
+            for (Node node : g.getNodes()) builder.addNode(node.getLabel(), node.isAccepting());
+            builder.setStartNode(g.getStartNode().getLabel());
+            for (int i = g.getNodes().size() - 1; i >= 0; i--) {
+                Node node = g.getNodes().get(i);
+                for (Transition t : node.getTransitions()) {
+                    for (int copy = 0; copy < 2; copy++) {
+                        builder.addTransition(node.getLabel(), t.getDestination().getLabel(), t.getSymbol().toString());
+                    }
+                }
+            }
+
+            FrozenGraph built = builder.build();
+            assertSameGraph(g.freeze(), built);
+            assertTrue(built.isEquivalent(g.freeze()));
+        }
+    }
+
+    @Test
+    void testStateIdsAndSymbolIds() {
+        GraphBuilder builder = new GraphBuilder(new String[]{"0", "1"});
+        builder.addNodes(new String[]{"even", "odd"});
+        builder.setStartState(0);
+        builder.makeStateAccepting(0);
+
+        // Transitions can refer to a state before it is added, as long as it is added before building
+        builder.addTransitions(new int[]{0, 1, 2, 2}, new int[]{1, 0, 2, 2}, new int[]{1, 1, 0, 1});
+        builder.addTransitions(new int[]{0, 1}, new int[]{0, 1}, new int[]{0, 0});
+        builder.addNode("dead");
+
+        FrozenGraph g = builder.build();
+        assertEquals(3, g.getStateCount());
+        assertEquals(2, builder.getStateId("dead"));
+        assertTrue(g.isDeterministic());
+        assertTrue(g.matcher().matches("0110"));
+        assertFalse(g.matcher().matches("0111"));
+
+        // Epsilon transitions use their own symbol id
+        builder.addTransition(1, 0, GraphBuilder.EPSILON);
+        assertTrue(builder.build().matcher().matches("1"));
+    }
+
+    @Test
+    void testStreams() {
+        GraphBuilder builder = new GraphBuilder(new String[]{"a", "<b>"});
+        builder.addNodes(Stream.of("x", "y"));
+        builder.addTransitions(Stream.of(new String[]{"x", "y", "a"}, new String[]{"y", "z", "<b>"},
+                new String[]{"z", "x", ""}));
+        builder.setStartNode("x");
+
+        // A node named by a transition can still be added afterwards, to make it accepting
+        assertEquals(2, builder.addNode("z", true));
+        assertThrows(LabelAlreadyExistsException.class, () -> builder.addNode("z"));
+
+        FrozenGraph g = builder.build();
+        assertEquals(3, g.getStateCount());
+        assertEquals("z", g.getLabel(2));
+        assertEquals(Arrays.asList("a", "<b>"), g.findShortestWord());
+    }
+
+    @Test
+    void testInvalidInput() {
+        GraphBuilder builder = new GraphBuilder(new String[]{"a", "b"});
+        builder.addNode("A");
+
+        assertThrows(LabelAlreadyExistsException.class, () -> builder.addNode("A"));
+        assertThrows(SymbolNotFoundException.class, () -> builder.addTransition("A", "A", "c"));
+        assertThrows(SymbolNotFoundException.class, () -> builder.addTransition(0, 0, 2));
+        assertThrows(NodeNotFoundException.class, () -> builder.addTransition(-1, 0, 0));
+        assertThrows(NodeNotFoundException.class, () -> builder.getStateId("B"));
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.addTransitions(new int[]{0}, new int[]{0, 0}, new int[]{0}));
+
+        // A state id so large its buckets can't be numbered
+        assertThrows(IllegalStateException.class, () -> builder.addTransition(Integer.MAX_VALUE / 2, 0, 0));
+
+        // State ids are checked against the nodes when the graph is built
+        builder.addTransition(0, 5, 0);
+        assertThrows(NodeNotFoundException.class, builder::build);
+    }
+
+    @Test
+    void testMillionsOfTransitions() {
+        int nodes = 100_000, transitions = 2_000_000;
+        Random random = new Random(7);
+        int[] sources = new int[transitions], destinations = new int[transitions], symbols = new int[transitions];
+        for (int i = 0; i < transitions; i++) {
+            sources[i] = random.nextInt(nodes);
+            destinations[i] = random.nextInt(nodes);
+            symbols[i] = random.nextInt(4);
+        }
+
+        GraphBuilder builder = new GraphBuilder(new String[]{"a", "b", "c", "d"});
+        for (int i = 0; i < nodes; i++) builder.addNode("S" + i);
+        builder.setStartState(0);
+
+        FrozenGraph g = assertTimeout(Duration.ofSeconds(5), () -> {
+            builder.addTransitions(sources, destinations, symbols);
+            builder.addTransitions(sources, destinations, symbols);
+            return builder.build();
+        });
+
+        long expected = IntStream.range(0, transitions)
+                .mapToLong(i -> ((long) sources[i] * 4 + symbols[i]) * nodes + destinations[i]).distinct().count();
+        long actual = 0;
+        for (int s = 0; s < nodes; s++) {
+            for (int a = 0; a < 4; a++) actual += g.transitionsEnd(s, a) - g.transitionsStart(s, a);
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -4,7 +4,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -142,6 +147,124 @@ public class GraphTest {
         assertFalse(g.isNFA());
     }
 
+    @Test
+    public void testFanOutStats() {
+        Graph g = setUpBasicGraph();
+
+        assertEquals(Set.of(g.getNode("B")), g.getNondeterministicNodes());
+        assertEquals(Set.of(g.getSymbol("a")), g.getNondeterministicSymbols("B"));
+        assertTrue(g.getNondeterministicSymbols("A").isEmpty());
+        assertEquals(1, g.getNondeterministicPairCount());
+        assertEquals(2, g.getMaxFanOut());
+        assertEquals(0, g.getEpsilonTransitionCount());
+
+        g.connectNodes("B", "B", "a");
+        g.connectNodes("B", "B", "a");
+        g.connectNodes("C", "A", "b");
+        assertEquals(1, g.getNondeterministicPairCount());
+        assertEquals(3, g.getMaxFanOut());
+    }
+
+    @Test
+    public void testFanOutStats_CountsTransitionsAddedBeforeAddNode() {
+        Graph g = new Graph(new String[]{"a"});
+        Node a = new Node("A");
+        Node b = new Node("B");
+        a.addTransition(new Transition(a, a, "a"));
+        a.addTransition(new Transition(a, b, "a"));
+        b.addTransition(new Transition(b, a, ""));
+        g.addNode(a);
+        g.addNode(b);
+        g.setStartNode("A");
+
+        assertTrue(g.isNFA());
+        assertEquals(1, g.getNondeterministicPairCount());
+        assertEquals(2, g.getMaxFanOut());
+        assertEquals(1, g.getEpsilonTransitionCount());
+        assertFalse(g.freeze().isDeterministic());
+    }
+
+    @Test
+    public void testFanOutStats_DFA() {
+        Graph g = setUpDFA();
+
+        assertTrue(g.getNondeterministicNodes().isEmpty());
+        assertEquals(0, g.getNondeterministicPairCount());
+        assertEquals(1, g.getMaxFanOut());
+    }
+
+    @Test
+    public void testStepTestingWord_DoesNotDuplicateCurrentPositions() {
+        Graph g = setUpBasicGraph();
+
+        g.startTestingWord();
+        for (int i = 0; i < 30; i++) g.stepTestingWord("a");
+
+        // After an even number of a's the only possible positions are A and C
+        assertEquals(2, g.getCurrentPositions().size());
+        assertTrue(g.endTestingWord());
+    }
+
+    @Test
+    public void testSymbolsAreInterned() {
+        Graph g = setUpDFA();
+
+        assertSame(g.getSymbol("b"), g.getSymbol(1));
+        assertEquals(1, g.getSymbolId("b"));
+        assertSame(g.getSymbol("a"), g.getNode("A").getTransitions().get(0).getSymbol());
+        assertEquals(Symbol.fromString("a").hashCode(), g.getSymbol("a").hashCode());
+    }
+
+    @Test
+    public void testGetSymbol_WhenSymbolNotInAlphabet_ThrowsSymbolNotFoundException() {
+        Graph g = setUpDFA();
+
+        assertThrows(SymbolNotFoundException.class, () -> g.getSymbol("d"));
+        assertThrows(SymbolNotFoundException.class, () -> g.getSymbol(3));
+    }
+
+    @Test
+    public void testTransitionsAddedBeforeAddNode_AreInterned() {
+        Graph g = new Graph(new String[]{"a"});
+        Node a = new Node("A");
+        Node b = new Node("B", true);
+        a.addTransition(new Transition(a, b, "a"));
+        g.addNode(a);
+        g.addNode(b);
+        g.setStartNode("A");
+
+        assertSame(g.getSymbol("a"), a.getTransitions().get(0).getSymbol());
+        g.startTestingWord();
+        g.stepTestingWord("a");
+        assertTrue(g.endTestingWord());
+        assertTrue(g.freeze().matcher().matches("a"));
+    }
+
+    @Test
+    public void testAddNode_WithTransitionOutsideAlphabet_ThrowsSymbolNotFoundException() {
+        Graph g = new Graph(new String[]{"a"});
+        Node a = new Node("A");
+        a.addTransition(new Transition(a, a, "b"));
+
+        assertThrows(SymbolNotFoundException.class, () -> g.addNode(a));
+        assertFalse(g.containsNode("A"));
+    }
+
+    @Test
+    public void testStepTestingWordBySymbolId() {
+        Graph g = setUpEvenNumberOfAs_DFA();
+        int a = g.getSymbolId("a");
+
+        g.startTestingWord();
+        g.stepTestingWord(a);
+        assertFalse(g.endTestingWord());
+
+        g.startTestingWord();
+        g.stepTestingWord(a);
+        g.stepTestingWord(a);
+        assertTrue(g.endTestingWord());
+    }
+
     /**
      * This function returns a graph that accepts words over the language {"a"} that have an even number of a's
      *
@@ -279,6 +402,98 @@ public class GraphTest {
         }
     }
 
+    /**
+     * This function returns an epsilon-NFA that accepts all words in the language defined by the regular expression
+     * a*b*c
+     *
+     * @return Automaton as specified
+     */
+    public Graph setUpEpsilonNFA() {
+        Graph g = new Graph(new String[]{"a", "b", "c"});
+
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B"));
+        g.addNode(new Node("C"));
+        g.addNode(new Node("D"));
+
+        g.setStartNode("A");
+
+        g.connectNodeToSelf("A", "a");
+        g.connectNodesByEpsilon("A", "B");
+        g.connectNodeToSelf("B", "b");
+        g.connectNodesByEpsilon("B", "C");
+        g.connectNodes("C", "D", "c");
+
+        g.makeNodeAccepting("D");
+
+        return g;
+    }
+
+    boolean testWord(Graph g, String word) {
+        g.startTestingWord();
+        for (int i = 0; i < word.length(); i++) g.stepTestingWord(String.valueOf(word.charAt(i)));
+        return g.endTestingWord();
+    }
+
+    @Test
+    public void testisNFA_EpsilonTransition() {
+        Graph g = setUpEmptyGraph();
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B"));
+        g.connectNodesByEpsilon("A", "B");
+
+        assertTrue(g.isNFA());
+    }
+
+    @Test
+    public void testPassingWordsThroughEpsilonNFA() {
+        Graph g = setUpEpsilonNFA();
+
+        for (String word : new String[]{"c", "ac", "bc", "aabbc", "aaac", "bbbc"}) {
+            assertTrue(testWord(g, word), "The word " + word + " was not accepted when it should've been");
+        }
+        for (String word : new String[]{"", "a", "ab", "bac", "cc", "acb"}) {
+            assertFalse(testWord(g, word), "The word " + word + " was accepted when it shouldn't have been");
+        }
+    }
+
+    @Test
+    public void testEpsilonClosureIsPrecomputed() {
+        FrozenGraph frozen = setUpEpsilonNFA().freeze();
+
+        assertTrue(frozen.hasEpsilonTransitions());
+        assertFalse(frozen.isDeterministic());
+        assertArrayEquals(new int[]{0, 1, 2}, frozen.getEpsilonClosure(0));
+        assertArrayEquals(new int[]{1, 2}, frozen.getEpsilonClosure(1));
+        assertArrayEquals(new int[]{3}, frozen.getEpsilonClosure(3));
+    }
+
+    @Test
+    public void testRemoveEpsilonTransitions() {
+        Graph g = setUpEpsilonNFA();
+        Graph epsilonFree = g.removeEpsilonTransitions();
+
+        for (Transition t : epsilonFree.getNodes().get(0).getTransitions()) assertFalse(t.getSymbol().isEpsilon());
+
+        String[] words = new String[]{"", "a", "c", "ac", "bc", "abc", "aabbc", "bac", "cc", "acb", "abcc"};
+        for (String word : words) {
+            assertEquals(testWord(g, word), testWord(epsilonFree, word), "Different result for the word " + word);
+        }
+    }
+
+    @Test
+    public void testMatchersFollowEpsilonTransitions() {
+        Graph g = setUpEpsilonNFA();
+        LazyDFA lazyDFA = g.lazyDFA();
+        BitParallelNFA bitParallelNFA = g.bitParallelNFA();
+
+        String[] words = new String[]{"", "a", "c", "ac", "bc", "abc", "aabbc", "bac", "cc", "acb", "abcc"};
+        for (String word : words) {
+            assertEquals(testWord(g, word), lazyDFA.accepts(word), "Wrong result for the word " + word);
+            assertEquals(testWord(g, word), bitParallelNFA.accepts(word), "Wrong result for the word " + word);
+        }
+    }
+
     @Test
     public void serializationTestEmptyGraph(@TempDir Path tempDir) throws IOException, ClassNotFoundException {
         Graph g = new Graph(new String[]{"a"});
@@ -322,4 +537,165 @@ public class GraphTest {
         assertEquals(loadedGraph, g);
     }
 
+    @Test
+    public void serializationTestTransitionsInAnyOrder(@TempDir Path tempDir) throws IOException,
+            ClassNotFoundException {
+        Graph g = new Graph(new String[]{"a", "b"});
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B", true));
+        g.connectNodes("A", "B", "a");
+        g.connectNodes("B", "A", "b");
+        g.connectNodeToSelf("A", "b");
+        g.connectNodesByEpsilon("B", "B");
+        g.connectNodeToSelf("B", "a");
+        g.setStartNode("A");
+
+        Path filepath = tempDir.resolve("serializationTestOut.ser");
+
+        g.save(filepath);
+
+        Graph loadedGraph = Graph.load(filepath);
+
+        assertEquals(g, loadedGraph);
+        assertEquals(g.hashCode(), loadedGraph.hashCode());
+    }
+
+    @Test
+    public void serializationTestNodeWithOwnTransitions(@TempDir Path tempDir) throws IOException,
+            ClassNotFoundException {
+        Graph g = new Graph(new String[]{"a"});
+        Node a = new Node("A");
+        a.addTransition(new Transition(a, a, "a"));
+        g.addNode(a);
+
+        Path filepath = tempDir.resolve("serializationTestOut.ser");
+
+        g.save(filepath);
+
+        assertEquals(g, Graph.load(filepath));
+    }
+
+    @Test
+    public void serializationTestLoadedGraphCanBeModified(@TempDir Path tempDir) throws IOException, ClassNotFoundException {
+        Graph g = new Graph(new String[]{"a"});
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B"));
+        g.connectNodes("A", "B", "a");
+
+        Path filepath = tempDir.resolve("serializationTestOut.ser");
+
+        g.save(filepath);
+
+        Graph loadedGraph = Graph.load(filepath);
+
+        assertThrows(LabelAlreadyExistsException.class, () -> loadedGraph.addNode(new Node("A")));
+
+        // Connecting the same nodes again shouldn't add a second transition
+        loadedGraph.connectNodes("A", "B", "a");
+        assertEquals(1, loadedGraph.getNode("A").getTransitions().size());
+
+        assertSame(loadedGraph.getSymbol("a"), loadedGraph.getNode("A").getTransitions().get(0).getSymbol());
+
+        loadedGraph.connectNodeToSelf("B", "a");
+        assertEquals(1, loadedGraph.getNode("B").getDestinationNodesAfterTransition(Symbol.fromString("a")).size());
+    }
+
+    @Test
+    public void serializationTestEpsilonNFA(@TempDir Path tempDir) throws IOException, ClassNotFoundException {
+        Graph g = setUpEpsilonNFA();
+
+        Path filepath = tempDir.resolve("serializationTestOut.fsa");
+
+        g.save(filepath);
+
+        Graph loadedGraph = Graph.load(filepath);
+        FrozenGraph mappedGraph = FrozenGraph.load(filepath);
+
+        assertEquals(g.getStartNode(), loadedGraph.getStartNode());
+        String[] words = new String[]{"", "a", "c", "ac", "bc", "abc", "aabbc", "bac", "cc", "acb", "abcc"};
+        for (String word : words) {
+            assertEquals(testWord(g, word), testWord(loadedGraph, word), "Wrong result for the word " + word);
+            assertEquals(testWord(g, word), mappedGraph.matcher().matches(word), "Wrong result for the word " + word);
+        }
+    }
+
+    /**
+     * A node with extra state, like the nodes the visualiser draws
+     */
+    static class PositionedNode extends Node {
+        float x;
+
+        PositionedNode(String label, float x) {
+            super(label);
+            this.x = x;
+        }
+    }
+
+    @Test
+    public void serializationTestKeepsNodeSubclasses(@TempDir Path tempDir) throws IOException,
+            ClassNotFoundException {
+        Graph g = new Graph(new String[]{"a"});
+        g.addNode(new PositionedNode("A", 12));
+        g.addNode(new Node("B", true));
+        g.connectNodes("A", "B", "a");
+        g.setStartNode("A");
+
+        Path filepath = tempDir.resolve("serializationTestOut.ser");
+
+        g.save(filepath);
+
+        Graph loadedGraph = Graph.load(filepath);
+
+        assertEquals(g, loadedGraph);
+        assertEquals(12, ((PositionedNode) loadedGraph.getNode("A")).x);
+        assertTrue(testWord(loadedGraph, "a"));
+    }
+
+    @Test
+    public void serializationTestLoadsJavaSerializedFile(@TempDir Path tempDir) throws IOException,
+            ClassNotFoundException {
+        Graph g = new Graph(new String[]{"a"});
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B", true));
+        g.connectNodes("A", "B", "a");
+        g.setStartNode("A");
+
+        Path filepath = tempDir.resolve("serializationTestOut.ser");
+
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(filepath))) {
+            out.writeObject(g);
+        }
+
+        Graph loadedGraph = Graph.load(filepath);
+
+        assertEquals(loadedGraph, g);
+        assertTrue(testWord(loadedGraph, "a"));
+        assertFalse(loadedGraph.isNFA());
+
+        // The fan-out counters aren't serialized, so they have to be recounted
+        loadedGraph.connectNodes("A", "A", "a");
+        assertTrue(loadedGraph.isNFA());
+        assertEquals(Set.of(loadedGraph.getNode("A")), loadedGraph.getNondeterministicNodes());
+    }
+
+    @Test
+    public void serializationTestInvalidFile_ThrowsInvalidAutomatonFileException(@TempDir Path tempDir)
+            throws IOException {
+        Graph g = setUpEpsilonNFA();
+
+        Path filepath = tempDir.resolve("serializationTestOut.fsa");
+        g.save(filepath);
+
+        byte[] bytes = Files.readAllBytes(filepath);
+        Files.write(filepath, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(InvalidAutomatonFileException.class, () -> Graph.load(filepath));
+
+        Files.write(filepath, "not an automaton".getBytes());
+        assertThrows(InvalidAutomatonFileException.class, () -> Graph.load(filepath));
+
+        // Two nodes with the same label
+        AutomatonFile.write(filepath, new String[]{"a"}, new String[]{"A", "A"}, 0, new BitSet(), new int[]{0, 0, 0},
+                new int[0], new int[]{0, 0, 0}, new int[0]);
+        assertThrows(InvalidAutomatonFileException.class, () -> Graph.load(filepath));
+    }
 }
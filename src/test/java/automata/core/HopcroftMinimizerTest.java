@@ -0,0 +1,121 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import static automata.core.TestAutomata.allWords;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HopcroftMinimizerTest {
+
+    /**
+     * This function returns a DFA over {a, b} that counts the a's modulo 6 and accepts when the count is even. The
+     * minimal DFA for this language has 2 states
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpRedundantDFA() {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        for (int i = 0; i < 6; i++) g.addNode(new Node("q" + i, i % 2 == 0));
+        g.setStartNode("q0");
+
+        for (int i = 0; i < 6; i++) {
+            g.connectNodes("q" + i, "q" + ((i + 1) % 6), "a");
+            g.connectNodeToSelf("q" + i, "b");
+        }
+
+        return g;
+    }
+
+    void assertSameLanguage(Graph expected, Graph actual) {
+        CompiledDFA expectedDFA = expected.compile();
+        CompiledDFA actualDFA = actual.compile();
+
+        for (String word : allWords(8)) {
+            assertEquals(expectedDFA.accepts(word), actualDFA.accepts(word), "Different result for the word " + word);
+        }
+    }
+
+    @Test
+    void testMergesEquivalentStates() {
+        Graph g = setUpRedundantDFA();
+        MinimizationResult result = g.minimize();
+
+        assertEquals(2, result.getGraph().getNodes().size());
+        assertEquals(4, result.getMergedStateCount());
+        assertEquals("q0", result.getGraph().getStartNode().getLabel());
+        assertSameLanguage(g, result.getGraph());
+    }
+
+    @Test
+    void testRemovesUnreachableAndDeadStates() {
+        Graph g = new Graph(new String[]{"a", "b"});
+        g.addNode(new Node("Start"));
+        g.addNode(new Node("Accept", true));
+        g.addNode(new Node("Dead"));
+        g.addNode(new Node("Unreachable", true));
+        g.setStartNode("Start");
+
+        g.connectNodes("Start", "Accept", "a");
+        g.connectNodes("Start", "Dead", "b");
+        g.connectNodeToSelf("Dead", "a");
+        g.connectNodeToSelf("Dead", "b");
+        g.connectNodes("Unreachable", "Start", "a");
+
+        MinimizationResult result = g.minimize();
+
+        assertEquals(2, result.getGraph().getNodes().size());
+        assertEquals(2, result.getMergedStateCount());
+        assertFalse(result.getGraph().containsNode("Dead"));
+        assertFalse(result.getGraph().containsNode("Unreachable"));
+        assertSameLanguage(g, result.getGraph());
+    }
+
+    @Test
+    void testMinimalDFAIsUnchanged() {
+        Graph g = new Graph(new String[]{"a", "b"});
+        g.addNode(new Node("0"));
+        g.addNode(new Node("0a"));
+        g.addNode(new Node("0b"));
+        g.addNode(new Node("1", true));
+        g.setStartNode("0");
+
+        g.connectNodes("0", "0a", "a");
+        g.connectNodeToSelf("0a", "b");
+        g.connectNodes("0a", "1", "a");
+        g.connectNodes("0", "0b", "b");
+        g.connectNodeToSelf("0b", "a");
+        g.connectNodes("0b", "1", "b");
+
+        MinimizationResult result = g.minimize();
+
+        assertEquals(4, result.getGraph().getNodes().size());
+        assertEquals(0, result.getMergedStateCount());
+        assertSameLanguage(g, result.getGraph());
+    }
+
+    @Test
+    void testEmptyLanguage() {
+        Graph g = new Graph(new String[]{"a"});
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B"));
+        g.setStartNode("A");
+        g.connectNodes("A", "B", "a");
+
+        Graph minimal = g.minimize().getGraph();
+
+        assertEquals(1, minimal.getNodes().size());
+        assertFalse(minimal.getStartNode().isAccepting());
+    }
+
+    @Test
+    void testMinimizingNFA_ThrowsNotDeterministicException() {
+        Graph g = new Graph(new String[]{"a"});
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B"));
+        g.setStartNode("A");
+        g.connectNodesByEpsilon("A", "B");
+
+        assertThrows(NotDeterministicException.class, g::minimize);
+    }
+}
@@ -0,0 +1,154 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static automata.core.TestAutomata.allWords;
+import static automata.core.TestAutomata.setUpEndsInAbNFA;
+import static automata.core.TestAutomata.setUpEvenAsDFA;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LanguageComparisonTest {
+
+    /**
+     * This function returns a DFA over {a, b} with redundant nodes that accepts words with an even number of a's
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpEvenAsLargerDFA() {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        g.addNode(new Node("E1", true));
+        g.addNode(new Node("O1"));
+        g.addNode(new Node("E2", true));
+        g.addNode(new Node("O2"));
+        g.setStartNode("E1");
+
+        g.connectNodes("E1", "O1", "a");
+        g.connectNodes("O1", "E2", "a");
+        g.connectNodes("E2", "O2", "a");
+        g.connectNodes("O2", "E1", "a");
+        g.connectNodes("E1", "E2", "b");
+        g.connectNodes("E2", "E1", "b");
+        g.connectNodes("O1", "O2", "b");
+        g.connectNodes("O2", "O1", "b");
+
+        return g;
+    }
+
+    /**
+     * This function returns an NFA over {a, b} that accepts words containing ab
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpContainsAbNFA() {
+        Graph g = setUpEndsInAbNFA();
+
+        g.connectNodeToSelf("AB", "a");
+        g.connectNodeToSelf("AB", "b");
+
+        return g;
+    }
+
+    @Test
+    void testEquivalentDFAs() {
+        assertTrue(setUpEvenAsDFA().isEquivalent(setUpEvenAsLargerDFA()));
+        assertNull(setUpEvenAsLargerDFA().findEquivalenceCounterexample(setUpEvenAsDFA()));
+    }
+
+    @Test
+    void testEquivalentToMinimizedAndEpsilonFreeGraphs() {
+        Graph g = setUpEvenAsLargerDFA();
+        assertTrue(g.isEquivalent(g.minimize().getGraph()));
+
+        Graph nfa = setUpContainsAbNFA();
+        nfa.addNode(new Node("Start"));
+        nfa.setStartNode("Start");
+        nfa.connectNodesByEpsilon("Start", "Loop");
+        assertTrue(nfa.isEquivalent(setUpContainsAbNFA()));
+        assertTrue(nfa.isEquivalent(nfa.removeEpsilonTransitions()));
+    }
+
+    @Test
+    void testShortestEquivalenceCounterexample() {
+        assertEquals(Collections.emptyList(), setUpEvenAsDFA().findEquivalenceCounterexample(setUpEndsInAbNFA()));
+        assertEquals(Arrays.asList("a", "b", "a"),
+                setUpEndsInAbNFA().findEquivalenceCounterexample(setUpContainsAbNFA()));
+    }
+
+    @Test
+    void testSubset() {
+        assertTrue(setUpEndsInAbNFA().isSubsetOf(setUpContainsAbNFA()));
+        assertFalse(setUpContainsAbNFA().isSubsetOf(setUpEndsInAbNFA()));
+        assertEquals(Arrays.asList("a", "b", "a"),
+                setUpContainsAbNFA().findSubsetCounterexample(setUpEndsInAbNFA()));
+        assertEquals(Collections.emptyList(), setUpEvenAsDFA().findSubsetCounterexample(setUpContainsAbNFA()));
+        assertEquals(List.of("a", "b"), setUpContainsAbNFA().findSubsetCounterexample(setUpEvenAsDFA()));
+    }
+
+    @Test
+    void testSymbolsOnlyInOneAlphabet() {
+        Graph g = new Graph(new String[]{"a", "b", "c"});
+        g.addNode(new Node("Start", true));
+        g.addNode(new Node("C", true));
+        g.setStartNode("Start");
+        g.connectNodes("Start", "C", "c");
+
+        // c isn't in the other graph's alphabet, so the other graph can't accept it
+        assertEquals(List.of("c"), g.findSubsetCounterexample(setUpEvenAsDFA()));
+        assertEquals(List.of("b"), setUpEvenAsDFA().findSubsetCounterexample(g));
+    }
+
+    @Test
+    void testCounterexamplesAreShortest() {
+        Random random = new Random(17);
+
+        for (int round = 0; round < 100; round++) {
+            FrozenGraph first = randomNFA(random).freeze();
+            FrozenGraph second = randomNFA(random).freeze();
+
+            int equivalenceLength = -1;
+            int inclusionLength = -1;
+            for (String word : allWords(7)) {
+                boolean inFirst = first.matcher().matches(word);
+                boolean inSecond = second.matcher().matches(word);
+                if (equivalenceLength == -1 && inFirst != inSecond) equivalenceLength = word.length();
+                if (inclusionLength == -1 && inFirst && !inSecond) inclusionLength = word.length();
+            }
+
+            List<String> equivalence = first.findEquivalenceCounterexample(second);
+            List<String> inclusion = first.findSubsetCounterexample(second);
+            if (equivalenceLength != -1) {
+                assertEquals(equivalenceLength, equivalence.size());
+                assertNotEquals(first.matcher().matches(String.join("", equivalence)),
+                        second.matcher().matches(String.join("", equivalence)));
+            }
+            if (inclusionLength != -1) {
+                assertEquals(inclusionLength, inclusion.size());
+                assertTrue(first.matcher().matches(String.join("", inclusion)));
+                assertFalse(second.matcher().matches(String.join("", inclusion)));
+            }
+        }
+    }
+
+    /**
+     * @return A random NFA over {a, b} with 4 nodes
+     */
+    Graph randomNFA(Random random) {
+        Graph g = new Graph(new String[]{"a", "b"});
+        for (int s = 0; s < 4; s++) g.addNode(new Node("q" + s, random.nextInt(3) == 0));
+        g.setStartNode("q0");
+
+        for (int i = 0; i < 7; i++) {
+            String symbol = random.nextInt(5) == 0 ? "" : random.nextBoolean() ? "a" : "b";
+            g.connectNodes("q" + random.nextInt(4), "q" + random.nextInt(4), symbol);
+        }
+
+        return g;
+    }
+
+}
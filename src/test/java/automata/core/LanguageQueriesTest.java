@@ -0,0 +1,111 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static automata.core.TestAutomata.setUpEndsInAbNFA;
+import static automata.core.TestAutomata.setUpEvenAsDFA;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LanguageQueriesTest {
+
+    /**
+     * This function returns an NFA over {a, b} that accepts a*b*, with an epsilon transition between the loops
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpAStarBStarNFA() {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        g.addNode(new Node("A", true));
+        g.addNode(new Node("B", true));
+        g.setStartNode("A");
+
+        g.connectNodeToSelf("A", "a");
+        g.connectNodeToSelf("B", "b");
+        g.connectNodesByEpsilon("A", "B");
+
+        return g;
+    }
+
+    @Test
+    void testEmptyLanguage() {
+        Graph g = setUpEndsInAbNFA();
+        g.addNode(new Node("Unreachable", true));
+        g.getNode("AB").setAccepting(false);
+
+        assertTrue(g.isLanguageEmpty());
+        assertNull(g.findShortestWord());
+        assertEquals(BigInteger.ZERO, g.countWords(5));
+    }
+
+    @Test
+    void testShortestWord() {
+        assertFalse(setUpEndsInAbNFA().isLanguageEmpty());
+        assertEquals(Arrays.asList("a", "b"), setUpEndsInAbNFA().findShortestWord());
+        assertEquals(Collections.emptyList(), setUpEvenAsDFA().findShortestWord());
+
+        Graph g = setUpAStarBStarNFA();
+        g.getNode("A").setAccepting(false);
+        assertEquals(Collections.emptyList(), g.findShortestWord());
+        g.getNode("B").setAccepting(false);
+        assertTrue(g.isLanguageEmpty());
+    }
+
+    @Test
+    void testCountWords() {
+        assertEquals(BigInteger.ONE, setUpEvenAsDFA().countWords(0));
+        assertEquals(BigInteger.valueOf(256), setUpEndsInAbNFA().countWords(10));
+        // Larger than a long
+        assertEquals(BigInteger.TWO.pow(99), setUpEvenAsDFA().countWords(100));
+        // Every word in a*b* is accepted along more than one path of the NFA but only counted once
+        assertEquals(BigInteger.valueOf(51), setUpAStarBStarNFA().countWords(50));
+    }
+
+    @Test
+    void testCountWordsVeryLong() {
+        long length = 1_000_000_000_000_000_000L;
+        assertEquals(BigInteger.valueOf(length + 1), setUpAStarBStarNFA().countWords(length));
+    }
+
+    @Test
+    void testCountWordsNegativeLength_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> setUpEvenAsDFA().countWords(-1));
+    }
+
+    @Test
+    void testCountWordsBruteForce() {
+        Random random = new Random(5);
+
+        for (int round = 0; round < 50; round++) {
+            Graph g = new Graph(new String[]{"a", "b"});
+            for (int s = 0; s < 4; s++) g.addNode(new Node("q" + s, random.nextInt(3) == 0));
+            g.setStartNode("q0");
+            for (int i = 0; i < 8; i++) {
+                String symbol = random.nextInt(5) == 0 ? "" : random.nextBoolean() ? "a" : "b";
+                g.connectNodes("q" + random.nextInt(4), "q" + random.nextInt(4), symbol);
+            }
+
+            FrozenGraph frozen = g.freeze();
+            List<String> words = new ArrayList<>();
+            words.add("");
+            for (int length = 0; length <= 6; length++) {
+                long accepted = words.stream().filter(word -> frozen.matcher().matches(word)).count();
+                assertEquals(BigInteger.valueOf(accepted), frozen.countWords(length));
+
+                List<String> longer = new ArrayList<>();
+                for (String word : words) {
+                    longer.add(word + "a");
+                    longer.add(word + "b");
+                }
+                words = longer;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import static automata.core.TestAutomata.allWords;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyDFATest {
+
+    /**
+     * This function returns an NFA over {a, b} that accepts words whose third to last symbol is an a. The smallest DFA
+     * for this language has 8 states
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpThirdFromLastNFA() {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        g.addNode(new Node("0"));
+        g.addNode(new Node("1"));
+        g.addNode(new Node("2"));
+        g.addNode(new Node("3", true));
+
+        g.setStartNode("0");
+
+        g.connectNodeToSelf("0", "a");
+        g.connectNodeToSelf("0", "b");
+        g.connectNodes("0", "1", "a");
+        g.connectNodes("1", "2", "a");
+        g.connectNodes("1", "2", "b");
+        g.connectNodes("2", "3", "a");
+        g.connectNodes("2", "3", "b");
+
+        return g;
+    }
+
+    boolean isThirdFromLastA(String word) {
+        return word.length() >= 3 && word.charAt(word.length() - 3) == 'a';
+    }
+
+    @Test
+    void testAcceptsSameWordsAsNFA() {
+        LazyDFA dfa = setUpThirdFromLastNFA().lazyDFA();
+
+        for (String word : allWords(8)) {
+            assertEquals(isThirdFromLastA(word), dfa.accepts(word), "Wrong result for the word " + word);
+        }
+
+        assertEquals(8, dfa.getCachedStateCount());
+        assertEquals(0, dfa.getFlushCount());
+    }
+
+    @Test
+    void testSmallCacheFlushesAndFallsBack() {
+        LazyDFA dfa = setUpThirdFromLastNFA().freeze().lazyDFA(2);
+
+        for (String word : allWords(8)) {
+            assertEquals(isThirdFromLastA(word), dfa.accepts(word), "Wrong result for the word " + word);
+        }
+
+        assertTrue(dfa.getCachedStateCount() <= 2);
+        assertTrue(dfa.getFlushCount() > 0);
+        assertTrue(dfa.getFallbackCount() > 0);
+    }
+
+    @Test
+    void testRejectsWordsOutsideTheAlphabet() {
+        LazyDFA dfa = setUpThirdFromLastNFA().lazyDFA();
+
+        assertFalse(dfa.accepts("acb"));
+    }
+
+    @Test
+    void testAcceptsSymbolIds() {
+        FrozenGraph frozen = setUpThirdFromLastNFA().freeze();
+        LazyDFA dfa = frozen.lazyDFA();
+
+        int a = frozen.getSymbolId("a");
+        int b = frozen.getSymbolId("b");
+
+        assertTrue(dfa.accepts(new int[]{b, a, b, b}));
+        assertFalse(dfa.accepts(new int[]{a, b, b, b}));
+    }
+}
@@ -0,0 +1,96 @@
+package automata.core;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static automata.core.TestAutomata.setUpEndsInAbNFA;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchMetricsTest {
+
+    boolean testWord(Graph g, String word) {
+        g.startTestingWord();
+        for (char c : word.toCharArray()) g.stepTestingWord(String.valueOf(c));
+
+        return g.endTestingWord();
+    }
+
+    @Test
+    void testGraphMetrics() {
+        Graph g = setUpEndsInAbNFA();
+        MatchMetrics metrics = new MatchMetrics();
+        g.setMetrics(metrics);
+
+        assertTrue(testWord(g, "ab"));
+        assertFalse(testWord(g, "ba"));
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getWordCount());
+        assertEquals(1, snapshot.getAcceptedWordCount());
+        assertEquals(4, snapshot.getSymbolCount());
+        // ab: {Loop} -a-> {Loop, A} -b-> {Loop, AB}, ba: {Loop} -b-> {Loop} -a-> {Loop, A}
+        assertEquals(2 + 2 + 1 + 2, snapshot.getTransitionsExamined());
+        assertEquals(2, snapshot.getPeakActiveStates());
+        assertEquals((1 + 2 + 2 + 1 + 1 + 2) / 6.0, snapshot.getAverageActiveStates());
+        assertTrue(snapshot.getMaxWordNanos() <= snapshot.getTotalNanos());
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().getWordCount());
+    }
+
+    @Test
+    void testMetricsOffByDefault() {
+        Graph g = setUpEndsInAbNFA();
+        assertNull(g.getMetrics());
+        assertNull(g.matcher().getMetrics());
+
+        MatchMetrics metrics = new MatchMetrics();
+        g.setMetrics(metrics);
+        g.setMetrics(null);
+        testWord(g, "ab");
+
+        assertEquals(0, metrics.snapshot().getWordCount());
+    }
+
+    @Test
+    void testPoolSharesMetrics() {
+        MatchMetrics metrics = new MatchMetrics();
+        MatcherPool pool = new MatcherPool(setUpEndsInAbNFA().freeze(), metrics);
+
+        assertTrue(pool.matches("aab"));
+        assertFalse(pool.matches("abc"));
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getWordCount());
+        assertEquals(1, snapshot.getAcceptedWordCount());
+        assertEquals(5, snapshot.getSymbolCount());
+    }
+
+    @Test
+    void testFlightRecorderEvents(@TempDir Path tempDir) throws IOException {
+        Matcher matcher = setUpEndsInAbNFA().matcher();
+        matcher.setMetrics(new MatchMetrics());
+
+        Path file = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("automata.WordMatch");
+            recording.start();
+            matcher.matches("bab");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(1, events.size());
+        assertEquals("Matcher", events.get(0).getString("engine"));
+        assertEquals(3, events.get(0).getLong("symbols"));
+        assertTrue(events.get(0).getBoolean("accepted"));
+    }
+}
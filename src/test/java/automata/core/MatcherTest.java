@@ -0,0 +1,153 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatcherTest {
+
+    /**
+     * This function returns an NFA over {a, b} that accepts words ending in ab, with an epsilon transition from the start
+     * node
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpEndsInAbNFA() {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        g.addNode(new Node("Start"));
+        g.addNode(new Node("Loop"));
+        g.addNode(new Node("A"));
+        g.addNode(new Node("AB", true));
+
+        g.setStartNode("Start");
+
+        g.connectNodesByEpsilon("Start", "Loop");
+        g.connectNodeToSelf("Loop", "a");
+        g.connectNodeToSelf("Loop", "b");
+        g.connectNodes("Loop", "A", "a");
+        g.connectNodes("A", "AB", "b");
+
+        return g;
+    }
+
+    @Test
+    void testStartStepEnd() {
+        FrozenGraph graph = setUpEndsInAbNFA().freeze();
+        Matcher matcher = graph.matcher();
+
+        matcher.start();
+        matcher.step("b");
+        matcher.step("a");
+        assertFalse(matcher.isAccepting());
+        matcher.step(graph.getSymbolId("b"));
+        assertTrue(matcher.end());
+
+        matcher.start();
+        assertFalse(matcher.end());
+    }
+
+    @Test
+    void testSymbolOutsideAlphabetLeavesNoStates() {
+        Matcher matcher = setUpEndsInAbNFA().matcher();
+
+        matcher.start();
+        matcher.step("c");
+        assertTrue(matcher.isStuck());
+        assertFalse(matcher.end());
+    }
+
+    @Test
+    void testMultiCharacterSymbols() {
+        Graph g = new Graph(new String[]{"if", "then", "i"});
+        g.addNode(new Node("Start"));
+        g.addNode(new Node("If"));
+        g.addNode(new Node("Then", true));
+        g.setStartNode("Start");
+        g.connectNodes("Start", "If", "if");
+        g.connectNodes("If", "Then", "then");
+        g.connectNodeToSelf("Then", "then");
+
+        FrozenGraph graph = g.freeze();
+        Matcher matcher = graph.matcher();
+
+        assertEquals(1, graph.getSymbolId("then"));
+        assertEquals(-1, graph.getSymbolId("else"));
+
+        matcher.start();
+        matcher.step("if");
+        matcher.step("then");
+        matcher.step("then");
+        assertTrue(matcher.end());
+
+        matcher.start();
+        matcher.step("i");
+        assertTrue(matcher.isStuck());
+    }
+
+    @Test
+    void testStepBeforeStart_ThrowsIllegalStateException() {
+        Matcher matcher = setUpEndsInAbNFA().matcher();
+
+        assertThrows(IllegalStateException.class, () -> matcher.step(0));
+
+        matcher.start();
+        matcher.end();
+        assertThrows(IllegalStateException.class, () -> matcher.step(0));
+    }
+
+    @Test
+    void testMatchersDoNotShareState() {
+        FrozenGraph graph = setUpEndsInAbNFA().freeze();
+        Matcher first = graph.matcher();
+        Matcher second = graph.matcher();
+
+        first.start();
+        second.start();
+        first.step("a");
+        second.step("b");
+        first.step("b");
+        second.step("b");
+
+        assertTrue(first.end());
+        assertFalse(second.end());
+    }
+
+    @Test
+    void testPoolSharedBetweenThreads() throws InterruptedException, ExecutionException {
+        MatcherPool pool = new MatcherPool(setUpEndsInAbNFA().freeze());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        String word = Integer.toBinaryString(i).replace('0', 'a').replace('1', 'b');
+                        if (pool.matches(word) != word.endsWith("ab")) return false;
+                    }
+                    return true;
+                }));
+            }
+
+            for (Future<Boolean> result : results) assertTrue(result.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testReleasingMatcherFromAnotherGraph_ThrowsIllegalArgumentException() {
+        MatcherPool pool = new MatcherPool(setUpEndsInAbNFA().freeze());
+        Matcher matcher = setUpEndsInAbNFA().matcher();
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release(matcher));
+    }
+}
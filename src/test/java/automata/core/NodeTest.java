@@ -42,6 +42,28 @@ class NodeTest {
     }
 
 
+    @Test
+    void testHasTransition() {
+        Graph g = setUpNFA();
+
+        Node nodeA = g.getNode("A");
+        Node nodeB = g.getNode("B");
+        Node nodeC = g.getNode("C");
+
+        assertTrue(nodeA.hasTransition(new Transition(nodeA, nodeB, "a")));
+        assertFalse(nodeA.hasTransition(new Transition(nodeA, nodeB, "b")));
+        assertFalse(nodeA.hasTransition(new Transition(nodeB, nodeC, "b")));
+    }
+
+    @Test
+    void testGetDestinationNodesAfterTransition_NoTransitions() {
+        Graph g = setUpNFA();
+
+        Node nodeA = g.getNode("A");
+
+        assertTrue(nodeA.getDestinationNodesAfterTransition(Symbol.fromString("c")).isEmpty());
+    }
+
     @Test
     void testGetDestinationNodesAfterTransition() {
         Graph g = setUpNFA();
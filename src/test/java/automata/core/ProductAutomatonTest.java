@@ -0,0 +1,145 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import static automata.core.TestAutomata.allWords;
+import static automata.core.TestAutomata.setUpEvenAsDFA;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductAutomatonTest {
+
+    /**
+     * This function returns an NFA over {a, b, c} that accepts words ending in ab, with an epsilon transition from the
+     * start node
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpEndsInAbNFA() {
+        Graph g = new Graph(new String[]{"a", "b", "c"});
+
+        g.addNode(new Node("Start"));
+        g.addNode(new Node("Loop"));
+        g.addNode(new Node("A"));
+        g.addNode(new Node("AB", true));
+        g.setStartNode("Start");
+
+        g.connectNodesByEpsilon("Start", "Loop");
+        g.connectNodeToSelf("Loop", "a");
+        g.connectNodeToSelf("Loop", "b");
+        g.connectNodeToSelf("Loop", "c");
+        g.connectNodes("Loop", "A", "a");
+        g.connectNodes("A", "AB", "b");
+
+        return g;
+    }
+
+    @Test
+    void testOperationsMatchBothGraphs() {
+        FrozenGraph even = setUpEvenAsDFA().freeze();
+        FrozenGraph endsInAb = setUpEndsInAbNFA().freeze();
+
+        ProductAutomaton intersection = even.intersection(endsInAb);
+        ProductAutomaton union = even.union(endsInAb);
+        ProductAutomaton difference = even.difference(endsInAb);
+        ProductAutomaton complement = endsInAb.complement();
+
+        for (String word : allWords("abc", 6)) {
+            boolean first = even.matcher().matches(word);
+            boolean second = endsInAb.matcher().matches(word);
+
+            assertEquals(first && second, intersection.accepts(word), "Wrong intersection for the word " + word);
+            assertEquals(first || second, union.accepts(word), "Wrong union for the word " + word);
+            assertEquals(first && !second, difference.accepts(word), "Wrong difference for the word " + word);
+            assertEquals(!second, complement.accepts(word), "Wrong complement for the word " + word);
+        }
+    }
+
+    @Test
+    void testGraphOperationsBuildDFAs() {
+        Graph even = setUpEvenAsDFA();
+        Graph endsInAb = setUpEndsInAbNFA();
+
+        Graph intersection = even.intersection(endsInAb);
+        Graph complement = even.complement();
+
+        assertFalse(intersection.isNFA());
+        assertArrayEquals(new String[]{"a", "b", "c"}, intersection.getAlphabet());
+        assertEquals("(Even, {Start, Loop})", intersection.getStartNode().getLabel());
+
+        FrozenGraph frozenIntersection = intersection.freeze();
+        FrozenGraph frozenComplement = complement.freeze();
+        for (String word : allWords("abc", 6)) {
+            boolean first = even.matcher().matches(word);
+            boolean second = endsInAb.matcher().matches(word);
+
+            assertEquals(first && second, frozenIntersection.matcher().matches(word), "Wrong result for " + word);
+            if (word.indexOf('c') == -1) {
+                assertEquals(!first, frozenComplement.matcher().matches(word), "Wrong result for " + word);
+            }
+        }
+    }
+
+    @Test
+    void testComplementCompletesWithSink() {
+        Graph g = new Graph(new String[]{"a", "b"});
+        g.addNode(new Node("A"));
+        g.addNode(new Node("B", true));
+        g.setStartNode("A");
+        g.connectNodes("A", "B", "a");
+
+        Graph complement = g.complement();
+
+        assertEquals(3, complement.getNodes().size());
+        assertTrue(complement.getNode("{}").isAccepting());
+        assertEquals(2, complement.getNode("{}").getTransitions().size());
+    }
+
+    @Test
+    void testClashingLabelsAreMadeUnique() {
+        // The set {X, Y} prints the same as the node "{X, Y}", and its fallback label is taken by another node
+        Graph g = new Graph(new String[]{"a", "b", "c"});
+        g.addNode(new Node("S"));
+        g.addNode(new Node("{X, Y}#3"));
+        g.addNode(new Node("{X, Y}"));
+        g.addNode(new Node("X", true));
+        g.addNode(new Node("Y"));
+        g.setStartNode("S");
+        g.connectNodes("S", "{X, Y}#3", "a");
+        g.connectNodes("S", "{X, Y}", "b");
+        g.connectNodes("S", "X", "c");
+        g.connectNodes("S", "Y", "c");
+
+        Graph complement = g.complement();
+
+        assertEquals(5, complement.getNodes().size());
+        assertFalse(complement.getNode("{X, Y}#4").isAccepting());
+        assertTrue(complement.isEquivalent(g.complement()));
+        for (String word : new String[]{"", "a", "b", "c", "cc"}) {
+            assertNotEquals(g.matcher().matches(word), complement.matcher().matches(word), word);
+        }
+    }
+
+    @Test
+    void testStatesAreExploredLazily() {
+        FrozenGraph even = setUpEvenAsDFA().freeze();
+        ProductAutomaton union = even.union(setUpEndsInAbNFA().freeze());
+
+        assertEquals(1, union.getExploredStateCount());
+        union.accepts("b");
+        assertEquals(2, union.getExploredStateCount());
+
+        int reachable = union.toGraph().getNodes().size();
+        assertTrue(reachable > 2);
+        assertEquals(reachable, union.getExploredStateCount());
+    }
+
+    @Test
+    void testDeadPairsAreNotCreated() {
+        FrozenGraph even = setUpEvenAsDFA().freeze();
+        ProductAutomaton intersection = even.intersection(setUpEndsInAbNFA().freeze());
+
+        // c kills the even graph, so the intersection can't accept anything after it
+        assertFalse(intersection.accepts("cab"));
+        assertEquals(1, intersection.getExploredStateCount());
+    }
+}
@@ -0,0 +1,110 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import static automata.core.TestAutomata.allWords;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegexTest {
+
+    @Test
+    void testBothConstructionsAgreeWithJavaRegex() {
+        String[] alphabet = {"a", "b"};
+        String[] patterns = {"a", "ab|ba", "(a|b)*abb", "a*b+a?", "(ab)*|b", "((a|)b)*", "(a*|b*)*a", "a(|b)(a|b)?",
+                "(a+b+)+", "((a?)*b)+"};
+
+        for (String pattern : patterns) {
+            Pattern expected = Pattern.compile(pattern);
+            Matcher thompson = Graph.fromRegex(pattern, alphabet, RegexConstruction.THOMPSON).matcher();
+            Matcher glushkov = Graph.fromRegex(pattern, alphabet, RegexConstruction.GLUSHKOV).matcher();
+
+            for (String word : allWords(6)) {
+                boolean accepted = expected.matcher(word).matches();
+                assertEquals(accepted, thompson.matches(word), pattern + " on '" + word + "'");
+                assertEquals(accepted, glushkov.matches(word), pattern + " on '" + word + "'");
+            }
+        }
+    }
+
+    @Test
+    void testGlushkovHasOneNodePerSymbolAndNoEpsilonTransitions() {
+        Graph g = Graph.fromRegex("(a|b)*abb", new String[]{"a", "b"}, RegexConstruction.GLUSHKOV);
+
+        assertEquals(6, g.getNodes().size());
+        assertEquals(0, g.getEpsilonTransitionCount());
+        assertEquals("q0", g.getStartNode().getLabel());
+    }
+
+    @Test
+    void testSpecialSymbols() {
+        Graph g = Graph.fromRegex("<if>\\((<x>|\\*)+\\)\\.", new String[]{"if", "x", "(", ")", "*", "."});
+        Matcher matcher = g.matcher();
+
+        matcher.start();
+        for (String symbol : new String[]{"if", "(", "x", "*", ")", "."}) matcher.step(symbol);
+        assertTrue(matcher.end());
+
+        matcher.start();
+        for (String symbol : new String[]{"if", "(", ")", "."}) matcher.step(symbol);
+        assertFalse(matcher.end());
+    }
+
+    @Test
+    void testAnySymbol() {
+        Graph g = Graph.fromRegex(".*c", new String[]{"a", "b", "c"}, RegexConstruction.THOMPSON);
+
+        assertTrue(g.matcher().matches("abac"));
+        assertTrue(g.matcher().matches("c"));
+        assertFalse(g.matcher().matches("ca"));
+
+        // With one distinct symbol '.' is just that symbol, and with none it can't match anything
+        Graph single = Graph.fromRegex(".", new String[]{"a", "a"}, RegexConstruction.THOMPSON);
+        assertTrue(single.matcher().matches("a"));
+        assertFalse(single.matcher().matches(""));
+        assertEquals(2, Graph.fromRegex(".", new String[]{"a", "a"}).getNodes().size());
+
+        RegexSyntaxException e = assertThrows(RegexSyntaxException.class,
+                () -> Graph.fromRegex("()|.", new String[0]));
+        assertEquals(3, e.getIndex());
+    }
+
+    @Test
+    void testInvalidPatterns_ThrowRegexSyntaxException() {
+        String[] alphabet = {"a", "b"};
+
+        assertEquals(2, assertThrows(RegexSyntaxException.class, () -> Graph.fromRegex("a|*", alphabet)).getIndex());
+        assertEquals(0, assertThrows(RegexSyntaxException.class, () -> Graph.fromRegex("(ab", alphabet)).getIndex());
+        assertEquals(2, assertThrows(RegexSyntaxException.class, () -> Graph.fromRegex("ab)", alphabet)).getIndex());
+        assertThrows(RegexSyntaxException.class, () -> Graph.fromRegex("<ab", alphabet));
+        assertThrows(RegexSyntaxException.class, () -> Graph.fromRegex("a\\", alphabet));
+    }
+
+    @Test
+    void testSymbolOutsideAlphabet_ThrowsSymbolNotFoundException() {
+        assertThrows(SymbolNotFoundException.class, () -> Graph.fromRegex("abc", new String[]{"a", "b"}));
+        assertThrows(SymbolNotFoundException.class, () -> Graph.fromRegex("<ab>", new String[]{"a", "b"}));
+    }
+
+    @Test
+    void testThousandsOfAlternatives() {
+        String[] alphabet = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) pattern.append('|');
+            pattern.append(i * 7919L % 100000007L);
+        }
+
+        for (RegexConstruction construction : RegexConstruction.values()) {
+            Graph g = assertTimeout(Duration.ofSeconds(5), () -> Graph.fromRegex(pattern.toString(), alphabet,
+                    construction));
+            Matcher matcher = g.matcher();
+
+            assertTrue(matcher.matches("0"));
+            assertTrue(matcher.matches(String.valueOf(4999 * 7919L)));
+            assertFalse(matcher.matches(String.valueOf(5000 * 7919L)));
+        }
+    }
+}
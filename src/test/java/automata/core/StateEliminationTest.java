@@ -0,0 +1,187 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateEliminationTest {
+
+    /**
+     * This function returns a DFA over {a, b} with random transitions, where each node is accepting with probability
+     * 1/3
+     *
+     * @param nodes Number of nodes
+     * @param seed  Seed of the random transitions
+     * @return Automaton as specified
+     */
+    Graph setUpRandomDFA(int nodes, long seed) {
+        Random random = new Random(seed);
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        for (int i = 0; i < nodes; i++) g.addNode(new Node("S" + i, random.nextInt(3) == 0));
+        g.setStartNode("S0");
+
+        for (int i = 0; i < nodes; i++) {
+            g.connectNodes("S" + i, "S" + random.nextInt(nodes), "a");
+            g.connectNodes("S" + i, "S" + random.nextInt(nodes), "b");
+        }
+
+        return g;
+    }
+
+    /**
+     * This function returns the DFA over {a, b} that the Knuth-Morris-Pratt algorithm uses to find a pattern, which
+     * accepts the words containing the pattern
+     *
+     * @param pattern Pattern of a's and b's
+     * @return Automaton as specified
+     */
+    Graph setUpContainsDFA(String pattern) {
+        int m = pattern.length();
+        int[][] next = new int[2][m + 1];
+        next[pattern.charAt(0) - 'a'][0] = 1;
+        for (int j = 1, restart = 0; j < m; j++) {
+            next[0][j] = next[0][restart];
+            next[1][j] = next[1][restart];
+            next[pattern.charAt(j) - 'a'][j] = j + 1;
+            restart = next[pattern.charAt(j) - 'a'][restart];
+        }
+        next[0][m] = m;
+        next[1][m] = m;
+
+        Graph g = new Graph(new String[]{"a", "b"});
+        for (int i = 0; i <= m; i++) g.addNode(new Node("K" + i, i == m));
+        g.setStartNode("K0");
+
+        for (int i = 0; i <= m; i++) {
+            g.connectNodes("K" + i, "K" + next[0][i], "a");
+            g.connectNodes("K" + i, "K" + next[1][i], "b");
+        }
+
+        return g;
+    }
+
+    /**
+     * This function returns a DFA over {a, b} that accepts words where the number of a's is a multiple of a number
+     *
+     * @param modulus Number the count of a's must be a multiple of
+     * @return Automaton as specified
+     */
+    Graph setUpCountAModDFA(int modulus) {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        for (int i = 0; i < modulus; i++) g.addNode(new Node("C" + i, i == 0));
+        g.setStartNode("C0");
+
+        for (int i = 0; i < modulus; i++) {
+            g.connectNodes("C" + i, "C" + (i + 1) % modulus, "a");
+            g.connectNodeToSelf("C" + i, "b");
+        }
+
+        return g;
+    }
+
+    /**
+     * This function returns a random regular expression over {a, b} built from symbols, unions, concatenations and
+     * the <code>* + ?</code> repetitions, with every part wrapped in brackets
+     *
+     * @param depth  Largest number of operators nested inside each other
+     * @param random Source of the random choices
+     * @return Regular expression as specified
+     */
+    String setUpRandomRegex(int depth, Random random) {
+        if (depth == 0 || random.nextInt(4) == 0) return random.nextBoolean() ? "a" : "b";
+
+        switch (random.nextInt(4)) {
+            case 0:
+                return "(" + setUpRandomRegex(depth - 1, random) + "|" + setUpRandomRegex(depth - 1, random) + ")";
+            case 1:
+                return setUpRandomRegex(depth - 1, random) + setUpRandomRegex(depth - 1, random);
+            default:
+                return "(" + setUpRandomRegex(depth - 1, random) + ")" + "*+?".charAt(random.nextInt(3));
+        }
+    }
+
+    @Test
+    void testSimpleAutomata() {
+        assertEquals("a*b", Graph.fromRegex("a*b", new String[]{"a", "b"}).toRegex());
+        assertEquals("ab*", Graph.fromRegex("ab*", new String[]{"a", "b"}).toRegex());
+        assertEquals("()", Graph.fromRegex("()", new String[]{"a"}).toRegex());
+        assertEquals("<if>\\*?", Graph.fromRegex("<if>\\*?", new String[]{"if", "*"}).toRegex());
+    }
+
+    @Test
+    void testEmptyLanguage_ReturnsNull() {
+        Graph g = new Graph(new String[]{"a"});
+        g.addNode(new Node("Start"));
+        g.addNode(new Node("Unreachable", true));
+        g.setStartNode("Start");
+        g.connectNodeToSelf("Start", "a");
+
+        assertNull(g.toRegex());
+    }
+
+    @Test
+    void testRoundTripOfRandomDFAs() {
+        for (long seed = 0; seed < 50; seed++) {
+            Graph g = setUpRandomDFA(8, seed);
+            String regex = g.toRegex();
+
+            if (regex == null) assertTrue(g.isLanguageEmpty());
+            else assertTrue(g.isEquivalent(Graph.fromRegex(regex, g.getAlphabet())), regex);
+        }
+    }
+
+    @Test
+    void testRoundTripOfRandomRegexes() {
+        String[] alphabet = {"a", "b"};
+        Random random = new Random(11);
+
+        for (int i = 0; i < 3000; i++) {
+            Graph g = Graph.fromRegex(setUpRandomRegex(5, random), alphabet);
+            String regex = g.toRegex();
+
+            if (regex == null) assertTrue(g.isLanguageEmpty());
+            else assertTrue(Graph.fromRegex(regex, alphabet).isEquivalent(g), regex);
+        }
+    }
+
+    @Test
+    void testRepeatedPlusKeepsBothCopies() {
+        String[] alphabet = {"a", "b"};
+        String[] patterns = {"(b)+(b)+((a|a))*((b)+|((b)?)?)", "(((b)*|aa))*b(b)+((a|b))*"};
+
+        for (String pattern : patterns) {
+            Graph g = Graph.fromRegex(pattern, alphabet);
+            Graph roundTrip = Graph.fromRegex(g.toRegex(), alphabet);
+
+            assertFalse(roundTrip.matcher().matches("b"), pattern);
+            assertTrue(roundTrip.isEquivalent(g), pattern);
+        }
+    }
+
+    @Test
+    void testRoundTripOfEpsilonNFA() {
+        Graph g = Graph.fromRegex("(ab|b)*(a|())b+", new String[]{"a", "b"}, RegexConstruction.THOMPSON);
+
+        assertTrue(g.isEquivalent(Graph.fromRegex(g.toRegex(), g.getAlphabet())));
+    }
+
+    @Test
+    void testHundredsOfStates() {
+        Graph countA = setUpCountAModDFA(300);
+        String regex = assertTimeout(Duration.ofSeconds(5), countA::toRegex);
+        assertTrue(countA.isEquivalent(Graph.fromRegex(regex, countA.getAlphabet())));
+
+        Random random = new Random(3);
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < 300; i++) pattern.append(random.nextBoolean() ? 'a' : 'b');
+
+        Graph contains = setUpContainsDFA(pattern.toString());
+        regex = assertTimeout(Duration.ofSeconds(5), contains::toRegex);
+        assertTrue(contains.isEquivalent(Graph.fromRegex(regex, contains.getAlphabet())));
+    }
+}
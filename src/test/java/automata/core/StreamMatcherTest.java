@@ -0,0 +1,77 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static automata.core.TestAutomata.setUpEndsInAbNFA;
+import static automata.core.TestAutomata.setUpEvenAsDFA;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamMatcherTest {
+
+    /**
+     * Builds a word longer than the buffers used in the tests
+     */
+    String longWord(String suffix) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) builder.append(i % 3 == 0 ? 'a' : 'b');
+
+        return builder.append(suffix).toString();
+    }
+
+    @Test
+    void testInputStream() throws IOException {
+        StreamMatcher dfa = setUpEvenAsDFA().freeze().streamMatcher(100);
+        StreamMatcher nfa = setUpEndsInAbNFA().freeze().streamMatcher(100);
+
+        // The long word has 3334 a's
+        assertTrue(dfa.accepts(stream(longWord(""))));
+        assertFalse(dfa.accepts(stream(longWord("a"))));
+        assertTrue(nfa.accepts(stream(longWord("ab"))));
+        assertFalse(nfa.accepts(stream(longWord("ba"))));
+        assertTrue(dfa.accepts(stream("")));
+    }
+
+    @Test
+    void testByteOutsideAlphabetRejects() throws IOException {
+        assertFalse(setUpEvenAsDFA().streamMatcher().accepts(stream("aa\n")));
+        assertFalse(setUpEndsInAbNFA().streamMatcher().accepts(stream("ab\n")));
+    }
+
+    @Test
+    void testChannel() throws IOException {
+        StreamMatcher nfa = setUpEndsInAbNFA().freeze().streamMatcher(64);
+
+        assertTrue(nfa.accepts(Channels.newChannel(stream(longWord("ab")))));
+        assertFalse(nfa.accepts(Channels.newChannel(stream(longWord("ba")))));
+    }
+
+    @Test
+    void testMappedFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("word.txt");
+        Files.write(file, longWord("ab").getBytes(StandardCharsets.US_ASCII));
+
+        assertTrue(setUpEndsInAbNFA().streamMatcher().accepts(file));
+        assertFalse(setUpEvenAsDFA().streamMatcher().accepts(file));
+    }
+
+    @Test
+    void testReader() throws IOException {
+        StreamMatcher dfa = setUpEvenAsDFA().freeze().streamMatcher(10);
+
+        assertTrue(dfa.accepts(new StringReader(longWord("aba"))));
+        assertFalse(dfa.accepts(new StringReader(longWord("☃"))));
+    }
+
+    private static ByteArrayInputStream stream(String word) {
+        return new ByteArrayInputStream(word.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,77 @@
+package automata.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Automata and words shared by several test classes
+ */
+final class TestAutomata {
+
+    private TestAutomata() {
+    }
+
+    /**
+     * This function returns a DFA over {a, b} that accepts words with an even number of a's
+     *
+     * @return Automaton as specified
+     */
+    static Graph setUpEvenAsDFA() {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        g.addNode(new Node("Even", true));
+        g.addNode(new Node("Odd"));
+        g.setStartNode("Even");
+
+        g.connectNodes("Even", "Odd", "a");
+        g.connectNodes("Odd", "Even", "a");
+        g.connectNodeToSelf("Even", "b");
+        g.connectNodeToSelf("Odd", "b");
+
+        return g;
+    }
+
+    /**
+     * This function returns an NFA over {a, b} that accepts words ending in ab
+     *
+     * @return Automaton as specified
+     */
+    static Graph setUpEndsInAbNFA() {
+        Graph g = new Graph(new String[]{"a", "b"});
+
+        g.addNode(new Node("Loop"));
+        g.addNode(new Node("A"));
+        g.addNode(new Node("AB", true));
+        g.setStartNode("Loop");
+
+        g.connectNodeToSelf("Loop", "a");
+        g.connectNodeToSelf("Loop", "b");
+        g.connectNodes("Loop", "A", "a");
+        g.connectNodes("A", "AB", "b");
+
+        return g;
+    }
+
+    /**
+     * @return Every word over {a, b} up to and including the given length, shortest first
+     */
+    static List<String> allWords(int maxLength) {
+        return allWords("ab", maxLength);
+    }
+
+    /**
+     * @param symbols The single character symbols to build the words from
+     * @return Every word over the symbols up to and including the given length, shortest first and in the order of the
+     * symbols within each length
+     */
+    static List<String> allWords(String symbols, int maxLength) {
+        List<String> words = new ArrayList<>();
+        words.add("");
+        for (int i = 0; i < words.size(); i++) {
+            if (words.get(i).length() == maxLength) break;
+            for (char c : symbols.toCharArray()) words.add(words.get(i) + c);
+        }
+
+        return words;
+    }
+}
@@ -0,0 +1,117 @@
+package automata.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextSearcherTest {
+
+    /**
+     * This function returns an NFA over {a, b, c} that accepts the word ab, with an epsilon transition from the start
+     * node
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpAbNFA() {
+        Graph g = new Graph(new String[]{"a", "b", "c"});
+
+        g.addNode(new Node("Start"));
+        g.addNode(new Node("Before"));
+        g.addNode(new Node("A"));
+        g.addNode(new Node("AB", true));
+        g.setStartNode("Start");
+
+        g.connectNodesByEpsilon("Start", "Before");
+        g.connectNodes("Before", "A", "a");
+        g.connectNodes("A", "AB", "b");
+
+        return g;
+    }
+
+    /**
+     * This function returns a DFA over {a, b, c} that accepts an a followed by any number of b's
+     *
+     * @return Automaton as specified
+     */
+    Graph setUpAbStarDFA() {
+        Graph g = new Graph(new String[]{"a", "b", "c"});
+
+        g.addNode(new Node("Start"));
+        g.addNode(new Node("A", true));
+        g.setStartNode("Start");
+
+        g.connectNodes("Start", "A", "a");
+        g.connectNodeToSelf("A", "b");
+
+        return g;
+    }
+
+    @Test
+    void testFindAll() {
+        assertEquals(Arrays.asList(new MatchSpan(1, 3), new MatchSpan(4, 6)), setUpAbNFA().searcher().findAll("cabcab"));
+        assertEquals(Arrays.asList(new MatchSpan(0, 1), new MatchSpan(0, 2), new MatchSpan(0, 3), new MatchSpan(4, 5),
+                new MatchSpan(4, 6)), setUpAbStarDFA().searcher().findAll("abbcab"));
+    }
+
+    @Test
+    void testSymbolOutsideAlphabetBreaksMatches() {
+        assertEquals(List.of(new MatchSpan(3, 5)), setUpAbNFA().searcher().findAll("a!bab"));
+    }
+
+    @Test
+    void testEmptyWordMatchesEverywhere() {
+        Graph g = setUpAbStarDFA();
+        g.getNode("Start").setAccepting(true);
+
+        assertEquals(Arrays.asList(new MatchSpan(0, 0), new MatchSpan(0, 1), new MatchSpan(2, 2)),
+                g.searcher().findAll("ac"));
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(11);
+        FrozenGraph graph = setUpAbNFA().freeze();
+        Matcher matcher = graph.matcher();
+        TextSearcher searcher = graph.searcher();
+
+        for (int round = 0; round < 200; round++) {
+            char[] text = new char[random.nextInt(20)];
+            for (int i = 0; i < text.length; i++) text[i] = "abc".charAt(random.nextInt(3));
+
+            // The leftmost start of an accepted substring for every end offset
+            List<MatchSpan> expected = new ArrayList<>();
+            for (int end = 0; end <= text.length; end++) {
+                for (int start = 0; start <= end; start++) {
+                    if (matcher.matches(new String(text, start, end - start))) {
+                        expected.add(new MatchSpan(start, end));
+                        break;
+                    }
+                }
+            }
+
+            assertEquals(expected, searcher.findAll(new String(text)), "Wrong matches in " + new String(text));
+        }
+    }
+
+    @Test
+    void testMappedFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("log.txt");
+        Files.write(file, "cc\nab\nabb".getBytes(StandardCharsets.US_ASCII));
+
+        List<MatchSpan> matches = new ArrayList<>();
+        setUpAbStarDFA().searcher().search(file, (start, end) -> matches.add(new MatchSpan(start, end)));
+
+        assertEquals(Arrays.asList(new MatchSpan(3, 4), new MatchSpan(3, 5), new MatchSpan(6, 7), new MatchSpan(6, 8),
+                new MatchSpan(6, 9)), matches);
+    }
+}